@@ -3,10 +3,10 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.FocusEvent;
 import java.awt.event.FocusListener;
-import java.sql.PreparedStatement;
+import java.io.File;
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Pattern;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -25,7 +25,7 @@ public class AddEmployee extends JFrame implements ActionListener {
     private static final Color BORDER_COLOR = new Color(220, 221, 225);
     
     // UI Components
-    private JButton addButton, backButton, clearButton, previewButton;
+    private JButton addButton, backButton, clearButton, previewButton, importButton;
     private JTextField nameField, salaryField, phoneField, emailField, positionField;
     private JTextArea addressArea;
     private JComboBox<String> educationCombo, departmentCombo, genderCombo;
@@ -35,23 +35,34 @@ public class AddEmployee extends JFrame implements ActionListener {
     private JProgressBar progressBar;
     
     // Data
-    private final Random random = new Random();
-    private final int employeeId = 100000 + random.nextInt(899999); // 6-digit ID
-    private conn dbConnection;
+    // Reserved from IdAllocator when the form opens; null until then
+    private String employeeId;
+    private final EmployeeRepository employeeRepository = new EmployeeRepository();
+    private CompletableFuture<EmployeeImport.Status> importing;
     
     public AddEmployee() {
-        initializeDatabase();
+        conn.checkReachable(this, null);
         initializeUI();
         setupValidation();
+        allocateEmployeeId();
     }
     
-    private void initializeDatabase() {
-        try {
-            dbConnection = new conn();
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Database connection failed: " + e.getMessage(),
-                                        "Connection Error", JOptionPane.ERROR_MESSAGE);
-        }
+    // Usually answered from the allocator's reserved block; a new block costs one round trip
+    private void allocateEmployeeId() {
+        addButton.setEnabled(false);
+        DbExecutor.submit(IdAllocator.EMPLOYEES::next).whenComplete(DbExecutor.onEdt((id, error) -> {
+            if (error == null) {
+                employeeId = String.valueOf(id);
+                idLabel.setText(employeeId);
+                addButton.setEnabled(importing == null);
+            } else {
+                error.printStackTrace();
+                idLabel.setText("Unavailable");
+                JOptionPane.showMessageDialog(AddEmployee.this,
+                    "Could not reserve an employee ID. " + DbExecutor.describe(error),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }));
     }
     
     private void initializeUI() {
@@ -133,7 +144,7 @@ public class AddEmployee extends JFrame implements ActionListener {
         idTitleLabel.setFont(new Font("Segoe UI", Font.BOLD, 16));
         idTitleLabel.setForeground(SECONDARY_COLOR);
         
-        idLabel = new JLabel(String.valueOf(employeeId));
+        idLabel = new JLabel("...");
         idLabel.setFont(new Font("Segoe UI", Font.BOLD, 20));
         idLabel.setForeground(PRIMARY_COLOR);
         
@@ -189,7 +200,7 @@ public class AddEmployee extends JFrame implements ActionListener {
         gbc.gridx = 2; gbc.gridy = 0;
         content.add(createFieldLabel("Age *"), gbc);
         gbc.gridx = 3;
-        ageSpinner = new JSpinner(new SpinnerNumberModel(25, 18, 65, 1));
+        ageSpinner = new JSpinner(new SpinnerNumberModel(25, EmployeeValidator.MIN_AGE, EmployeeValidator.MAX_AGE, 1));
         styleSpinner(ageSpinner);
         content.add(ageSpinner, gbc);
         
@@ -406,13 +417,16 @@ public class AddEmployee extends JFrame implements ActionListener {
         clearButton = createModernButton("Clear All", new Color(255, 193, 7));
         previewButton = createModernButton("Preview", PRIMARY_COLOR);
         addButton = createModernButton("Add Employee", SUCCESS_COLOR);
+        importButton = createModernButton("Import File", SECONDARY_COLOR);
         
         backButton.addActionListener(this);
         clearButton.addActionListener(this);
         previewButton.addActionListener(this);
         addButton.addActionListener(this);
+        importButton.addActionListener(this);
         
         buttonPanel.add(backButton);
+        buttonPanel.add(importButton);
         buttonPanel.add(clearButton);
         buttonPanel.add(previewButton);
         buttonPanel.add(addButton);
@@ -526,37 +540,8 @@ public class AddEmployee extends JFrame implements ActionListener {
     
     private boolean validateForm() {
         StringBuilder errors = new StringBuilder();
-        
-        if (getFieldText(nameField).isEmpty()) errors.append("• Name is required\n");
-        if (getFieldText(phoneField).isEmpty()) errors.append("• Phone number is required\n");
-        if (getFieldText(emailField).isEmpty()) errors.append("• Email is required\n");
-        if (getFieldText(positionField).isEmpty()) errors.append("• Position is required\n");
-        if (getFieldText(salaryField).isEmpty()) errors.append("• Salary is required\n");
-        if (addressArea.getText().trim().isEmpty()) errors.append("• Address is required\n");
-        
-        // Validate phone number format
-        String phone = getFieldText(phoneField);
-        if (!phone.isEmpty() && !phone.matches("\\d{10}")) {
-            errors.append("• Phone number must be 10 digits\n");
-        }
-        
-        // Validate email format
-        String email = getFieldText(emailField);
-        if (!email.isEmpty()) {
-            Pattern emailPattern = Pattern.compile("^[A-Za-z0-9+_.-]+@(.+)$");
-            if (!emailPattern.matcher(email).matches()) {
-                errors.append("• Invalid email format\n");
-            }
-        }
-        
-        // Validate salary is numeric
-        String salary = getFieldText(salaryField);
-        if (!salary.isEmpty()) {
-            try {
-                Double.parseDouble(salary);
-            } catch (NumberFormatException e) {
-                errors.append("• Salary must be a valid number\n");
-            }
+        for (String error : EmployeeValidator.validate(formEmployee())) {
+            errors.append("• ").append(error).append("\n");
         }
         
         if (errors.length() > 0) {
@@ -569,6 +554,23 @@ public class AddEmployee extends JFrame implements ActionListener {
         return true;
     }
     
+    private EmployeeRecord formEmployee() {
+        return new EmployeeRecord(
+            employeeId,
+            getFieldText(nameField),
+            (Integer) ageSpinner.getValue(),
+            (String) genderCombo.getSelectedItem(),
+            getFieldText(phoneField),
+            getFieldText(emailField),
+            getFieldText(positionField),
+            (String) departmentCombo.getSelectedItem(),
+            getFieldText(salaryField),
+            (String) educationCombo.getSelectedItem(),
+            addressArea.getText().trim(),
+            joiningDateField.getText()
+        );
+    }
+    
     private void clearForm() {
         nameField.setText("Enter full name");
         nameField.setForeground(Color.GRAY);
@@ -627,6 +629,14 @@ public class AddEmployee extends JFrame implements ActionListener {
             }
         } else if (e.getSource() == previewButton) {
             showPreview();
+        } else if (e.getSource() == importButton) {
+            if (importing == null) {
+                importFile();
+            } else {
+                // Chunks already committed stay imported
+                importing.cancel(true);
+                importFinished();
+            }
         }
     }
     
@@ -637,80 +647,83 @@ public class AddEmployee extends JFrame implements ActionListener {
         progressBar.setVisible(true);
         addButton.setEnabled(false);
         
-        SwingWorker<Boolean, Void> worker = new SwingWorker<Boolean, Void>() {
-            @Override
-            protected Boolean doInBackground() throws Exception {
-                try {
-                    if (dbConnection == null || dbConnection.statement == null) {
-                        throw new Exception("Database connection not available");
-                    }
-                    
-                    // Use PreparedStatement for security
-                    String query = "INSERT INTO employee (id, name, age, gender, phone, email, position, department, salary, education, address, joining_date) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-                    
-                    try (PreparedStatement pstmt = dbConnection.statement.getConnection().prepareStatement(query)) {
-                        pstmt.setString(1, String.valueOf(employeeId));
-                        pstmt.setString(2, getFieldText(nameField));
-                        pstmt.setInt(3, (Integer) ageSpinner.getValue());
-                        pstmt.setString(4, (String) genderCombo.getSelectedItem());
-                        pstmt.setString(5, getFieldText(phoneField));
-                        pstmt.setString(6, getFieldText(emailField));
-                        pstmt.setString(7, getFieldText(positionField));
-                        pstmt.setString(8, (String) departmentCombo.getSelectedItem());
-                        pstmt.setString(9, getFieldText(salaryField));
-                        pstmt.setString(10, (String) educationCombo.getSelectedItem());
-                        pstmt.setString(11, addressArea.getText().trim());
-                        pstmt.setString(12, joiningDateField.getText());
-                        
-                        pstmt.executeUpdate();
-                        return true;
-                    }
-                } catch (Exception ex) {
-                    ex.printStackTrace();
-                    return false;
-                }
+        // Read the form on the EDT; only the insert runs in the background
+        EmployeeRecord employee = formEmployee();
+        
+        DbExecutor.submit(() -> employeeRepository.insert(employee)).whenComplete(DbExecutor.onEdt((inserted, error) -> {
+            progressBar.setVisible(false);
+            addButton.setEnabled(true);
+            
+            if (error == null) {
+                JOptionPane.showMessageDialog(AddEmployee.this,
+                    "Employee added successfully!\nEmployee ID: " + employeeId,
+                    "Success", JOptionPane.INFORMATION_MESSAGE);
+                dispose();
+                new Main_class();
+            } else {
+                error.printStackTrace();
+                JOptionPane.showMessageDialog(AddEmployee.this,
+                    "Failed to add employee. " + DbExecutor.describe(error),
+                    "Error", JOptionPane.ERROR_MESSAGE);
             }
+        }));
+    }
+    
+    // Imports a CSV or JSON file of employees in the background; the button cancels it meanwhile
+    private void importFile() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import Employees (CSV or JSON)");
+        chooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter(
+            "CSV or JSON files", "csv", "json", "jsonl", "ndjson"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        File file = chooser.getSelectedFile();
+        
+        progressBar.setVisible(true);
+        progressBar.setValue(0);
+        progressBar.setString("Importing " + file.getName() + "...");
+        addButton.setEnabled(false);
+        importButton.setText("Cancel Import");
+        
+        EmployeeImport employeeImport = new EmployeeImport(file, status -> SwingUtilities.invokeLater(() -> {
+            if (importing == null) return;
+            progressBar.setValue((int) (status.getFractionRead() * 100));
+            progressBar.setString(String.format("Imported %,d, rejected %,d - %,.0f rows/sec",
+                status.getImported(), status.getRejected(), status.getRowsPerSecond()));
+        }));
+        importing = DbExecutor.submit(JdbcProfile.BULK, employeeImport::run);
+        importing.whenComplete(DbExecutor.onEdt((status, error) -> {
+            importFinished();
+            if (!isDisplayable()) return;
             
-            @Override
-            protected void done() {
-                progressBar.setVisible(false);
-                addButton.setEnabled(true);
-                
-                try {
-                    boolean success = get();
-                    if (success) {
-                        JOptionPane.showMessageDialog(AddEmployee.this,
-                            "Employee added successfully!\nEmployee ID: " + employeeId,
-                            "Success", JOptionPane.INFORMATION_MESSAGE);
-                        dispose();
-                        new Main_class();
-                    } else {
-                        JOptionPane.showMessageDialog(AddEmployee.this,
-                            "Failed to add employee. Please try again.",
-                            "Error", JOptionPane.ERROR_MESSAGE);
-                    }
-                } catch (Exception ex) {
-                    JOptionPane.showMessageDialog(AddEmployee.this,
-                        "Error: " + ex.getMessage(),
-                        "Error", JOptionPane.ERROR_MESSAGE);
+            if (error == null) {
+                String message = String.format("Imported %,d employees in %.1f seconds (%,.0f rows/sec).",
+                    status.getImported(), status.getElapsedMillis() / 1000.0, status.getRowsPerSecond());
+                if (status.getReport() != null) {
+                    message += String.format("\n%,d rows were rejected; see %s", status.getRejected(), status.getReport());
                 }
+                JOptionPane.showMessageDialog(AddEmployee.this, message, "Import Complete",
+                    status.getReport() == null ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+            } else {
+                error.printStackTrace();
+                JOptionPane.showMessageDialog(AddEmployee.this,
+                    "Import stopped. Employees imported before the error were kept. " + DbExecutor.describe(error),
+                    "Import Error", JOptionPane.ERROR_MESSAGE);
             }
-        };
-        
-        worker.execute();
+        }));
+    }
+    
+    private void importFinished() {
+        importing = null;
+        progressBar.setVisible(false);
+        progressBar.setString("Adding employee...");
+        addButton.setEnabled(employeeId != null);
+        importButton.setText("Import File");
     }
     
     @Override
     public void dispose() {
-        // Clean up database connection
-        if (dbConnection != null) {
-            try {
-                if (dbConnection.statement != null) {
-                    dbConnection.statement.close();
-                }
-            } catch (Exception e) {
-                System.err.println("Error closing database connection: " + e.getMessage());
-            }
+        if (importing != null) {
+            importing.cancel(true);
         }
         super.dispose();
     }
@@ -0,0 +1,235 @@
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only log of field-level changes to employees, in employee_audit.
+ *
+ * Writes are write-behind: record() only puts the entry on an in-memory queue, so adding, updating
+ * and removing employees costs no extra round trip. A single background thread drains the queue
+ * every FLUSH_MILLIS and writes what it took as one batch in one transaction on the BULK profile,
+ * whose rewriting turns the batch into multi-row inserts. Each entry carries the time it was
+ * recorded, not written. The queue is flushed before the connection pools close at exit.
+ *
+ * Bulk imports and bulk updates write their entries themselves, in the transaction of each chunk.
+ *
+ * Entries are only lost if the process dies without running its shutdown hooks, or if the queue
+ * fills up (MAX_QUEUED) while the database is unreachable; dropped entries are counted. An entry
+ * the database refuses on its own is dropped and reported rather than holding back the rest.
+ */
+public class AuditTrail {
+
+    public static final String ADD = "ADD";
+    public static final String UPDATE = "UPDATE";
+    public static final String REMOVE = "REMOVE";
+
+    private static final long FLUSH_MILLIS = 250;
+    private static final long RETRY_MILLIS = 5_000;
+    private static final int MAX_BATCH = 1000;
+    private static final int MAX_QUEUED = 100_000;
+    // Values longer than the column are cut rather than failing the batch
+    private static final int MAX_VALUE_LENGTH = 255;
+
+    // Also used by bulk writes, which write their entries in their own transaction; see entry()
+    static final String INSERT = "INSERT INTO employee_audit " +
+        "(employee_id, action, field, old_value, new_value, changed_by, changed_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final class Entry {
+        final Object employeeId;
+        final String action;
+        final String field;
+        final String oldValue;
+        final String newValue;
+        final String user;
+        final long recordedAt = System.currentTimeMillis();
+
+        Entry(Object employeeId, String action, String field, Object oldValue, Object newValue, String user) {
+            this.employeeId = employeeId;
+            this.action = action;
+            this.field = field;
+            this.oldValue = text(oldValue);
+            this.newValue = text(newValue);
+            this.user = user;
+        }
+
+        Object[] params() {
+            return new Object[]{employeeId, action, field, oldValue, newValue, user, new Timestamp(recordedAt)};
+        }
+    }
+
+    private static final LinkedBlockingQueue<Entry> queue = new LinkedBlockingQueue<>(MAX_QUEUED);
+    private static final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "audit-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final AtomicLong written = new AtomicLong();
+    private static final AtomicLong dropped = new AtomicLong();
+    private static final AtomicLong rejected = new AtomicLong();
+    private static final AtomicLong failedFlushes = new AtomicLong();
+    private static volatile long lastFlushMillis;
+    private static volatile String user;
+
+    static {
+        writer.schedule(AuditTrail::drain, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+        conn.beforeShutdown(AuditTrail::flush);
+    }
+
+    /** The logged-in user, stored with every later entry. */
+    public static void setUser(String name) {
+        user = name;
+    }
+
+    /** Queues one change; field and the values are null for a whole-employee entry. Never blocks. */
+    public static void record(Object employeeId, String action, String field, Object oldValue, Object newValue) {
+        if (!queue.offer(new Entry(employeeId, action, field, oldValue, newValue, user))) {
+            long count = dropped.incrementAndGet();
+            if (count == 1 || count % 10_000 == 0) {
+                System.err.println("Audit queue full, " + count + " entries dropped");
+            }
+        }
+    }
+
+    /**
+     * Parameters of INSERT for one entry, for bulk writes: queueing an entry per row of an import
+     * would overflow the queue, so they batch their entries into the transaction that writes the rows.
+     */
+    static Object[] entry(Object employeeId, String action, String field, Object oldValue, Object newValue) {
+        return new Entry(employeeId, action, field, oldValue, newValue, user).params();
+    }
+
+    /**
+     * Writes one entry for each row of select whose value changes, in the transaction of a set-based
+     * update. select gives employee_id, old_value and new_value, the values as text.
+     */
+    static int recordSelected(QueryExecutor.Transaction transaction, String action, String field,
+                              String select, Object... params) throws SQLException {
+        Object[] all = new Object[params.length + 4];
+        all[0] = action;
+        all[1] = field;
+        all[2] = user;
+        all[3] = new Timestamp(System.currentTimeMillis());
+        System.arraycopy(params, 0, all, 4, params.length);
+        return transaction.update("INSERT INTO employee_audit " +
+            "(employee_id, action, field, old_value, new_value, changed_by, changed_at) " +
+            "SELECT s.employee_id, ?, ?, s.old_value, s.new_value, ?, ? FROM (" + select + ") s " +
+            "WHERE COALESCE(s.old_value, '') <> COALESCE(s.new_value, '')", all);
+    }
+
+    /** Writes everything queued so far on the calling thread; used at exit. */
+    public static void flush() {
+        try {
+            while (writeBatch() > 0) {
+                // keep going until the queue is empty
+            }
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("Error flushing audit trail, " + queue.size() + " entries not written: " + e.getMessage());
+        }
+    }
+
+    // Entries waiting to be written
+    public static int getQueueDepth() {
+        return queue.size();
+    }
+
+    // How long the oldest waiting entry has been queued, 0 when the queue is empty
+    public static long getLagMillis() {
+        Entry oldest = queue.peek();
+        return oldest == null ? 0 : Math.max(0, System.currentTimeMillis() - oldest.recordedAt);
+    }
+
+    public static long getWrittenCount() { return written.get(); }
+    public static long getDroppedCount() { return dropped.get(); }
+    // Entries the database refused on their own, e.g. an id that no longer fits the column
+    public static long getRejectedCount() { return rejected.get(); }
+    public static long getFailedFlushCount() { return failedFlushes.get(); }
+    // Duration of the last batch written, in milliseconds
+    public static long getLastFlushMillis() { return lastFlushMillis; }
+
+    // Runs on the writer thread only; reschedules itself, backing off while the database fails
+    private static void drain() {
+        long delay = FLUSH_MILLIS;
+        try {
+            while (writeBatch() == MAX_BATCH) {
+                // a full batch means more is waiting
+            }
+        } catch (SQLException | RuntimeException e) {
+            failedFlushes.incrementAndGet();
+            System.err.println("Error writing audit trail, retrying later: " + e.getMessage());
+            delay = RETRY_MILLIS;
+        }
+        writer.schedule(AuditTrail::drain, delay, TimeUnit.MILLISECONDS);
+    }
+
+    // Writes up to MAX_BATCH queued entries in one transaction; on failure they go back to the queue,
+    // unless the failure is down to bad entries, which are then found and dropped
+    private static synchronized int writeBatch() throws SQLException {
+        List<Entry> batch = new ArrayList<>(Math.min(MAX_BATCH, queue.size()));
+        queue.drainTo(batch, MAX_BATCH);
+        if (batch.isEmpty()) return 0;
+
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (Entry entry : batch) {
+            rows.add(entry.params());
+        }
+        long start = System.nanoTime();
+        try {
+            conn.executor(JdbcProfile.BULK).batchInTransaction(INSERT, rows);
+            written.addAndGet(batch.size());
+        } catch (SQLException e) {
+            if (!EmployeeRepository.isRowError(e)) {
+                requeue(batch, 0);
+                throw e;
+            }
+            writeOneByOne(batch, rows);
+        } catch (RuntimeException e) {
+            requeue(batch, 0);
+            throw e;
+        }
+        lastFlushMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return batch.size();
+    }
+
+    // After a batch was refused for a bad entry: the others are written, the bad ones dropped and reported
+    private static void writeOneByOne(List<Entry> batch, List<Object[]> rows) throws SQLException {
+        for (int i = 0; i < rows.size(); i++) {
+            try {
+                conn.executor(JdbcProfile.BULK).update(INSERT, rows.get(i));
+                written.incrementAndGet();
+            } catch (SQLException e) {
+                if (!EmployeeRepository.isRowError(e)) {
+                    requeue(batch, i);
+                    throw e;
+                }
+                rejected.incrementAndGet();
+                Entry entry = batch.get(i);
+                System.err.println("Audit entry rejected and dropped (" + entry.action + " of employee "
+                    + entry.employeeId + "): " + e.getMessage());
+            } catch (RuntimeException e) {
+                requeue(batch, i);
+                throw e;
+            }
+        }
+    }
+
+    // Puts the entries from index from on back in the queue; they go behind newer entries, but
+    // changed_at still gives their real order
+    private static void requeue(List<Entry> batch, int from) {
+        for (Entry entry : batch.subList(from, batch.size())) {
+            if (!queue.offer(entry)) dropped.incrementAndGet();
+        }
+    }
+
+    private static String text(Object value) {
+        if (value == null) return null;
+        String text = value.toString();
+        return text.length() > MAX_VALUE_LENGTH ? text.substring(0, MAX_VALUE_LENGTH) : text;
+    }
+}
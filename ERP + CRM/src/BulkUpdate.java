@@ -0,0 +1,257 @@
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One change - a salary raise, a move to another department or position - applied to every
+ * employee matching a filter.
+ *
+ * The change is applied with set-based SQL, CHUNK_SIZE employees at a time in id order: each chunk
+ * is one UPDATE over an id range in its own transaction, so nothing is read or written row by row
+ * and no transaction holds more than a chunk's locks. In the same transaction the chunk's previous
+ * department, position and salary are copied into employee_bulk_change under the run's id, and the
+ * audit entries of the chunk are written from it; undo() puts them back chunk by chunk, leaving
+ * alone employees someone has edited since, and audits the values it restores the same way.
+ *
+ * Run apply() and undo() through DbExecutor with the BULK profile. Cancelling stops at the current
+ * chunk, which is rolled back; chunks before it stay applied and can be undone.
+ */
+public class BulkUpdate {
+
+    public static final int CHUNK_SIZE = 500;
+
+    private static final IdAllocator RUNS = new IdAllocator("bulk_change", "employee_bulk_change", "run_id", 1);
+
+    // The columns employee_bulk_change keeps, and undo() restores
+    private static final String[] JOURNAL_FIELDS = {"department", "position", "salary"};
+
+    // Salaries are stored as entered; the changes and totals work on their numeric value
+    private static final String SALARY_VALUE = "CAST(salary AS DECIMAL(15, 2))";
+
+    /** Told about progress on the updating thread after every chunk. */
+    public interface Listener {
+        void progress(int done, int total);
+    }
+
+    /** What to change. */
+    public static final class Change {
+        private final String assignment;
+        // The column assigned, for the audit trail
+        private final String field;
+        private final Object value;
+        // Extra condition on the employees the change can apply to, or null
+        private final String condition;
+        private final String description;
+
+        private Change(String assignment, String field, Object value, String condition, String description) {
+            this.assignment = assignment;
+            this.field = field;
+            this.value = value;
+            this.condition = condition;
+            this.description = description;
+        }
+
+        /** Salary multiplied by (1 + percent / 100), rounded to 2 decimals; negative percentages cut. */
+        public static Change raiseSalary(BigDecimal percent) {
+            if (percent.compareTo(BigDecimal.valueOf(-100)) <= 0) {
+                throw new IllegalArgumentException("A salary can't be cut by 100% or more");
+            }
+            BigDecimal factor = BigDecimal.ONE.add(percent.movePointLeft(2));
+            String sign = percent.signum() >= 0 ? "+" : "";
+            return new Change("salary = CONCAT(ROUND(" + SALARY_VALUE + " * ?, 2), '')", "salary", factor,
+                "salary <> ''", "Salary " + sign + percent.stripTrailingZeros().toPlainString() + "%");
+        }
+
+        public static Change moveToDepartment(String department) {
+            return new Change("department = ?", "department", department, null, "Move to " + department);
+        }
+
+        public static Change setPosition(String position) {
+            return new Change("position = ?", "position", position, null, "Position set to " + position);
+        }
+
+        boolean changesSalary() {
+            return condition != null;
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    /** What a change would do, computed before applying it. */
+    public static final class Preview {
+        private final int count;
+        private final BigDecimal salaryBefore;
+        private final BigDecimal salaryAfter;
+        private final Map<String, Integer> byDepartment;
+
+        Preview(int count, BigDecimal salaryBefore, BigDecimal salaryAfter, Map<String, Integer> byDepartment) {
+            this.count = count;
+            this.salaryBefore = salaryBefore;
+            this.salaryAfter = salaryAfter;
+            this.byDepartment = byDepartment;
+        }
+
+        // Employees the change applies to
+        public int getCount() { return count; }
+        // Their salaries in total, before and after the change
+        public BigDecimal getSalaryBefore() { return salaryBefore; }
+        public BigDecimal getSalaryAfter() { return salaryAfter; }
+        // Employees affected per current department
+        public Map<String, Integer> getByDepartment() { return byDepartment; }
+    }
+
+    private final EmployeeRepository.Filter filter;
+    private final Change change;
+
+    public BulkUpdate(EmployeeRepository.Filter filter, Change change) {
+        this.filter = filter;
+        this.change = change;
+    }
+
+    public Preview preview() throws SQLException {
+        QueryExecutor executor = conn.executor(JdbcProfile.BULK);
+        List<Object> params = new ArrayList<>();
+        String afterExpression = "SUM(" + SALARY_VALUE + ")";
+        if (change.changesSalary()) {
+            afterExpression = "SUM(ROUND(" + SALARY_VALUE + " * ?, 2))";
+            params.add(change.value);
+        }
+        String where = EmployeeRepository.where(filter, params, change.condition);
+        Object[] totals = executor.queryFirst("SELECT COUNT(*), SUM(" + SALARY_VALUE + "), " + afterExpression +
+            " FROM employee" + where, rs -> new Object[]{rs.getInt(1), rs.getBigDecimal(2), rs.getBigDecimal(3)},
+            params.toArray());
+
+        List<Object> groupParams = new ArrayList<>();
+        String groupWhere = EmployeeRepository.where(filter, groupParams, change.condition);
+        Map<String, Integer> byDepartment = new LinkedHashMap<>();
+        executor.query("SELECT department, COUNT(*) FROM employee" + groupWhere + " GROUP BY department ORDER BY department",
+            rs -> byDepartment.put(rs.getString(1) == null ? "(none)" : rs.getString(1), rs.getInt(2)),
+            groupParams.toArray());
+
+        BigDecimal before = totals[1] == null ? BigDecimal.ZERO : (BigDecimal) totals[1];
+        BigDecimal after = totals[2] == null ? BigDecimal.ZERO : (BigDecimal) totals[2];
+        return new Preview((Integer) totals[0], before, after, byDepartment);
+    }
+
+    /**
+     * Applies the change and returns the run's id, for undo(). Throws on failure or cancellation;
+     * the chunk in progress is rolled back, chunks already applied stay.
+     */
+    public long apply(Listener listener) throws SQLException {
+        QueryExecutor executor = conn.executor(JdbcProfile.BULK);
+        long runId = RUNS.reserve(1);
+        List<Object> countParams = new ArrayList<>();
+        Integer total = executor.queryFirst("SELECT COUNT(*) FROM employee" +
+            EmployeeRepository.where(filter, countParams, change.condition), rs -> rs.getInt(1), countParams.toArray());
+
+        int done = 0;
+        long lower = Long.MIN_VALUE;
+        try {
+            for (int chunk = 0; ; chunk++) {
+                // Upper end of the next CHUNK_SIZE matching ids; the chunk is the id range (lower, upper]
+                List<Object> params = new ArrayList<>();
+                String where = EmployeeRepository.where(filter, params, and(change.condition, "id > ?"));
+                params.add(lower);
+                params.add(CHUNK_SIZE);
+                Long upper = executor.queryFirst("SELECT MAX(id) FROM (SELECT id FROM employee" + where +
+                    " ORDER BY id LIMIT ?) chunk", rs -> {
+                        long id = rs.getLong(1);
+                        return rs.wasNull() ? null : id;
+                    }, params.toArray());
+                if (upper == null) break;
+
+                done += applyChunk(executor, runId, chunk, lower, upper);
+                lower = upper;
+                if (listener != null) listener.progress(done, Math.max(done, total == null ? 0 : total));
+            }
+        } finally {
+            if (done > 0) new EmployeeRepository().bulkChanged();
+        }
+        return runId;
+    }
+
+    private int applyChunk(QueryExecutor executor, long runId, int chunk, long lower, long upper) throws SQLException {
+        List<Object> rangeParams = new ArrayList<>();
+        String where = EmployeeRepository.where(filter, rangeParams, and(change.condition, "id > ? AND id <= ?"));
+        rangeParams.add(lower);
+        rangeParams.add(upper);
+
+        List<Object> journalParams = new ArrayList<>(Arrays.asList(runId, chunk));
+        journalParams.addAll(rangeParams);
+        List<Object> updateParams = new ArrayList<>();
+        updateParams.add(change.value);
+        updateParams.addAll(rangeParams);
+
+        return executor.inTransaction(transaction -> {
+            // The journal keeps the version the update gives each row, so undo can tell if it was edited since
+            transaction.update("INSERT INTO employee_bulk_change (run_id, chunk, id, department, position, salary, version) " +
+                "SELECT ?, ?, id, department, position, salary, version + 1 FROM employee" + where, journalParams.toArray());
+            int updated = transaction.update("UPDATE employee SET " + change.assignment + ", version = version + 1" + where,
+                updateParams.toArray());
+            AuditTrail.recordSelected(transaction, AuditTrail.UPDATE, change.field, "SELECT b.id AS employee_id, " +
+                "b." + change.field + " AS old_value, e." + change.field + " AS new_value " +
+                "FROM employee_bulk_change b JOIN employee e ON e.id = b.id WHERE b.run_id = ? AND b.chunk = ?", runId, chunk);
+            return updated;
+        });
+    }
+
+    /**
+     * Reverts a run, last chunk first, each chunk in its own transaction. Employees changed since the
+     * run (their version moved on) keep their current values. Returns the number restored.
+     */
+    public static int undo(long runId, Listener listener) throws SQLException {
+        QueryExecutor executor = conn.executor(JdbcProfile.BULK);
+        Integer total = executor.queryFirst("SELECT COUNT(*) FROM employee_bulk_change WHERE run_id = ?",
+            rs -> rs.getInt(1), runId);
+        Integer lastChunk = executor.queryFirst("SELECT MAX(chunk) FROM employee_bulk_change WHERE run_id = ?", rs -> {
+            int chunk = rs.getInt(1);
+            return rs.wasNull() ? null : chunk;
+        }, runId);
+        if (lastChunk == null) return 0;
+
+        String journal = "SELECT b.%s FROM employee_bulk_change b WHERE b.run_id = ? AND b.id = employee.id";
+        String restore = "UPDATE employee SET department = (" + String.format(journal, "department") + "), " +
+            "position = (" + String.format(journal, "position") + "), salary = (" + String.format(journal, "salary") + "), " +
+            "version = version + 1 " +
+            "WHERE id IN (SELECT b.id FROM employee_bulk_change b WHERE b.run_id = ? AND b.chunk = ?) " +
+            "AND version = (" + String.format(journal, "version") + ")";
+
+        int restored = 0;
+        int processed = 0;
+        try {
+            for (int chunk = lastChunk; chunk >= 0; chunk--) {
+                int current = chunk;
+                int[] counts = executor.inTransaction(transaction -> {
+                    // Audited before restoring, while both the current and the journalled values are there
+                    for (String field : JOURNAL_FIELDS) {
+                        AuditTrail.recordSelected(transaction, AuditTrail.UPDATE, field, "SELECT b.id AS employee_id, " +
+                            "e." + field + " AS old_value, b." + field + " AS new_value FROM employee_bulk_change b " +
+                            "JOIN employee e ON e.id = b.id WHERE b.run_id = ? AND b.chunk = ? AND e.version = b.version",
+                            runId, current);
+                    }
+                    return new int[]{
+                        transaction.update(restore, runId, runId, runId, runId, current, runId),
+                        transaction.update("DELETE FROM employee_bulk_change WHERE run_id = ? AND chunk = ?", runId, current)
+                    };
+                });
+                restored += counts[0];
+                processed += counts[1];
+                if (listener != null) listener.progress(processed, Math.max(processed, total == null ? 0 : total));
+            }
+        } finally {
+            if (restored > 0) new EmployeeRepository().bulkChanged();
+        }
+        return restored;
+    }
+
+    private static String and(String a, String b) {
+        return a == null ? b : a + " AND " + b;
+    }
+}
@@ -0,0 +1,402 @@
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.math.BigDecimal;
+import java.text.NumberFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+
+/**
+ * Bulk update screen: picks employees by department, position and education, previews what a
+ * change would do to them and applies it through BulkUpdate, with progress, stop and undo.
+ */
+public class BulkUpdateEmployees extends JFrame implements ActionListener {
+    // Constants for modern design
+    private static final int WINDOW_WIDTH = 640;
+    private static final int WINDOW_HEIGHT = 620;
+    private static final Color PRIMARY_COLOR = new Color(41, 128, 185);
+    private static final Color SECONDARY_COLOR = new Color(52, 73, 94);
+    private static final Color SUCCESS_COLOR = new Color(39, 174, 96);
+    private static final Color WARNING_COLOR = new Color(255, 193, 7);
+    private static final Color DANGER_COLOR = new Color(231, 76, 60);
+    private static final Color BACKGROUND_COLOR = new Color(236, 240, 241);
+
+    private static final String ANY = "Any";
+    private static final String[] DEPARTMENTS = {"IT", "HR", "Finance", "Marketing", "Operations", "Sales", "Other"};
+    private static final String[] EDUCATION = {"B.Tech", "BE", "BSC IT", "MBA", "MS", "PhD", "Diploma", "Other"};
+    private static final String RAISE_SALARY = "Change salary by %";
+    private static final String MOVE_DEPARTMENT = "Move to department";
+    private static final String SET_POSITION = "Set position";
+
+    // UI Components
+    private JComboBox<String> departmentFilter, positionFilter, educationFilter, changeCombo, valueCombo;
+    private JTextArea previewArea;
+    private JProgressBar progressBar;
+    private JLabel statusLabel;
+    private JButton previewButton, applyButton, undoButton, closeButton;
+
+    // Data
+    private final QueryScope queryScope = new QueryScope();
+    private List<String> positions = java.util.Collections.emptyList();
+    private CompletableFuture<?> running;
+    // Last run applied from this window, for Undo; 0 when there is none
+    private long lastRunId;
+    private String lastRunDescription;
+
+    public BulkUpdateEmployees(String department, String position) {
+        initializeUI();
+        loadPositions(position);
+        if (department != null) departmentFilter.setSelectedItem(department);
+    }
+
+    private void initializeUI() {
+        setTitle("Bulk Update Employees - EMS");
+        setSize(WINDOW_WIDTH, WINDOW_HEIGHT);
+        setLocationRelativeTo(null);
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+
+        JPanel mainPanel = new JPanel(new BorderLayout(0, 15));
+        mainPanel.setBackground(BACKGROUND_COLOR);
+        mainPanel.setBorder(new EmptyBorder(20, 25, 20, 25));
+
+        JLabel titleLabel = new JLabel("Bulk Update");
+        titleLabel.setFont(new Font("Segoe UI", Font.BOLD, 24));
+        titleLabel.setForeground(SECONDARY_COLOR);
+        mainPanel.add(titleLabel, BorderLayout.NORTH);
+
+        JPanel form = new JPanel(new GridBagLayout());
+        form.setOpaque(false);
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(5, 5, 5, 5);
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+
+        departmentFilter = new JComboBox<>(withAny(DEPARTMENTS));
+        positionFilter = new JComboBox<>(new String[]{ANY});
+        educationFilter = new JComboBox<>(withAny(EDUCATION));
+        changeCombo = new JComboBox<>(new String[]{RAISE_SALARY, MOVE_DEPARTMENT, SET_POSITION});
+        valueCombo = new JComboBox<>();
+        valueCombo.setEditable(true);
+        changeCombo.addActionListener(e -> changeTypeChanged());
+
+        addRow(form, gbc, 0, "Department:", departmentFilter);
+        addRow(form, gbc, 1, "Position:", positionFilter);
+        addRow(form, gbc, 2, "Education:", educationFilter);
+        addRow(form, gbc, 3, "Change:", changeCombo);
+        addRow(form, gbc, 4, "Value:", valueCombo);
+
+        previewArea = new JTextArea(10, 40);
+        previewArea.setEditable(false);
+        previewArea.setFont(new Font("Consolas", Font.PLAIN, 13));
+        previewArea.setText("Choose the employees and the change, then click Preview.");
+        gbc.gridx = 0;
+        gbc.gridy = 5;
+        gbc.gridwidth = 2;
+        gbc.weightx = 1;
+        gbc.weighty = 1;
+        gbc.fill = GridBagConstraints.BOTH;
+        form.add(new JScrollPane(previewArea), gbc);
+        mainPanel.add(form, BorderLayout.CENTER);
+
+        JPanel footer = new JPanel(new BorderLayout(0, 10));
+        footer.setOpaque(false);
+        progressBar = new JProgressBar();
+        progressBar.setStringPainted(true);
+        progressBar.setVisible(false);
+        statusLabel = new JLabel(" ");
+        statusLabel.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
+        buttons.setOpaque(false);
+        previewButton = createModernButton("Preview", PRIMARY_COLOR);
+        applyButton = createModernButton("Apply", SUCCESS_COLOR);
+        undoButton = createModernButton("Undo Last", DANGER_COLOR);
+        closeButton = createModernButton("Close", SECONDARY_COLOR);
+        undoButton.setEnabled(false);
+        for (JButton button : new JButton[]{previewButton, applyButton, undoButton, closeButton}) {
+            button.addActionListener(this);
+            buttons.add(button);
+        }
+
+        footer.add(progressBar, BorderLayout.NORTH);
+        footer.add(statusLabel, BorderLayout.CENTER);
+        footer.add(buttons, BorderLayout.SOUTH);
+        mainPanel.add(footer, BorderLayout.SOUTH);
+
+        add(mainPanel);
+        changeTypeChanged();
+        setVisible(true);
+    }
+
+    private static String[] withAny(String[] values) {
+        String[] items = new String[values.length + 1];
+        items[0] = ANY;
+        System.arraycopy(values, 0, items, 1, values.length);
+        return items;
+    }
+
+    private void addRow(JPanel form, GridBagConstraints gbc, int row, String label, JComponent field) {
+        JLabel jLabel = new JLabel(label);
+        jLabel.setFont(new Font("Segoe UI", Font.BOLD, 13));
+        jLabel.setForeground(SECONDARY_COLOR);
+        gbc.gridx = 0;
+        gbc.gridy = row;
+        gbc.weightx = 0;
+        form.add(jLabel, gbc);
+        gbc.gridx = 1;
+        gbc.weightx = 1;
+        form.add(field, gbc);
+    }
+
+    private JButton createModernButton(String text, Color bgColor) {
+        JButton button = new JButton(text) {
+            @Override
+            protected void paintComponent(Graphics g) {
+                Graphics2D g2d = (Graphics2D) g;
+                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+                if (!isEnabled()) {
+                    g2d.setColor(Color.LIGHT_GRAY);
+                } else if (getModel().isPressed()) {
+                    g2d.setColor(bgColor.darker());
+                } else if (getModel().isRollover()) {
+                    g2d.setColor(bgColor.brighter());
+                } else {
+                    g2d.setColor(bgColor);
+                }
+
+                g2d.fillRoundRect(0, 0, getWidth(), getHeight(), 8, 8);
+
+                g2d.setColor(Color.WHITE);
+                g2d.setFont(getFont());
+                FontMetrics fm = g2d.getFontMetrics();
+                int x = (getWidth() - fm.stringWidth(getText())) / 2;
+                int y = (getHeight() + fm.getAscent()) / 2 - 2;
+                g2d.drawString(getText(), x, y);
+            }
+        };
+
+        button.setFont(new Font("Segoe UI", Font.BOLD, 12));
+        button.setForeground(Color.WHITE);
+        button.setBorderPainted(false);
+        button.setContentAreaFilled(false);
+        button.setFocusPainted(false);
+        button.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        button.setPreferredSize(new Dimension(110, 38));
+
+        return button;
+    }
+
+    private void loadPositions(String selected) {
+        queryScope.submit(EmployeeDirectory::positions).whenComplete(queryScope.onEdt((loaded, error) -> {
+            if (error != null) {
+                error.printStackTrace();
+                return;
+            }
+            positions = loaded;
+            for (String position : loaded) {
+                positionFilter.addItem(position);
+            }
+            if (selected != null) positionFilter.setSelectedItem(selected);
+            if (SET_POSITION.equals(changeCombo.getSelectedItem())) changeTypeChanged();
+        }));
+    }
+
+    // The value list offers departments or known positions; a percentage is typed
+    private void changeTypeChanged() {
+        Object change = changeCombo.getSelectedItem();
+        valueCombo.removeAllItems();
+        if (MOVE_DEPARTMENT.equals(change)) {
+            for (String department : DEPARTMENTS) valueCombo.addItem(department);
+        } else if (SET_POSITION.equals(change)) {
+            for (String position : positions) valueCombo.addItem(position);
+        } else {
+            valueCombo.addItem("4");
+        }
+    }
+
+    private EmployeeRepository.Filter filter() {
+        return new EmployeeRepository.Filter(null, null, selected(departmentFilter), selected(positionFilter),
+            selected(educationFilter));
+    }
+
+    private static String selected(JComboBox<String> combo) {
+        Object value = combo.getSelectedItem();
+        return value == null || ANY.equals(value) ? null : value.toString();
+    }
+
+    // The change described by the form, or null (with a message) when the value doesn't fit it
+    private BulkUpdate.Change change() {
+        Object type = changeCombo.getSelectedItem();
+        Object selected = valueCombo.getEditor().getItem();
+        String value = selected == null ? "" : selected.toString().trim();
+        if (value.isEmpty()) {
+            showError("Please enter a value for the change.");
+            return null;
+        }
+        if (MOVE_DEPARTMENT.equals(type)) return BulkUpdate.Change.moveToDepartment(value);
+        if (SET_POSITION.equals(type)) return BulkUpdate.Change.setPosition(value);
+        try {
+            return BulkUpdate.Change.raiseSalary(new BigDecimal(value.replace("%", "").replace("+", "")));
+        } catch (NumberFormatException e) {
+            showError("The salary change must be a percentage, like 4 or -2.5.");
+        } catch (IllegalArgumentException e) {
+            showError(e.getMessage());
+        }
+        return null;
+    }
+
+    private void showError(String message) {
+        JOptionPane.showMessageDialog(this, message, "Bulk Update", JOptionPane.ERROR_MESSAGE);
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        if (e.getSource() == previewButton) {
+            preview();
+        } else if (e.getSource() == applyButton) {
+            if (running != null) {
+                // The chunk in progress is rolled back; earlier chunks stay and can be undone
+                running.cancel(true);
+                finished("Stopped. Chunks applied before stopping can be undone.", WARNING_COLOR);
+            } else {
+                apply();
+            }
+        } else if (e.getSource() == undoButton) {
+            undo();
+        } else if (e.getSource() == closeButton) {
+            dispose();
+        }
+    }
+
+    private void preview() {
+        BulkUpdate.Change change = change();
+        if (change == null) return;
+        BulkUpdate update = new BulkUpdate(filter(), change);
+        statusLabel.setText("Calculating preview...");
+        queryScope.submit(JdbcProfile.BULK, update::preview).whenComplete(queryScope.onEdt((preview, error) -> {
+            if (error != null) {
+                error.printStackTrace();
+                statusLabel.setText("Preview failed: " + DbExecutor.describe(error));
+                statusLabel.setForeground(DANGER_COLOR);
+                return;
+            }
+            previewArea.setText(describe(change, preview));
+            previewArea.setCaretPosition(0);
+            statusLabel.setText(preview.getCount() + " employees match.");
+            statusLabel.setForeground(SECONDARY_COLOR);
+        }));
+    }
+
+    private static String describe(BulkUpdate.Change change, BulkUpdate.Preview preview) {
+        NumberFormat money = NumberFormat.getNumberInstance();
+        money.setMaximumFractionDigits(2);
+        StringBuilder text = new StringBuilder();
+        text.append("Change:            ").append(change).append("\n");
+        text.append("Employees:         ").append(preview.getCount()).append("\n");
+        text.append("Salaries now:      ₹").append(money.format(preview.getSalaryBefore())).append("\n");
+        text.append("Salaries after:    ₹").append(money.format(preview.getSalaryAfter())).append("\n");
+        text.append("Difference:        ₹").append(money.format(preview.getSalaryAfter().subtract(preview.getSalaryBefore()))).append("\n");
+        text.append("\nBy current department:\n");
+        for (Map.Entry<String, Integer> entry : preview.getByDepartment().entrySet()) {
+            text.append(String.format("  %-16s %d%n", entry.getKey(), entry.getValue()));
+        }
+        return text.toString();
+    }
+
+    private void apply() {
+        BulkUpdate.Change change = change();
+        if (change == null) return;
+        EmployeeRepository.Filter filter = filter();
+        String scope = filter.isEmpty() ? "ALL employees" : "every employee matching the filters";
+        int option = JOptionPane.showConfirmDialog(this,
+            "Apply \"" + change + "\" to " + scope + "?\n\nChanges are applied " + BulkUpdate.CHUNK_SIZE +
+            " employees at a time and can be undone from this window.",
+            "Confirm Bulk Update", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+        if (option != JOptionPane.YES_OPTION) return;
+
+        started("Applying " + change + "...");
+        BulkUpdate update = new BulkUpdate(filter, change);
+        CompletableFuture<Long> run = DbExecutor.submit(JdbcProfile.BULK, () -> update.apply(this::showProgress));
+        running = run;
+        run.whenComplete(queryScope.onEdt((runId, error) -> {
+            if (running != run) return;
+            if (error != null) {
+                error.printStackTrace();
+                finished("Stopped by an error; chunks applied before it can be undone. " + DbExecutor.describe(error),
+                    DANGER_COLOR);
+                return;
+            }
+            lastRunId = runId;
+            lastRunDescription = change.toString();
+            finished("Applied " + change + " to " + progressBar.getValue() + " employees.", SUCCESS_COLOR);
+        }));
+    }
+
+    private void undo() {
+        long runId = lastRunId;
+        int option = JOptionPane.showConfirmDialog(this,
+            "Undo \"" + lastRunDescription + "\"?\n\nEmployees edited since keep their current values.",
+            "Confirm Undo", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+        if (option != JOptionPane.YES_OPTION) return;
+
+        started("Undoing " + lastRunDescription + "...");
+        CompletableFuture<Integer> run = DbExecutor.submit(JdbcProfile.BULK, () -> BulkUpdate.undo(runId, this::showProgress));
+        running = run;
+        run.whenComplete(queryScope.onEdt((restored, error) -> {
+            if (running != run) return;
+            if (error != null) {
+                error.printStackTrace();
+                finished("Undo stopped by an error. " + DbExecutor.describe(error), DANGER_COLOR);
+                return;
+            }
+            lastRunId = 0;
+            finished("Restored " + restored + " employees.", SUCCESS_COLOR);
+        }));
+    }
+
+    // Called on the updating thread after every chunk
+    private void showProgress(int done, int total) {
+        SwingUtilities.invokeLater(() -> {
+            progressBar.setMaximum(Math.max(1, total));
+            progressBar.setValue(done);
+            progressBar.setString(done + " / " + total);
+        });
+    }
+
+    private void started(String status) {
+        progressBar.setValue(0);
+        progressBar.setString("");
+        progressBar.setVisible(true);
+        statusLabel.setText(status);
+        statusLabel.setForeground(SECONDARY_COLOR);
+        applyButton.setText("Stop");
+        previewButton.setEnabled(false);
+        undoButton.setEnabled(false);
+    }
+
+    private void finished(String status, Color color) {
+        running = null;
+        progressBar.setVisible(false);
+        statusLabel.setText(status);
+        statusLabel.setForeground(color);
+        applyButton.setText("Apply");
+        previewButton.setEnabled(true);
+        undoButton.setEnabled(lastRunId != 0);
+    }
+
+    @Override
+    public void dispose() {
+        if (running != null) {
+            int option = JOptionPane.showConfirmDialog(this,
+                "An update is still running. Stop it and close?",
+                "Update Running", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+            if (option != JOptionPane.YES_OPTION) return;
+            running.cancel(true);
+        }
+        queryScope.close();
+        super.dispose();
+    }
+}
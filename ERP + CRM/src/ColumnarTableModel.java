@@ -0,0 +1,397 @@
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Read-only table model that stores each column in its own compact array instead of one boxed
+ * Object per cell:
+ * <ul>
+ * <li>int columns (ids, ages) and decimal columns (salaries) are primitive arrays;</li>
+ * <li>dictionary columns (department, gender, ...) keep each distinct string once plus a code per
+ * row, and fall back to text storage if the column turns out not to repeat;</li>
+ * <li>text columns (names, addresses) are UTF-8 bytes in one shared buffer.</li>
+ * </ul>
+ * Values read back exactly as they were added: a number that arrived as a String is returned as
+ * the same String, and values a column can't encode losslessly are kept as they are.
+ */
+public class ColumnarTableModel extends AbstractTableModel {
+
+    private final String[] names;
+    private final Column[] columns;
+    private final int rowCount;
+
+    private ColumnarTableModel(String[] names, Column[] columns, int rowCount) {
+        this.names = names;
+        this.columns = columns;
+        this.rowCount = rowCount;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return names[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return columns[column].get(row);
+    }
+
+    /** Approximate bytes held by the column arrays, for comparing against a boxed model. */
+    public long estimateBytes() {
+        long total = 0;
+        for (Column column : columns) {
+            total += column.estimateBytes();
+        }
+        return total;
+    }
+
+    /** Declares the columns in order, then takes rows from add() or read(). */
+    public static final class Builder {
+        private final List<String> names = new ArrayList<>();
+        private final List<Column> columns = new ArrayList<>();
+        private int rowCount;
+
+        public Builder intColumn(String name) {
+            return column(name, new IntColumn());
+        }
+
+        public Builder decimalColumn(String name) {
+            return column(name, new DecimalColumn());
+        }
+
+        public Builder dictionaryColumn(String name) {
+            return column(name, new StringColumn(true));
+        }
+
+        public Builder textColumn(String name) {
+            return column(name, new StringColumn(false));
+        }
+
+        public Builder add(Object... values) {
+            for (int i = 0; i < columns.size(); i++) {
+                columns.get(i).add(i < values.length ? values[i] : null);
+            }
+            rowCount++;
+            return this;
+        }
+
+        // Reads every remaining row; result set columns are matched to the declared ones by position
+        public Builder read(ResultSet rs) throws SQLException {
+            while (rs.next()) {
+                for (int i = 0; i < columns.size(); i++) {
+                    columns.get(i).add(rs.getObject(i + 1));
+                }
+                rowCount++;
+            }
+            return this;
+        }
+
+        public ColumnarTableModel build() {
+            Column[] built = columns.toArray(new Column[0]);
+            for (Column column : built) {
+                column.trim();
+            }
+            return new ColumnarTableModel(names.toArray(new String[0]), built, rowCount);
+        }
+
+        private Builder column(String name, Column column) {
+            if (rowCount > 0) throw new IllegalStateException("Columns must be declared before rows are added");
+            names.add(name);
+            columns.add(column);
+            return this;
+        }
+    }
+
+    private abstract static class Column {
+        int size;
+        final BitSet nulls = new BitSet();
+        // Values the column can't encode, by row; rare, so a map is fine
+        Map<Integer, Object> exceptions;
+
+        abstract void add(Object value);
+        abstract Object get(int row);
+        abstract void trim();
+        abstract long estimateBytes();
+
+        void addException(int row, Object value) {
+            if (exceptions == null) exceptions = new HashMap<>();
+            exceptions.put(row, value);
+        }
+
+        Object exception(int row) {
+            return exceptions == null ? null : exceptions.get(row);
+        }
+
+        long exceptionBytes() {
+            return exceptions == null ? 0 : exceptions.size() * 64L;
+        }
+
+        static int grow(int length) {
+            return Math.max(16, length + (length >> 1));
+        }
+    }
+
+    private static final class IntColumn extends Column {
+        int[] values = new int[16];
+        // Rows whose value arrived as a String and is handed back as one
+        final BitSet textual = new BitSet();
+
+        @Override
+        void add(Object value) {
+            if (size == values.length) values = Arrays.copyOf(values, grow(size));
+            int row = size++;
+            if (value == null) {
+                nulls.set(row);
+            } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                values[row] = ((Number) value).intValue();
+            } else if (value instanceof Long && (Long) value == ((Long) value).intValue()) {
+                values[row] = ((Long) value).intValue();
+            } else if (value instanceof String && parses((String) value)) {
+                textual.set(row);
+                values[row] = Integer.parseInt((String) value);
+            } else {
+                addException(row, value);
+            }
+        }
+
+        // Only strings that print back identically, so "007" or "+7" stay exceptions
+        private static boolean parses(String text) {
+            try {
+                return Integer.toString(Integer.parseInt(text)).equals(text);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            if (nulls.get(row)) return null;
+            Object exception = exception(row);
+            if (exception != null) return exception;
+            return textual.get(row) ? Integer.toString(values[row]) : (Object) values[row];
+        }
+
+        @Override
+        void trim() {
+            values = Arrays.copyOf(values, size);
+        }
+
+        @Override
+        long estimateBytes() {
+            return 4L * values.length + size / 4 + exceptionBytes();
+        }
+    }
+
+    // Unscaled long plus a scale per row, so "45000" and "45000.50" both come back exactly
+    private static final class DecimalColumn extends Column {
+        long[] unscaled = new long[16];
+        byte[] scales = new byte[16];
+        final BitSet textual = new BitSet();
+
+        @Override
+        void add(Object value) {
+            if (size == unscaled.length) {
+                unscaled = Arrays.copyOf(unscaled, grow(size));
+                scales = Arrays.copyOf(scales, unscaled.length);
+            }
+            int row = size++;
+            if (value == null) {
+                nulls.set(row);
+                return;
+            }
+            BigDecimal decimal = null;
+            if (value instanceof BigDecimal) {
+                decimal = (BigDecimal) value;
+            } else if (value instanceof Integer || value instanceof Long) {
+                decimal = BigDecimal.valueOf(((Number) value).longValue());
+            } else if (value instanceof String) {
+                decimal = parse((String) value);
+                if (decimal != null) textual.set(row);
+            }
+            if (decimal == null || decimal.scale() < 0 || decimal.scale() > Byte.MAX_VALUE || decimal.precision() > 18) {
+                addException(row, value);
+                return;
+            }
+            unscaled[row] = decimal.unscaledValue().longValue();
+            scales[row] = (byte) decimal.scale();
+        }
+
+        private static BigDecimal parse(String text) {
+            try {
+                BigDecimal decimal = new BigDecimal(text);
+                return decimal.toPlainString().equals(text) ? decimal : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            if (nulls.get(row)) return null;
+            Object exception = exception(row);
+            if (exception != null) return exception;
+            BigDecimal decimal = BigDecimal.valueOf(unscaled[row], scales[row]);
+            return textual.get(row) ? decimal.toPlainString() : decimal;
+        }
+
+        @Override
+        void trim() {
+            unscaled = Arrays.copyOf(unscaled, size);
+            scales = Arrays.copyOf(scales, size);
+        }
+
+        @Override
+        long estimateBytes() {
+            return 9L * unscaled.length + size / 4 + exceptionBytes();
+        }
+    }
+
+    /**
+     * Dictionary-encoded while the column repeats, UTF-8 text otherwise. A dictionary column
+     * switches to text once it has more than DICTIONARY_LIMIT distinct values.
+     */
+    private static final class StringColumn extends Column {
+        private static final int DICTIONARY_LIMIT = 4096;
+
+        // Dictionary mode
+        Map<String, Integer> codes;
+        List<String> dictionary;
+        int[] rowCodes;
+
+        // Text mode: row i is bytes[offsets[i] .. offsets[i + 1])
+        byte[] bytes;
+        int[] offsets;
+        int used;
+
+        StringColumn(boolean dictionaryEncoded) {
+            if (dictionaryEncoded) {
+                codes = new HashMap<>();
+                dictionary = new ArrayList<>();
+                rowCodes = new int[16];
+            } else {
+                startText(16);
+            }
+        }
+
+        @Override
+        void add(Object value) {
+            int row = size;
+            String text = value == null ? null : value.toString();
+            if (value != null && !(value instanceof String)) {
+                // Keep the original type (e.g. a Date) rather than flattening it to text
+                addException(row, value);
+                text = null;
+            }
+            if (value == null) nulls.set(row);
+
+            if (dictionary != null) {
+                Integer code = text == null ? Integer.valueOf(-1) : codes.get(text);
+                if (code == null) {
+                    if (dictionary.size() < DICTIONARY_LIMIT) {
+                        code = dictionary.size();
+                        dictionary.add(text);
+                        codes.put(text, code);
+                    } else {
+                        toText();
+                    }
+                }
+                if (dictionary != null) {
+                    if (size == rowCodes.length) rowCodes = Arrays.copyOf(rowCodes, grow(size));
+                    rowCodes[row] = code;
+                    size++;
+                    return;
+                }
+            }
+            appendText(text);
+            size++;
+        }
+
+        @Override
+        Object get(int row) {
+            if (nulls.get(row)) return null;
+            Object exception = exception(row);
+            if (exception != null) return exception;
+            if (dictionary != null) {
+                int code = rowCodes[row];
+                return code < 0 ? null : dictionary.get(code);
+            }
+            return new String(bytes, offsets[row], offsets[row + 1] - offsets[row], StandardCharsets.UTF_8);
+        }
+
+        private void startText(int capacity) {
+            bytes = new byte[capacity * 8];
+            offsets = new int[capacity + 1];
+            used = 0;
+        }
+
+        // Re-encodes the rows so far as text; the dictionary is dropped
+        private void toText() {
+            List<String> values = dictionary;
+            int[] existing = rowCodes;
+            codes = null;
+            dictionary = null;
+            rowCodes = null;
+            startText(Math.max(16, size));
+            int rows = size;
+            size = 0;
+            for (int row = 0; row < rows; row++) {
+                appendText(existing[row] < 0 ? null : values.get(existing[row]));
+                size++;
+            }
+        }
+
+        private void appendText(String text) {
+            byte[] encoded = text == null ? new byte[0] : text.getBytes(StandardCharsets.UTF_8);
+            if (used + encoded.length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(grow(bytes.length), used + encoded.length));
+            }
+            if (size + 2 > offsets.length) offsets = Arrays.copyOf(offsets, grow(offsets.length));
+            System.arraycopy(encoded, 0, bytes, used, encoded.length);
+            offsets[size] = used;
+            used += encoded.length;
+            offsets[size + 1] = used;
+        }
+
+        @Override
+        void trim() {
+            if (dictionary != null) {
+                rowCodes = Arrays.copyOf(rowCodes, size);
+            } else {
+                bytes = Arrays.copyOf(bytes, used);
+                offsets = Arrays.copyOf(offsets, size + 1);
+            }
+        }
+
+        @Override
+        long estimateBytes() {
+            long total = size / 8 + exceptionBytes();
+            if (dictionary != null) {
+                total += 4L * rowCodes.length;
+                for (String value : dictionary) {
+                    // String header + array, plus the map entry pointing at it
+                    total += value == null ? 0 : 56 + value.length() + 48;
+                }
+                return total;
+            }
+            return total + bytes.length + 4L * offsets.length;
+        }
+    }
+}
@@ -0,0 +1,515 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide, bounded JDBC connection pool.
+ *
+ * Callers get a lightweight handle from {@link #getConnection()}; closing the handle returns
+ * the physical connection to the pool instead of tearing down the TCP/auth session. A daemon
+ * housekeeper evicts idle connections above the minimum, keeps the minimum warm and reports
+ * (and eventually reclaims) connections that are held for too long.
+ *
+ * Each physical connection also keeps a small LRU cache of prepared statements keyed by SQL
+ * text, so hot queries are prepared once per connection rather than once per call.
+ */
+public class ConnectionPool {
+
+    // Pool sizing and timeouts
+    public static class Options {
+        int minIdle = 2;
+        int maxSize = 10;
+        long connectionTimeoutMillis = 10_000;      // max wait for a free connection
+        long idleTimeoutMillis = 5 * 60_000;        // idle connections above minIdle are closed after this
+        long validationIntervalMillis = 1_000;      // validate on borrow if idle for longer than this
+        int validationTimeoutSeconds = 2;
+        long leakDetectionMillis = 5 * 60_000;      // warn when a connection is held longer than this
+        long abandonTimeoutMillis = 30 * 60_000;    // forcibly reclaim after this (0 = never)
+        long housekeepingMillis = 30_000;
+        int statementCacheSize = 64;                // prepared statements kept per connection (0 = off)
+    }
+
+    // Snapshot of pool counters
+    public static final class Stats {
+        private final int total, active, idle, waiting, maxSize;
+        private final long created, destroyed, borrows, timeouts, validationFailures, leaks, abandoned;
+        private final long statementHits, statementMisses;
+
+        Stats(int total, int active, int idle, int waiting, int maxSize, long created, long destroyed,
+              long borrows, long timeouts, long validationFailures, long leaks, long abandoned,
+              long statementHits, long statementMisses) {
+            this.total = total; this.active = active; this.idle = idle; this.waiting = waiting;
+            this.maxSize = maxSize; this.created = created; this.destroyed = destroyed;
+            this.borrows = borrows; this.timeouts = timeouts; this.validationFailures = validationFailures;
+            this.leaks = leaks; this.abandoned = abandoned;
+            this.statementHits = statementHits; this.statementMisses = statementMisses;
+        }
+
+        public int getTotal() { return total; }
+        public int getActive() { return active; }
+        public int getIdle() { return idle; }
+        public int getWaiting() { return waiting; }
+        public int getMaxSize() { return maxSize; }
+        public long getCreated() { return created; }
+        public long getDestroyed() { return destroyed; }
+        public long getBorrows() { return borrows; }
+        public long getTimeouts() { return timeouts; }
+        public long getValidationFailures() { return validationFailures; }
+        public long getLeaks() { return leaks; }
+        public long getAbandoned() { return abandoned; }
+        public long getStatementHits() { return statementHits; }
+        public long getStatementMisses() { return statementMisses; }
+
+        public double getStatementHitRatio() {
+            long lookups = statementHits + statementMisses;
+            return lookups == 0 ? 0.0 : (double) statementHits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("total=%d/%d, active=%d, idle=%d, waiting=%d, created=%d, destroyed=%d, " +
+                "borrows=%d, timeouts=%d, validationFailures=%d, leaks=%d, abandoned=%d, statementHitRatio=%.2f",
+                total, maxSize, active, idle, waiting, created, destroyed, borrows, timeouts,
+                validationFailures, leaks, abandoned, getStatementHitRatio());
+        }
+    }
+
+    // A physical connection plus its bookkeeping
+    private static final class PooledConnection {
+        final Connection physical;
+        final long createdAt = System.currentTimeMillis();
+        volatile long lastUsedAt = createdAt;
+        volatile long borrowedAt;
+        volatile Throwable borrowSite;
+        volatile boolean leakReported;
+        volatile boolean broken;
+        volatile Lease lease;
+        final Map<String, CachedStatement> statements;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            // Access-ordered, so iteration starts at the least recently used statement
+            this.statements = new LinkedHashMap<>(16, 0.75f, true);
+        }
+    }
+
+    // A prepared statement owned by one physical connection
+    private static final class CachedStatement {
+        final String sql;
+        final PreparedStatement physical;
+        boolean inUse;
+
+        CachedStatement(String sql, PreparedStatement physical) {
+            this.sql = sql;
+            this.physical = physical;
+        }
+    }
+
+    private final String url;
+    private final Properties connectionProperties;
+    private final Options options;
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> inUse = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean shutdown;
+
+    // Counters
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong destroyed = new AtomicLong();
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong leaks = new AtomicLong();
+    private final AtomicLong abandoned = new AtomicLong();
+    private final AtomicLong statementHits = new AtomicLong();
+    private final AtomicLong statementMisses = new AtomicLong();
+
+    public ConnectionPool(String url, Properties connectionProperties, Options options) {
+        this.url = url;
+        this.connectionProperties = connectionProperties;
+        this.options = options;
+        this.permits = new Semaphore(options.maxSize, true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, options.housekeepingMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, waiting up to the configured timeout when the pool is exhausted.
+     * The returned handle must be closed to give the connection back.
+     */
+    public Connection getConnection() throws SQLException {
+        if (shutdown) {
+            throw new SQLException("Connection pool has been shut down");
+        }
+
+        boolean acquired;
+        waiting.incrementAndGet();
+        try {
+            acquired = permits.tryAcquire(options.connectionTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+
+        if (!acquired) {
+            timeouts.incrementAndGet();
+            throw new SQLTransientConnectionException("Timed out after " + options.connectionTimeoutMillis +
+                " ms waiting for a database connection (" + getStats() + ")");
+        }
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                if (isUsable(pooled)) break;
+                destroy(pooled);
+            }
+            if (pooled == null) {
+                pooled = create();
+            }
+            return lease(pooled);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public Stats getStats() {
+        int active = inUse.size();
+        int idleCount = idle.size();
+        return new Stats(totalConnections.get(), active, idleCount, waiting.get(), options.maxSize,
+            created.get(), destroyed.get(), borrows.get(), timeouts.get(), validationFailures.get(),
+            leaks.get(), abandoned.get(), statementHits.get(), statementMisses.get());
+    }
+
+    /**
+     * Closes idle connections and stops housekeeping. Connections still in use are closed
+     * when their borrowers hand them back.
+     */
+    public void shutdown() {
+        shutdown = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    private PooledConnection create() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, connectionProperties);
+        totalConnections.incrementAndGet();
+        created.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    private void destroy(PooledConnection pooled) {
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing pooled connection: " + e.getMessage());
+        }
+        totalConnections.decrementAndGet();
+        destroyed.incrementAndGet();
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        try {
+            if (pooled.physical.isClosed()) return false;
+            if (System.currentTimeMillis() - pooled.lastUsedAt < options.validationIntervalMillis) return true;
+            if (pooled.physical.isValid(options.validationTimeoutSeconds)) return true;
+        } catch (SQLException e) {
+            // Fall through - treat as invalid
+        }
+        validationFailures.incrementAndGet();
+        return false;
+    }
+
+    private Connection lease(PooledConnection pooled) {
+        Lease lease = new Lease(pooled);
+        pooled.lease = lease;
+        pooled.borrowedAt = System.currentTimeMillis();
+        pooled.leakReported = false;
+        pooled.borrowSite = options.leakDetectionMillis > 0
+            ? new Throwable("Connection borrowed by " + Thread.currentThread().getName()) : null;
+        inUse.add(pooled);
+        borrows.incrementAndGet();
+        return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+            new Class<?>[]{Connection.class}, lease);
+    }
+
+    private void release(Lease lease) {
+        if (!lease.released.compareAndSet(false, true)) return;
+
+        PooledConnection pooled = lease.pooled;
+        inUse.remove(pooled);
+        pooled.lease = null;
+        pooled.borrowSite = null;
+
+        boolean reusable = !shutdown && !pooled.broken;
+        if (reusable) {
+            dropUnclosedStatements(pooled);
+            try {
+                if (pooled.physical.isClosed()) {
+                    reusable = false;
+                } else if (!pooled.physical.getAutoCommit()) {
+                    // Never hand an open transaction to the next borrower
+                    pooled.physical.rollback();
+                    pooled.physical.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                reusable = false;
+            }
+        }
+
+        if (reusable) {
+            pooled.lastUsedAt = System.currentTimeMillis();
+            idle.offerFirst(pooled);
+        } else {
+            destroy(pooled);
+        }
+        permits.release();
+    }
+
+    private void housekeep() {
+        try {
+            long now = System.currentTimeMillis();
+
+            // Evict the longest-idle connections above the minimum
+            while (idle.size() > options.minIdle) {
+                PooledConnection oldest = idle.peekLast();
+                if (oldest == null || now - oldest.lastUsedAt < options.idleTimeoutMillis) break;
+                if (idle.removeLastOccurrence(oldest)) destroy(oldest);
+            }
+
+            // Report and reclaim connections held for too long
+            for (PooledConnection pooled : inUse) {
+                long held = now - pooled.borrowedAt;
+                Lease lease = pooled.lease;
+                if (lease == null) continue;
+
+                if (options.abandonTimeoutMillis > 0 && held > options.abandonTimeoutMillis) {
+                    if (lease.released.compareAndSet(false, true)) {
+                        inUse.remove(pooled);
+                        abandoned.incrementAndGet();
+                        System.err.println("Reclaiming database connection held for " + held / 1000 + " s");
+                        destroy(pooled);
+                        permits.release();
+                    }
+                } else if (options.leakDetectionMillis > 0 && held > options.leakDetectionMillis && !pooled.leakReported) {
+                    pooled.leakReported = true;
+                    leaks.incrementAndGet();
+                    System.err.println("Possible connection leak: held for " + held / 1000 + " s");
+                    Throwable site = pooled.borrowSite;
+                    if (site != null) site.printStackTrace();
+                }
+            }
+
+            // Keep the minimum number of connections warm
+            while (!shutdown && idle.size() < options.minIdle && totalConnections.get() < options.maxSize) {
+                idle.offerLast(create());
+            }
+        } catch (SQLException e) {
+            System.err.println("Connection pool housekeeping failed: " + e.getMessage());
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Returns a cached prepared statement for the SQL, preparing it on a miss. The handle's close()
+     * keeps the statement open for the next borrower of this connection. Only the owning borrower
+     * touches the cache, so no locking is needed.
+     */
+    private PreparedStatement prepareCached(PooledConnection pooled, Connection handle, String sql) throws SQLException {
+        CachedStatement cached = pooled.statements.get(sql);
+        if (cached != null && cached.inUse) {
+            // Same SQL already open on this connection (nested use) - hand out a plain statement
+            statementMisses.incrementAndGet();
+            return pooled.physical.prepareStatement(sql);
+        }
+
+        if (cached != null) {
+            statementHits.incrementAndGet();
+        } else {
+            statementMisses.incrementAndGet();
+            cached = new CachedStatement(sql, pooled.physical.prepareStatement(sql));
+            pooled.statements.put(sql, cached);
+            evictStatements(pooled);
+        }
+
+        cached.inUse = true;
+        return (PreparedStatement) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+            new Class<?>[]{PreparedStatement.class}, new StatementHandle(cached, handle));
+    }
+
+    private void evictStatements(PooledConnection pooled) {
+        Iterator<CachedStatement> it = pooled.statements.values().iterator();
+        while (pooled.statements.size() > options.statementCacheSize && it.hasNext()) {
+            CachedStatement eldest = it.next();
+            if (eldest.inUse) continue;
+            it.remove();
+            try {
+                eldest.physical.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing cached statement: " + e.getMessage());
+            }
+        }
+    }
+
+    // Statements the borrower never closed can't be safely handed to the next one
+    private void dropUnclosedStatements(PooledConnection pooled) {
+        Iterator<CachedStatement> it = pooled.statements.values().iterator();
+        while (it.hasNext()) {
+            CachedStatement cached = it.next();
+            if (!cached.inUse) continue;
+            it.remove();
+            try {
+                cached.physical.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing cached statement: " + e.getMessage());
+            }
+        }
+    }
+
+    // Borrower's view of a cached statement; close() only resets it
+    private static final class StatementHandle implements InvocationHandler {
+        final CachedStatement cached;
+        final Connection connection;
+        boolean closed;
+
+        StatementHandle(CachedStatement cached, Connection connection) {
+            this.cached = cached;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        try {
+                            cached.physical.clearParameters();
+                            cached.physical.clearBatch();
+                        } finally {
+                            cached.inUse = false;
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || cached.physical.isClosed();
+                case "getConnection":
+                    return connection;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + cached.sql + "]";
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Statement has already been closed");
+            }
+
+            try {
+                return method.invoke(cached.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    // Handle given to borrowers; close() returns the connection to the pool
+    private final class Lease implements InvocationHandler {
+        final PooledConnection pooled;
+        final AtomicBoolean released = new AtomicBoolean();
+
+        Lease(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    release(this);
+                    return null;
+                case "isClosed":
+                    return released.get() || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + "]";
+                default:
+                    break;
+            }
+
+            if (released.get()) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+
+            Object result;
+            if ("prepareStatement".equals(method.getName()) && args.length == 1 && options.statementCacheSize > 0) {
+                result = prepareCached(pooled, (Connection) proxy, (String) args[0]);
+            } else {
+                result = invokePhysical(method, args);
+            }
+
+            // Every statement handed out is timed per normalized SQL
+            if (result instanceof Statement) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                return StatementMetrics.instrument((Statement) result, sql);
+            }
+            return result;
+        }
+
+        private Object invokePhysical(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException) {
+                    String state = ((SQLException) cause).getSQLState();
+                    if (state != null && state.startsWith("08")) {
+                        pooled.broken = true; // connection-level failure, don't reuse
+                    }
+                }
+                throw cause;
+            }
+        }
+    }
+}
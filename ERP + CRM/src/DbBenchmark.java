@@ -0,0 +1,275 @@
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Vector;
+import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableModel;
+
+/**
+ * Repeatable latency/throughput benchmark of the application's hot queries against the embedded
+ * backend. Seeds a deterministic dataset, then times the same repository calls the screens make.
+ *
+ * Usage: java -cp bin:h2.jar DbBenchmark [employees] [tasks] [iterations]
+ * (defaults: 1000000 employees, 500000 tasks, 200 iterations). Runs on H2 unless -DdbBackend is
+ * given explicitly, and refuses to seed a non-embedded database.
+ */
+public class DbBenchmark {
+
+    private static final String[] DEPARTMENTS = {"IT", "HR", "Finance", "Marketing", "Operations", "Sales", "Other"};
+    private static final String[] EDUCATION = {"B.Tech", "BE", "BSC IT", "MBA", "MS", "PhD", "Diploma", "Other"};
+    private static final String[] GENDERS = {"Male", "Female", "Other"};
+    private static final String[] STATUSES = {"Pending", "In Progress", "Completed", "Cancelled"};
+    private static final String[] PRIORITIES = {"Low", "Medium", "High"};
+    private static final int FIRST_ID = 100000;
+    private static final int BATCH_SIZE = 5000;
+
+    // Full-table loads are only timed up to this size; beyond it they measure the heap, not the query
+    private static final int FULL_LOAD_LIMIT = 200_000;
+
+    // Rows compared between the boxed and the columnar table model
+    private static final int[] TABLE_MODEL_ROWS = {100_000, 1_000_000};
+    // Cells read to stand in for the first screenful a JTable paints
+    private static final int FIRST_PAINT_ROWS = 30;
+
+    // A timed operation
+    interface Operation {
+        void run(Random random) throws SQLException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int employees = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int tasks = args.length > 1 ? Integer.parseInt(args[1]) : employees / 2;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        if (System.getProperty("dbBackend") == null) {
+            System.setProperty("dbBackend", "h2");
+        }
+        if (!conn.config().getBackend().isEmbedded()) {
+            System.err.println("DbBenchmark seeds millions of rows and only runs against an embedded backend.");
+            System.exit(1);
+        }
+
+        SchemaMigrator.migrate();
+        seed(employees, tasks);
+
+        EmployeeRepository employeeRepository = new EmployeeRepository();
+        EmployeeRepository reportingEmployees = new EmployeeRepository(JdbcProfile.REPORTING);
+        TaskRepository taskRepository = new TaskRepository();
+        TaskRepository reportingTasks = new TaskRepository(JdbcProfile.REPORTING);
+
+        System.out.printf("%n%-40s %8s %10s %9s %9s %9s %9s%n", "Operation", "Runs", "ops/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+
+        run("Employee by id", iterations * 10, random ->
+            employeeRepository.findById(String.valueOf(FIRST_ID + random.nextInt(employees))));
+        run("Employee page, first (keyset)", iterations, random ->
+            employeeRepository.findPage(null, 100));
+        run("Employee page, random depth (keyset)", iterations, random ->
+            employeeRepository.findPage(String.valueOf(FIRST_ID + random.nextInt(employees)), 100));
+        run("Employee name list (pickers)", Math.max(1, iterations / 20), random ->
+            employeeRepository.findAllRefs());
+        run("Open hours, one employee", iterations * 10, random ->
+            taskRepository.findOpenHours(FIRST_ID + random.nextInt(employees)));
+        run("Open hours, all employees (grouped)", Math.max(1, iterations / 20), random ->
+            taskRepository.findOpenHoursByAssignee());
+        run("Task page, first (keyset)", iterations, random ->
+            taskRepository.findPage(null, 100));
+        run("Report: department analysis", Math.max(1, iterations / 20), random ->
+            reportingEmployees.findDepartmentStats());
+        run("Report: tasks for one department", Math.max(1, iterations / 20), random ->
+            reportingTasks.findByDepartment(DEPARTMENTS[random.nextInt(DEPARTMENTS.length)]));
+        run("Report: task statistics", iterations, random -> {
+            taskRepository.countOpen();
+            taskRepository.completionRate();
+        });
+
+        if (employees <= FULL_LOAD_LIMIT) {
+            run("View_Employee full load", Math.max(1, iterations / 20), random -> employeeRepository.findAll());
+            run("Task_ass employee load", Math.max(1, iterations / 20), random -> {
+                employeeRepository.findSummaries(null);
+                taskRepository.findOpenHoursByAssignee();
+            });
+        } else {
+            System.out.println("(full-table loads skipped above " + FULL_LOAD_LIMIT + " employees)");
+        }
+
+        compareTableModels(employees);
+
+        System.out.printf("%n%-70s %8s %9s %9s %9s%n", "Statement", "Calls", "p50 ms", "p99 ms", "max ms");
+        for (StatementMetrics.Snapshot stats : StatementMetrics.snapshot()) {
+            String sql = stats.getSql().length() > 70 ? stats.getSql().substring(0, 67) + "..." : stats.getSql();
+            System.out.printf("%-70s %8d %9.3f %9.3f %9.3f%n", sql, stats.getCalls(), stats.getP50Millis(),
+                stats.getP99Millis(), stats.getMaxMillis());
+        }
+
+        System.out.println("\nPool: " + conn.poolStats());
+        System.exit(0);
+    }
+
+    private static void seed(int employees, int tasks) throws SQLException {
+        EmployeeRepository employeeRepository = new EmployeeRepository(JdbcProfile.BULK);
+        TaskRepository taskRepository = new TaskRepository(JdbcProfile.BULK);
+        if (employeeRepository.count() >= employees) {
+            System.out.println("Reusing existing dataset");
+            return;
+        }
+
+        Random random = new Random(42);
+        long start = System.currentTimeMillis();
+
+        List<EmployeeRecord> employeeBatch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < employees; i++) {
+            int id = FIRST_ID + i;
+            employeeBatch.add(new EmployeeRecord(String.valueOf(id), "Employee " + id, 21 + random.nextInt(40),
+                GENDERS[random.nextInt(GENDERS.length)], String.format("9%09d", i), "emp" + id + "@example.com",
+                "Position " + random.nextInt(50), DEPARTMENTS[random.nextInt(DEPARTMENTS.length)],
+                String.valueOf(20000 + random.nextInt(180000)), EDUCATION[random.nextInt(EDUCATION.length)],
+                "Address " + id, String.format("%02d/%02d/%d", 1 + random.nextInt(28), 1 + random.nextInt(12), 2010 + random.nextInt(15))));
+            if (employeeBatch.size() == BATCH_SIZE) {
+                employeeRepository.insertAll(employeeBatch);
+                employeeBatch.clear();
+            }
+        }
+        if (!employeeBatch.isEmpty()) employeeRepository.insertAll(employeeBatch);
+
+        List<TaskRecord> taskBatch = new ArrayList<>(BATCH_SIZE);
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < tasks; i++) {
+            Integer assignee = random.nextInt(10) == 0 ? null : FIRST_ID + random.nextInt(employees);
+            taskBatch.add(new TaskRecord(0, "Task " + i, "Benchmark task " + i, PRIORITIES[random.nextInt(PRIORITIES.length)],
+                STATUSES[random.nextInt(STATUSES.length)], assignee, null, 1 + random.nextInt(40),
+                today.plusDays(random.nextInt(120) - 30), null));
+            if (taskBatch.size() == BATCH_SIZE) {
+                taskRepository.insertAll(taskBatch);
+                taskBatch.clear();
+            }
+        }
+        if (!taskBatch.isEmpty()) taskRepository.insertAll(taskBatch);
+
+        System.out.println("Seeded " + employees + " employees and " + tasks + " tasks in " +
+            (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * Loads the same rows into a boxed DefaultTableModel (one Vector of Objects per row, as
+     * DbUtils.resultSetToTableModel did) and into a ColumnarTableModel, and reports the time until the
+     * first screenful can be painted and the heap each model keeps.
+     */
+    private static void compareTableModels(int employees) throws SQLException {
+        QueryExecutor executor = conn.executor(JdbcProfile.REPORTING);
+        String sql = "SELECT " + EmployeeRepository.COLUMNS + " FROM employee ORDER BY id LIMIT ?";
+
+        System.out.printf("%n%-30s %10s %14s %14s %14s%n", "Table model", "Rows", "first paint ms", "retained MB", "estimated MB");
+        for (int rows : TABLE_MODEL_ROWS) {
+            int limit = Math.min(rows, employees);
+            // Columnar first: if the boxed model runs out of memory, the columnar figures are still reported
+            measureTableModel("Columnar", limit, () ->
+                executor.queryResult(sql, rs -> EmployeeRepository.columnsBuilder().read(rs).build(), limit));
+            measureTableModel("Boxed (DefaultTableModel)", limit, () ->
+                executor.queryResult(sql, DbBenchmark::boxedModel, limit));
+            if (limit < rows) break;
+        }
+    }
+
+    // A table model load
+    interface ModelLoad {
+        TableModel load() throws SQLException;
+    }
+
+    private static void measureTableModel(String name, int rows, ModelLoad load) throws SQLException {
+        // One untimed load first, so the JIT and the database's page cache don't count against the model
+        try {
+            load.load();
+        } catch (OutOfMemoryError e) {
+            System.out.printf("%-30s %10d %14s %14s %14s%n", name, rows, "out of memory", "-", "-");
+            return;
+        }
+
+        long before = usedHeap();
+        long start = System.nanoTime();
+        TableModel model;
+        try {
+            model = load.load();
+        } catch (OutOfMemoryError e) {
+            System.out.printf("%-30s %10d %14s %14s %14s%n", name, rows, "out of memory", "-", "-");
+            return;
+        }
+        for (int row = 0; row < Math.min(FIRST_PAINT_ROWS, model.getRowCount()); row++) {
+            for (int column = 0; column < model.getColumnCount(); column++) {
+                model.getValueAt(row, column);
+            }
+        }
+        long firstPaint = System.nanoTime() - start;
+        long retained = usedHeap() - before;
+        String estimated = model instanceof ColumnarTableModel
+            ? String.format("%.1f", ((ColumnarTableModel) model).estimateBytes() / 1e6) : "-";
+
+        System.out.printf("%-30s %10d %14.1f %14.1f %14s%n", name, model.getRowCount(), millis(firstPaint),
+            retained / 1e6, estimated);
+    }
+
+    private static DefaultTableModel boxedModel(ResultSet rs) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        int columns = meta.getColumnCount();
+        Vector<String> names = new Vector<>();
+        for (int i = 1; i <= columns; i++) {
+            names.add(meta.getColumnLabel(i));
+        }
+        Vector<Vector<Object>> data = new Vector<>();
+        while (rs.next()) {
+            Vector<Object> row = new Vector<>(columns);
+            for (int i = 1; i <= columns; i++) {
+                Object value = rs.getObject(i);
+                // H2 hands out the String instances it keeps itself; a networked driver (MySQL)
+                // allocates one per cell, which is what the boxed model costs in the application
+                row.add(value instanceof String ? new String((String) value) : value);
+            }
+            data.add(row);
+        }
+        return new DefaultTableModel(data, names);
+    }
+
+    // Heap in use after a full collection; a few rounds so finalisable garbage is gone too
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void run(String name, int iterations, Operation operation) throws SQLException {
+        Random random = new Random(7);
+
+        // Warm up caches and the JIT before measuring
+        for (int i = 0; i < Math.min(iterations, 20); i++) {
+            operation.run(random);
+        }
+
+        long[] samples = new long[iterations];
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            long t0 = System.nanoTime();
+            operation.run(random);
+            samples[i] = System.nanoTime() - t0;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(samples);
+        System.out.printf("%-40s %8d %10.1f %9.3f %9.3f %9.3f %9.3f%n", name, iterations,
+            iterations / (elapsed / 1e9), millis(percentile(samples, 0.50)), millis(percentile(samples, 0.95)),
+            millis(percentile(samples, 0.99)), millis(samples[samples.length - 1]));
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
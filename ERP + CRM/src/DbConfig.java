@@ -0,0 +1,158 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Properties;
+
+/**
+ * Database settings read from app_settings.properties (the same file the Settings screen edits).
+ * A JVM system property with the same key (e.g. -DdbBackend=h2) takes precedence over the file,
+ * and missing keys fall back to the values the application has always used.
+ */
+public class DbConfig {
+
+    private static final String PROPERTIES_FILE = "app_settings.properties";
+
+    private final Properties properties;
+
+    private DbConfig(Properties properties) {
+        this.properties = properties;
+    }
+
+    public static DbConfig load() {
+        Properties properties = new Properties();
+        File propFile = new File(PROPERTIES_FILE);
+        if (propFile.exists()) {
+            try (FileInputStream input = new FileInputStream(propFile)) {
+                properties.load(input);
+            } catch (IOException e) {
+                System.err.println("Could not read " + PROPERTIES_FILE + ", using default database settings: " + e.getMessage());
+            }
+        }
+        return new DbConfig(properties);
+    }
+
+    public String getHost() {
+        return get("dbHost", "localhost").trim();
+    }
+
+    public String getPort() {
+        return get("dbPort", "3306").trim();
+    }
+
+    public String getDatabase() {
+        return get("dbName", "erpcrm").trim();
+    }
+
+    public String getUsername() {
+        return get("dbUsername", "root").trim();
+    }
+
+    // The Settings screen deliberately doesn't persist the password
+    public String getPassword() {
+        return get("dbPassword", "1234");
+    }
+
+    public StorageBackend getBackend() {
+        return StorageBackend.fromSetting(get("dbBackend", "mysql"));
+    }
+
+    public String getUrl() {
+        if (getBackend() == StorageBackend.H2) {
+            // dbPath=<file> keeps the embedded database on disk; otherwise it lives in memory.
+            // conn closes it at exit, after work queued for the database has been written
+            String path = get("dbPath", "").trim();
+            String location = path.isEmpty() ? "mem:" + getDatabase() : "file:" + path;
+            return "jdbc:h2:" + location + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+        }
+        return "jdbc:mysql://" + getHost() + ":" + getPort() + "/" + getDatabase();
+    }
+
+    /** Driver properties for a profile: credentials plus the profile's tuning knobs. */
+    public Properties connectionProperties(JdbcProfile profile) {
+        Properties info = new Properties();
+        info.setProperty("user", getUsername());
+        info.setProperty("password", getPassword());
+        if (getBackend() != StorageBackend.MYSQL) {
+            return info; // the tuning knobs below are Connector/J settings
+        }
+        info.setProperty("useServerPrepStmts", "true");
+        info.setProperty("connectTimeout", "10000");
+        info.setProperty("socketTimeout", String.valueOf(getInt(profile, "socketTimeout", profile.socketTimeoutMillis)));
+        info.setProperty("useCursorFetch", String.valueOf(getBoolean(profile, "useCursorFetch", profile.useCursorFetch)));
+        info.setProperty("defaultFetchSize", String.valueOf(getInt(profile, "fetchSize", profile.fetchSize)));
+        info.setProperty("rewriteBatchedStatements",
+            String.valueOf(getBoolean(profile, "rewriteBatchedStatements", profile.rewriteBatchedStatements)));
+        return info;
+    }
+
+    public ConnectionPool.Options poolOptions(JdbcProfile profile) {
+        ConnectionPool.Options options = new ConnectionPool.Options();
+        options.minIdle = getInt(profile, "minIdle", profile.minIdle);
+        options.maxSize = getInt(profile, "maxPoolSize", profile.maxPoolSize);
+        options.statementCacheSize = getInt(profile, "statementCacheSize", profile.statementCacheSize);
+        return options;
+    }
+
+    // Statements slower than this go to the slow-query log; negative disables it
+    public int getSlowQueryThresholdMillis() {
+        return getInt("slowQueryThresholdMillis", 500);
+    }
+
+    public String getSlowQueryLogFile() {
+        return get("slowQueryLogFile", "slow_queries.log").trim();
+    }
+
+    // The log rotates to .1, .2, ... once it reaches this size
+    public int getSlowQueryLogMaxBytes() {
+        return getInt("slowQueryLogMaxBytes", 5 * 1024 * 1024);
+    }
+
+    public int getSlowQueryLogFiles() {
+        return getInt("slowQueryLogFiles", 5);
+    }
+
+    // Largest employee table kept in memory by EmployeeDirectory; 0 disables the cache
+    public int getEmployeeCacheMaxEntries() {
+        return getInt("employeeCacheMaxEntries", 20000);
+    }
+
+    // How long the cached employees are trusted before being re-read, for changes made by other clients
+    public int getEmployeeCacheTtlSeconds() {
+        return getInt("employeeCacheTtlSeconds", 300);
+    }
+
+    // Employees EmployeeDetailCache keeps when the table is too big for EmployeeDirectory
+    public int getEmployeeDetailCacheSize() {
+        return getInt("employeeDetailCacheSize", 1000);
+    }
+
+    // Largest employee table EmployeeSearchIndex builds a quick-search index for; 0 disables it
+    public int getEmployeeSearchIndexMaxEntries() {
+        return getInt("employeeSearchIndexMaxEntries", 1_000_000);
+    }
+
+    private String get(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        return value != null ? value : properties.getProperty(key, defaultValue);
+    }
+
+    private int getInt(JdbcProfile profile, String setting, int defaultValue) {
+        return getInt(profile.key(setting), defaultValue);
+    }
+
+    private int getInt(String key, int defaultValue) {
+        String value = get(key, null);
+        if (value == null) return defaultValue;
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Ignoring invalid " + key + "=" + value);
+            return defaultValue;
+        }
+    }
+
+    private boolean getBoolean(JdbcProfile profile, String setting, boolean defaultValue) {
+        String value = get(profile.key(setting), null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+}
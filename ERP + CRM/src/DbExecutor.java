@@ -0,0 +1,164 @@
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import javax.swing.SwingUtilities;
+
+/**
+ * Central asynchronous executor for database work.
+ *
+ * Calls run on virtual threads when the JVM has them (Java 21+), otherwise on a cached pool of
+ * daemon threads, so concurrent screen loads don't queue behind SwingWorker's 10-thread limit.
+ * The number of calls running at once per JDBC profile is capped at that profile's pool size, so
+ * a burst of submissions doesn't start more threads than could ever get a connection. The cap only
+ * counts calls made through here; other code takes connections from the same pool, so a running
+ * call can still wait inside the pool for one. Every call has a timeout that is also pushed down
+ * to the driver as a query timeout, and results come back to the EDT through
+ * {@link #onEdt(BiConsumer)}.
+ *
+ * Typical use:
+ * <pre>
+ * DbExecutor.submit(() -&gt; repository.findAll())
+ *     .whenComplete(DbExecutor.onEdt((employees, error) -&gt; { ... }));
+ * </pre>
+ */
+public class DbExecutor {
+
+    // Work to run off the EDT
+    public interface DbCall<T> {
+        T call() throws Exception;
+    }
+
+    public static final long DEFAULT_TIMEOUT_MILLIS = 30_000;
+
+    private static final ExecutorService EXECUTOR = createExecutor();
+    private static final Map<JdbcProfile, Semaphore> LIMITS = new EnumMap<>(JdbcProfile.class);
+
+    public static <T> CompletableFuture<T> submit(DbCall<T> call) {
+        return submit(JdbcProfile.INTERACTIVE, DEFAULT_TIMEOUT_MILLIS, call);
+    }
+
+    public static <T> CompletableFuture<T> submit(JdbcProfile profile, DbCall<T> call) {
+        return submit(profile, profile == JdbcProfile.INTERACTIVE ? DEFAULT_TIMEOUT_MILLIS : 0, call);
+    }
+
+    /**
+     * Runs the call off the EDT. The returned future fails with a TimeoutException if the call
+     * hasn't finished within timeoutMillis (0 = no timeout); queries issued by the call through
+     * QueryExecutor are given the remaining time as their JDBC query timeout. Cancelling the
+     * future, or letting it time out, cancels the statement the call is executing.
+     */
+    public static <T> CompletableFuture<T> submit(JdbcProfile profile, long timeoutMillis, DbCall<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long deadline = timeoutMillis > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis) : 0;
+        QueryExecutor.CallContext context = new QueryExecutor.CallContext(deadline, SlowQueryLog.submitSite());
+
+        EXECUTOR.execute(() -> {
+            if (future.isDone()) return;
+            Semaphore limit = limit(profile);
+            boolean acquired = false;
+            try {
+                acquired = deadline == 0 ? acquire(limit)
+                    : limit.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (!acquired) {
+                    future.completeExceptionally(new TimeoutException("Timed out waiting for a free " +
+                        profile.name().toLowerCase() + " database slot"));
+                    return;
+                }
+                if (future.isDone()) return;
+
+                QueryExecutor.setContext(context);
+                future.complete(call.call());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.completeExceptionally(e);
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            } finally {
+                QueryExecutor.setContext(null);
+                if (acquired) limit.release();
+            }
+        });
+
+        // Completed from outside (cancel or timeout) while the call may still be running
+        future.whenComplete((result, error) -> {
+            if (error != null) context.cancel();
+        });
+        return timeoutMillis > 0 ? future.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS) : future;
+    }
+
+    /**
+     * Adapts an EDT callback for whenComplete. The error, if any, is unwrapped from the
+     * CompletionException/ExecutionException wrappers before the callback sees it. Cancelled
+     * calls deliver nothing.
+     */
+    public static <T> BiConsumer<T, Throwable> onEdt(BiConsumer<T, Throwable> callback) {
+        return (result, error) -> {
+            Throwable cause = unwrap(error);
+            if (cause instanceof CancellationException) return;
+            if (SwingUtilities.isEventDispatchThread()) {
+                callback.accept(result, cause);
+            } else {
+                SwingUtilities.invokeLater(() -> callback.accept(result, cause));
+            }
+        };
+    }
+
+    // Message suitable for an error dialog
+    public static String describe(Throwable error) {
+        Throwable cause = unwrap(error);
+        if (cause instanceof TimeoutException) return "The database took too long to respond.";
+        if (cause instanceof SQLException) return "Database error: " + cause.getMessage();
+        return cause.getMessage() != null ? cause.getMessage() : cause.toString();
+    }
+
+    static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static boolean acquire(Semaphore limit) throws InterruptedException {
+        limit.acquire();
+        return true;
+    }
+
+    // Caps calls running at once at the pool size; not a reservation, since connections are also
+    // checked out outside DbExecutor
+    private static synchronized Semaphore limit(JdbcProfile profile) {
+        Semaphore limit = LIMITS.get(profile);
+        if (limit == null) {
+            limit = new Semaphore(Math.max(1, conn.config().poolOptions(profile).maxSize), true);
+            LIMITS.put(profile, limit);
+        }
+        return limit;
+    }
+
+    // The project targets Java 12, so virtual threads are looked up reflectively
+    private static ExecutorService createExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "db-executor-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+}
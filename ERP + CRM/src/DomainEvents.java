@@ -0,0 +1,159 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+
+/**
+ * In-process bus for committed changes to employees and tasks.
+ *
+ * Repositories publish a typed delta once a write has been applied, and open screens patch the
+ * affected table rows instead of reloading everything. Events are delivered on the EDT in the order
+ * they were published. Bulk writes publish a single EmployeesChanged/TasksChanged, meaning "reload".
+ *
+ * Typical use, from a frame:
+ * <pre>
+ * private final DomainEvents.Subscription events = new DomainEvents.Subscription();
+ * ...
+ * events.on(DomainEvents.EmployeeRemoved.class, e -&gt; removeRow(e.getId()));
+ * ...
+ * public void dispose() { events.close(); ... }
+ * </pre>
+ */
+public class DomainEvents {
+
+    private static final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    public abstract static class Event {
+    }
+
+    public static final class EmployeeAdded extends Event {
+        private final EmployeeRecord employee;
+
+        public EmployeeAdded(EmployeeRecord employee) {
+            this.employee = employee;
+        }
+
+        public EmployeeRecord getEmployee() { return employee; }
+    }
+
+    public static final class EmployeeUpdated extends Event {
+        private final EmployeeRecord employee;
+
+        public EmployeeUpdated(EmployeeRecord employee) {
+            this.employee = employee;
+        }
+
+        public EmployeeRecord getEmployee() { return employee; }
+    }
+
+    public static final class EmployeeRemoved extends Event {
+        private final String id;
+
+        public EmployeeRemoved(String id) {
+            this.id = id;
+        }
+
+        public String getId() { return id; }
+    }
+
+    // Many employees changed at once; listeners should reload
+    public static final class EmployeesChanged extends Event {
+    }
+
+    public static final class TaskCreated extends Event {
+        private final TaskRecord task;
+
+        public TaskCreated(TaskRecord task) {
+            this.task = task;
+        }
+
+        public TaskRecord getTask() { return task; }
+    }
+
+    public static final class TaskAssigned extends Event {
+        private final TaskRecord task;
+
+        public TaskAssigned(TaskRecord task) {
+            this.task = task;
+        }
+
+        public TaskRecord getTask() { return task; }
+    }
+
+    public static final class TaskUpdated extends Event {
+        private final TaskRecord task;
+
+        public TaskUpdated(TaskRecord task) {
+            this.task = task;
+        }
+
+        public TaskRecord getTask() { return task; }
+    }
+
+    public static final class TaskDeleted extends Event {
+        private final int id;
+
+        public TaskDeleted(int id) {
+            this.id = id;
+        }
+
+        public int getId() { return id; }
+    }
+
+    // Many tasks changed at once; listeners should reload
+    public static final class TasksChanged extends Event {
+    }
+
+    /** Queues the event for every open subscription. Safe to call from any thread. */
+    public static void publish(Event event) {
+        if (subscriptions.isEmpty()) return;
+        SwingUtilities.invokeLater(() -> {
+            for (Subscription subscription : subscriptions) {
+                subscription.deliver(event);
+            }
+        });
+    }
+
+    /**
+     * Handlers of one window. Create and register handlers on the EDT; close() from dispose()
+     * stops delivery, including for events already queued.
+     */
+    public static final class Subscription implements AutoCloseable {
+        // Only touched on the EDT
+        private final Map<Class<?>, List<Consumer<Event>>> handlers = new HashMap<>();
+        private volatile boolean closed;
+
+        public Subscription() {
+            subscriptions.add(this);
+        }
+
+        @SuppressWarnings("unchecked")
+        public <E extends Event> Subscription on(Class<E> type, Consumer<? super E> handler) {
+            handlers.computeIfAbsent(type, k -> new ArrayList<>()).add(event -> handler.accept((E) event));
+            return this;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            subscriptions.remove(this);
+        }
+
+        private void deliver(Event event) {
+            if (closed) return;
+            List<Consumer<Event>> eventHandlers = handlers.get(event.getClass());
+            if (eventHandlers == null) return;
+            for (Consumer<Event> handler : eventHandlers) {
+                try {
+                    handler.accept(event);
+                } catch (RuntimeException e) {
+                    System.err.println("Error handling " + event.getClass().getSimpleName() + ": " + e.getMessage());
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+}
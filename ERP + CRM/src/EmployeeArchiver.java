@@ -0,0 +1,77 @@
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background mover for batch removals. Employees queued in employee_removal are copied to
+ * employee_archive and deleted CHUNK_SIZE at a time, each chunk in its own short transaction with
+ * a pause after it, so removing thousands of employees never holds locks on the employee table for
+ * long and other clients' queries run in between. Open screens are told once the queue is empty.
+ *
+ * The queue is a table, so removals requested before a crash or exit are finished by the next
+ * wake(), which the splash screen calls at startup.
+ */
+public class EmployeeArchiver {
+
+    private static final int CHUNK_SIZE = 200;
+    private static final long PAUSE_MILLIS = 100;
+    private static final long RETRY_MILLIS = 30_000;
+
+    private static final ScheduledExecutorService mover = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "employee-archiver");
+        t.setDaemon(true);
+        return t;
+    });
+    // Set while a run is scheduled or in progress
+    private static final AtomicBoolean running = new AtomicBoolean();
+    // Counts wake() calls, so a request arriving as a run finds the queue empty isn't missed
+    private static final AtomicLong requests = new AtomicLong();
+
+    private static final AtomicLong archived = new AtomicLong();
+    private static long movedThisRun;
+
+    /** Starts moving queued removals unless a run is already under way. Safe to call from any thread. */
+    public static void wake() {
+        requests.incrementAndGet();
+        if (running.compareAndSet(false, true)) {
+            mover.execute(EmployeeArchiver::moveChunk);
+        }
+    }
+
+    // Employees moved to employee_archive since startup
+    public static long getArchivedCount() {
+        return archived.get();
+    }
+
+    // Runs on the mover thread only
+    private static void moveChunk() {
+        long seen = requests.get();
+        EmployeeRepository repository = new EmployeeRepository(JdbcProfile.BULK);
+        int moved;
+        try {
+            moved = repository.archivePending(CHUNK_SIZE);
+        } catch (SQLException | RuntimeException e) {
+            // Anything thrown here would end the run with running still set, and no wake() would start another
+            System.err.println("Error archiving removed employees, retrying later: " + e.getMessage());
+            mover.schedule(EmployeeArchiver::moveChunk, RETRY_MILLIS, TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        if (moved > 0) {
+            movedThisRun += moved;
+            archived.addAndGet(moved);
+            mover.schedule(EmployeeArchiver::moveChunk, PAUSE_MILLIS, TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        if (movedThisRun > 0) {
+            movedThisRun = 0;
+            repository.bulkChanged();
+        }
+        running.set(false);
+        if (requests.get() != seen) wake();
+    }
+}
@@ -0,0 +1,173 @@
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of single employees, used by EmployeeDirectory when the table is too big to hold
+ * whole. Screens that step through employees one at a time prefetch the ones around the current
+ * one with one IN query, so the next step is answered from memory.
+ *
+ * Least recently used entries are evicted beyond employeeDetailCacheSize; entries are trusted for
+ * employeeCacheTtlSeconds, like the directory. Writes of this process are applied through
+ * EmployeeDirectory; a load that raced with a write never replaces the newer row.
+ */
+public class EmployeeDetailCache {
+
+    private static final class Cached {
+        final EmployeeRecord employee;
+        final long loadedAt;
+
+        Cached(EmployeeRecord employee, long loadedAt) {
+            this.employee = employee;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    // Access order, so the eldest entry is the least recently used; guarded by itself
+    private static final Map<String, Cached> entries = new LinkedHashMap<String, Cached>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+            if (size() <= maxSize()) return false;
+            evictions.increment();
+            return true;
+        }
+    };
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder evictions = new LongAdder();
+    private static final LongAdder prefetched = new LongAdder();
+    // Bumped by every removal and clear, so loads started before one don't bring rows back
+    private static long generation;
+
+    /** The employee, from memory when cached; otherwise read together with the neighbours, in one query. */
+    static EmployeeRecord get(String id, List<String> neighbours) throws SQLException {
+        long now = System.nanoTime();
+        long loadGeneration;
+        synchronized (entries) {
+            Cached entry = entries.get(id);
+            if (entry != null && isFresh(entry, now)) {
+                hits.increment();
+                return entry.employee;
+            }
+            loadGeneration = generation;
+        }
+        misses.increment();
+        if (neighbours.isEmpty()) {
+            EmployeeRecord employee = repository().findById(id);
+            if (employee != null) store(List.of(employee), loadGeneration, now);
+            return employee;
+        }
+
+        List<String> ids = new ArrayList<>(neighbours.size() + 1);
+        ids.add(id);
+        ids.addAll(neighbours);
+        EmployeeRecord employee = null;
+        List<EmployeeRecord> loaded = repository().findByIds(ids);
+        for (EmployeeRecord each : loaded) {
+            if (each.getId().equals(id)) employee = each;
+        }
+        store(loaded, loadGeneration, now);
+        prefetched.add(loaded.size() - (employee == null ? 0 : 1));
+        return employee;
+    }
+
+    /**
+     * Loads the employees not already cached, in one query. ids are taken to be nearest first:
+     * nothing is read while the nearer half of them is cached, so stepping through a list reads a
+     * few employees every few steps instead of one on every step.
+     */
+    static void prefetch(List<String> ids) throws SQLException {
+        long now = System.nanoTime();
+        List<String> missing = new ArrayList<>(ids.size());
+        boolean nearMissing = false;
+        long loadGeneration;
+        synchronized (entries) {
+            for (int i = 0; i < ids.size(); i++) {
+                // Also marks cached neighbours as recently used, which they are about to be
+                Cached entry = entries.get(ids.get(i));
+                if (entry != null && isFresh(entry, now) || missing.contains(ids.get(i))) continue;
+                missing.add(ids.get(i));
+                if (i < (ids.size() + 1) / 2) nearMissing = true;
+            }
+            loadGeneration = generation;
+        }
+        if (!nearMissing) return;
+        List<EmployeeRecord> loaded = repository().findByIds(missing);
+        store(loaded, loadGeneration, now);
+        prefetched.add(loaded.size());
+    }
+
+    // Called through EmployeeDirectory once a write has committed
+    static void put(EmployeeRecord employee) {
+        synchronized (entries) {
+            entries.put(employee.getId(), new Cached(employee, System.nanoTime()));
+        }
+    }
+
+    static void remove(String id) {
+        synchronized (entries) {
+            generation++;
+            entries.remove(id);
+        }
+    }
+
+    static void clear() {
+        synchronized (entries) {
+            generation++;
+            entries.clear();
+        }
+    }
+
+    public static long getHitCount() {
+        return hits.sum();
+    }
+
+    public static long getMissCount() {
+        return misses.sum();
+    }
+
+    public static long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    // Employees loaded ahead of being asked for
+    public static long getPrefetchCount() {
+        return prefetched.sum();
+    }
+
+    public static int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    // Keeps loaded rows unless a removal happened meanwhile or a newer version is already cached
+    private static void store(List<EmployeeRecord> loaded, long loadGeneration, long loadedAt) {
+        synchronized (entries) {
+            if (generation != loadGeneration) return;
+            for (EmployeeRecord employee : loaded) {
+                Cached current = entries.get(employee.getId());
+                if (current != null && current.employee.getVersion() > employee.getVersion()) continue;
+                entries.put(employee.getId(), new Cached(employee, loadedAt));
+            }
+        }
+    }
+
+    private static boolean isFresh(Cached entry, long now) {
+        long ttl = TimeUnit.SECONDS.toNanos(conn.config().getEmployeeCacheTtlSeconds());
+        return ttl <= 0 || now - entry.loadedAt < ttl;
+    }
+
+    private static int maxSize() {
+        return conn.config().getEmployeeDetailCacheSize();
+    }
+
+    private static EmployeeRepository repository() {
+        return new EmployeeRepository();
+    }
+}
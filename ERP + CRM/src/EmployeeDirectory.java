@@ -0,0 +1,343 @@
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide, read-mostly copy of the employee table.
+ *
+ * The first screen that needs employees loads the whole table once; every screen after that is
+ * served from memory. Writes made through EmployeeRepository are applied here as soon as they
+ * commit, and the copy is reloaded after employeeCacheTtlSeconds in case another client changed
+ * the table. When the table has more than employeeCacheMaxEntries rows (0 disables the cache)
+ * nothing is kept and lookups go straight to the database, except single employees, which
+ * EmployeeDetailCache keeps a bounded number of.
+ *
+ * A write changes only the entries of its employee, in sorted concurrent maps, so it costs
+ * O(log n) whatever the size of the table; the lists handed out are copied from the maps on the
+ * first read after a change. Loading runs outside the lock: one thread loads while the others
+ * that need the table wait for it, and a load that a write overtook is not kept.
+ */
+public class EmployeeDirectory {
+
+    private static final Object lock = new Object();
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+
+    private static volatile Table table;
+    // Guarded by lock. Bumped by every write, so a load that started before one isn't kept
+    private static long generation;
+    // Guarded by lock; the load in progress, which other lookups wait for instead of loading too
+    private static CompletableFuture<Table> loading;
+    // Set while the table is too big to cache, so the size isn't re-checked on every lookup
+    private static long bypassUntil;
+
+    // Same order as ORDER BY id on the integer id column
+    private static final Comparator<String> BY_ID = EmployeeDirectory::compareIds;
+    private static final Comparator<EmployeeRecord.Ref> BY_NAME = Comparator
+        .comparing(EmployeeRecord.Ref::getName, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+        .thenComparing(EmployeeRecord.Ref::getId, BY_ID);
+
+    // The cached table; read without locking, changed under lock
+    private static final class Table {
+        final ConcurrentSkipListMap<String, EmployeeRecord> byId = new ConcurrentSkipListMap<>(BY_ID);
+        final ConcurrentSkipListSet<EmployeeRecord.Ref> refs = new ConcurrentSkipListSet<>(BY_NAME);
+        // Employees per position, so a position is listed while anyone holds it
+        final ConcurrentSkipListMap<String, Integer> positions = new ConcurrentSkipListMap<>(String.CASE_INSENSITIVE_ORDER);
+        final long loadedAt;
+        volatile int size;
+        // Bumped by every change
+        volatile long version;
+
+        // Lists handed out by refs() and positions(), reused until the version moves on
+        private volatile Copy<EmployeeRecord.Ref> refCopy;
+        private volatile Copy<String> positionCopy;
+
+        Table(List<EmployeeRecord> records, long loadedAt) {
+            this.loadedAt = loadedAt;
+            for (EmployeeRecord employee : records) {
+                put(employee);
+            }
+        }
+
+        boolean isFresh(long now, long ttlNanos) {
+            return ttlNanos <= 0 || now - loadedAt < ttlNanos;
+        }
+
+        // Called under lock, or by the loading thread before the table is shared
+        void put(EmployeeRecord employee) {
+            EmployeeRecord previous = byId.put(employee.getId(), employee);
+            if (previous != null) {
+                unlist(previous);
+            } else {
+                size++;
+            }
+            refs.add(new EmployeeRecord.Ref(employee.getId(), employee.getName()));
+            if (employee.getPosition() != null) positions.merge(employee.getPosition(), 1, Integer::sum);
+            version++;
+        }
+
+        void remove(String id) {
+            EmployeeRecord previous = byId.remove(id);
+            if (previous == null) return;
+            size--;
+            unlist(previous);
+            version++;
+        }
+
+        private void unlist(EmployeeRecord employee) {
+            refs.remove(new EmployeeRecord.Ref(employee.getId(), employee.getName()));
+            if (employee.getPosition() != null) {
+                positions.computeIfPresent(employee.getPosition(), (position, count) -> count == 1 ? null : count - 1);
+            }
+        }
+
+        // Copied without the lock; a copy a write overtook is handed out once but not kept
+        List<EmployeeRecord.Ref> refs() {
+            long at = version;
+            Copy<EmployeeRecord.Ref> copy = refCopy;
+            if (copy == null || copy.version != at) {
+                copy = new Copy<>(at, refs);
+                if (version == at) refCopy = copy;
+            }
+            return copy.list;
+        }
+
+        List<String> positions() {
+            long at = version;
+            Copy<String> copy = positionCopy;
+            if (copy == null || copy.version != at) {
+                copy = new Copy<>(at, positions.keySet());
+                if (version == at) positionCopy = copy;
+            }
+            return copy.list;
+        }
+    }
+
+    private static final class Copy<T> {
+        final long version;
+        final List<T> list;
+
+        Copy(long version, Collection<T> values) {
+            this.version = version;
+            this.list = Collections.unmodifiableList(new ArrayList<>(values));
+        }
+    }
+
+    /** Every employee in id order. */
+    public static List<EmployeeRecord> all() throws SQLException {
+        Table current = table();
+        return current != null ? new ArrayList<>(current.byId.values()) : repository().findAll();
+    }
+
+    public static EmployeeRecord get(String id) throws SQLException {
+        Table current = table();
+        return current != null ? current.byId.get(id) : EmployeeDetailCache.get(id, Collections.emptyList());
+    }
+
+    /**
+     * Like get(id), for screens stepping through a list: when the employee has to be read, the ids
+     * around it in the list (nearest first) are read in the same query.
+     */
+    public static EmployeeRecord get(String id, List<String> neighbours) throws SQLException {
+        Table current = table();
+        return current != null ? current.byId.get(id) : EmployeeDetailCache.get(id, neighbours);
+    }
+
+    /**
+     * Loads employees ahead of get(), in one query, when the table isn't held whole. For screens
+     * stepping through a list: pass the ids around the current one, nearest first.
+     */
+    public static void prefetch(List<String> ids) throws SQLException {
+        if (table != null) return;
+        EmployeeDetailCache.prefetch(ids);
+    }
+
+    // id + name of every employee, ordered by name; a new list after every change
+    public static List<EmployeeRecord.Ref> refs() throws SQLException {
+        Table current = table();
+        return current != null ? current.refs() : repository().findAllRefs();
+    }
+
+    /** Summaries for one department, or for everyone when department is null or "All". */
+    public static List<EmployeeRecord.Summary> summaries(String department) throws SQLException {
+        Table current = table();
+        if (current == null) return repository().findSummaries(department);
+
+        boolean everyone = department == null || "All".equals(department);
+        List<EmployeeRecord.Summary> summaries = new ArrayList<>();
+        for (EmployeeRecord employee : current.byId.values()) {
+            if (everyone || department.equals(employee.getDepartment())) {
+                summaries.add(new EmployeeRecord.Summary(employee.getId(), employee.getName(), employee.getDepartment(),
+                    employee.getPosition(), employee.getEmail(), employee.getPhone()));
+            }
+        }
+        return summaries;
+    }
+
+    public static List<String> positions() throws SQLException {
+        Table current = table();
+        return current != null ? current.positions() : repository().findDistinctPositions();
+    }
+
+    public static int count() throws SQLException {
+        Table current = table();
+        return current != null ? current.size : repository().count();
+    }
+
+    public static long getHitCount() {
+        return hits.sum();
+    }
+
+    public static long getMissCount() {
+        return misses.sum();
+    }
+
+    // Employees held in memory, 0 when nothing is cached
+    public static int getSize() {
+        Table current = table;
+        return current == null ? 0 : current.size;
+    }
+
+    /** Drops the cached copy; the next lookup reloads it. */
+    public static void invalidate() {
+        EmployeeDetailCache.clear();
+        synchronized (lock) {
+            generation++;
+            table = null;
+            bypassUntil = 0;
+        }
+    }
+
+    // Called by EmployeeRepository once an insert has committed
+    static void added(EmployeeRecord employee) {
+        EmployeeDetailCache.put(employee);
+        synchronized (lock) {
+            generation++;
+            Table current = table;
+            if (current == null) return;
+            if (current.size >= maxEntries()) {
+                table = null;
+                return;
+            }
+            current.put(employee);
+        }
+    }
+
+    // Called by EmployeeRepository once an update has committed
+    static void updated(EmployeeRecord employee) {
+        EmployeeDetailCache.put(employee);
+        synchronized (lock) {
+            generation++;
+            Table current = table;
+            if (current == null) return;
+            if (!current.byId.containsKey(employee.getId())) {
+                table = null;
+                return;
+            }
+            current.put(employee);
+        }
+    }
+
+    static void removed(String id) {
+        EmployeeDetailCache.remove(id);
+        synchronized (lock) {
+            generation++;
+            Table current = table;
+            if (current != null) current.remove(id);
+        }
+    }
+
+    // Current table, loading it if missing or stale; null when the table is not cached
+    private static Table table() throws SQLException {
+        long ttl = TimeUnit.SECONDS.toNanos(conn.config().getEmployeeCacheTtlSeconds());
+        Table current = table;
+        if (current != null && current.isFresh(System.nanoTime(), ttl)) {
+            hits.increment();
+            return current;
+        }
+
+        CompletableFuture<Table> load;
+        boolean loader = false;
+        long loadGeneration;
+        int max = maxEntries();
+        synchronized (lock) {
+            long now = System.nanoTime();
+            current = table;
+            if (current != null && current.isFresh(now, ttl)) {
+                hits.increment();
+                return current;
+            }
+            misses.increment();
+            if (max <= 0 || (bypassUntil != 0 && now - bypassUntil < 0)) return null;
+            if (loading == null) {
+                loading = new CompletableFuture<>();
+                loader = true;
+            }
+            load = loading;
+            loadGeneration = generation;
+        }
+        if (!loader) return await(load);
+
+        try {
+            List<EmployeeRecord> records = repository().findPage(null, max + 1);
+            long now = System.nanoTime();
+            Table loaded = records.size() > max ? null : new Table(records, now);
+            synchronized (lock) {
+                loading = null;
+                if (loaded == null) {
+                    System.err.println("Employee table has more than " + max + " rows, not caching it");
+                    table = null;
+                    bypassUntil = now + Math.max(ttl, TimeUnit.MINUTES.toNanos(1));
+                } else if (generation == loadGeneration) {
+                    table = loaded;
+                } else {
+                    // A write committed during the load and may be missing from it; lookups
+                    // waiting for it read the database instead, and the next one loads again
+                    loaded = null;
+                }
+            }
+            load.complete(loaded);
+            return loaded;
+        } catch (SQLException | RuntimeException e) {
+            synchronized (lock) {
+                loading = null;
+            }
+            load.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static Table await(CompletableFuture<Table> load) throws SQLException {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SQLException) throw (SQLException) e.getCause();
+            throw e;
+        }
+    }
+
+    private static int maxEntries() {
+        return conn.config().getEmployeeCacheMaxEntries();
+    }
+
+    private static EmployeeRepository repository() {
+        return new EmployeeRepository();
+    }
+
+    private static int compareIds(String a, String b) {
+        try {
+            return Long.compare(Long.parseLong(a), Long.parseLong(b));
+        } catch (NumberFormatException e) {
+            return a.compareTo(b);
+        }
+    }
+}
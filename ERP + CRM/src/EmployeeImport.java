@@ -0,0 +1,650 @@
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Bulk import of employees from a CSV or JSON file.
+ *
+ * The file is streamed: a reader thread parses it CHUNK_SIZE rows at a time, worker threads turn
+ * each chunk into EmployeeRecords and check them with EmployeeValidator (the Add Employee form's
+ * rules), and the calling thread inserts the valid rows of each chunk, in file order, as one
+ * batched transaction through EmployeeRepository.importAll. Only a few chunks are held in memory
+ * at once, however large the file. Rows that fail validation or that the database refuses are
+ * written with their line number and reasons to "&lt;file&gt;.rejected.csv" next to the input.
+ *
+ * CSV files need a header row naming the columns, as View Employee's export writes them. JSON
+ * files hold an array of flat objects, or one object per line, keyed the same way. Rows without
+ * an id get one from IdAllocator, reserved a chunk at a time. As soon as a chunk is read, before it
+ * is inserted, the id sequence is moved past the highest explicit id in it, so blocks reserved from
+ * then on can't include one; an explicit id that is already taken is rejected like any other
+ * duplicate.
+ *
+ * Run it off the EDT through DbExecutor with the BULK profile; cancelling that call stops the
+ * import at the next chunk, keeping the chunks already committed.
+ */
+public class EmployeeImport {
+
+    public static final int CHUNK_SIZE = 1000;
+
+    // Employee columns, in the order a source row's values are kept
+    private static final String[] FIELDS = EmployeeRepository.COLUMNS.split(", ");
+    private static final int ID = 0, NAME = 1, AGE = 2, GENDER = 3, PHONE = 4, EMAIL = 5, POSITION = 6,
+        DEPARTMENT = 7, SALARY = 8, EDUCATION = 9, ADDRESS = 10, JOINING_DATE = 11;
+
+    private static final Pattern ID_PATTERN = Pattern.compile("\\d{1,9}");
+
+    /** Told about progress on the importing thread after every chunk. */
+    public interface Listener {
+        void progress(Status status);
+    }
+
+    /** Counts so far, or the outcome once run() has returned. */
+    public static final class Status {
+        private final long imported;
+        private final long rejected;
+        private final long elapsedMillis;
+        private final double fractionRead;
+        private final File report;
+
+        Status(long imported, long rejected, long elapsedMillis, double fractionRead, File report) {
+            this.imported = imported;
+            this.rejected = rejected;
+            this.elapsedMillis = elapsedMillis;
+            this.fractionRead = fractionRead;
+            this.report = report;
+        }
+
+        public long getImported() { return imported; }
+        public long getRejected() { return rejected; }
+        public long getElapsedMillis() { return elapsedMillis; }
+        // Share of the file parsed so far, 0 to 1
+        public double getFractionRead() { return fractionRead; }
+        // Rejected-rows report, or null when every row was imported
+        public File getReport() { return report; }
+
+        public double getRowsPerSecond() {
+            return elapsedMillis == 0 ? 0 : (imported + rejected) * 1000.0 / elapsedMillis;
+        }
+    }
+
+    private final File file;
+    private final Listener listener;
+    private final EmployeeRepository repository = new EmployeeRepository(JdbcProfile.BULK);
+
+    public EmployeeImport(File file, Listener listener) {
+        this.file = file;
+        this.listener = listener;
+    }
+
+    /**
+     * Imports the whole file and returns the final counts. Throws if the file can't be read or
+     * parsed, or the database fails for a reason other than a bad row; chunks committed before
+     * that stay imported.
+     */
+    public Status run() throws Exception {
+        long start = System.nanoTime();
+        String today = new SimpleDateFormat("dd/MM/yyyy").format(new Date());
+
+        int workers = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService validators = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "employee-import-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        // Chunks in file order; a completed null marks the end of the file
+        BlockingQueue<Future<Chunk>> chunks = new ArrayBlockingQueue<>(workers * 2);
+        AtomicBoolean stopped = new AtomicBoolean();
+        CountingInputStream input = new CountingInputStream(new FileInputStream(file));
+        long length = Math.max(1, file.length());
+
+        Thread reader = new Thread(() -> {
+            try (RowSource source = openSource(input)) {
+                List<SourceRow> rows = new ArrayList<>(CHUNK_SIZE);
+                SourceRow row;
+                while (!stopped.get() && (row = source.next()) != null) {
+                    rows.add(row);
+                    if (rows.size() == CHUNK_SIZE) {
+                        List<SourceRow> full = rows;
+                        enqueue(chunks, stopped, validators.submit(() -> toChunk(full, today)));
+                        rows = new ArrayList<>(CHUNK_SIZE);
+                    }
+                }
+                if (!rows.isEmpty()) {
+                    List<SourceRow> last = rows;
+                    enqueue(chunks, stopped, validators.submit(() -> toChunk(last, today)));
+                }
+                enqueue(chunks, stopped, CompletableFuture.completedFuture(null));
+            } catch (Throwable t) {
+                CompletableFuture<Chunk> failed = new CompletableFuture<>();
+                failed.completeExceptionally(t);
+                enqueue(chunks, stopped, failed);
+            }
+        }, "employee-import-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        long imported = 0;
+        RejectReport report = new RejectReport(new File(file.getPath() + ".rejected.csv"));
+        // A report left by an earlier import of the same file would be mistaken for this one's
+        Files.deleteIfExists(report.file.toPath());
+        try {
+            while (true) {
+                Chunk chunk = take(chunks);
+                if (chunk == null) break;
+
+                List<Rejection> rejections = chunk.rejections;
+                if (!chunk.employees.isEmpty()) {
+                    Map<Integer, SQLException> refused = repository.importAll(chunk.employees);
+                    for (Map.Entry<Integer, SQLException> entry : refused.entrySet()) {
+                        SourceRow row = chunk.rows.get(entry.getKey());
+                        rejections.add(new Rejection(row, "Not inserted: " + firstLine(entry.getValue().getMessage())));
+                    }
+                    imported += chunk.employees.size() - refused.size();
+                }
+                rejections.sort((a, b) -> Integer.compare(a.row.line, b.row.line));
+                for (Rejection rejection : rejections) {
+                    report.add(rejection);
+                }
+
+                if (listener != null) {
+                    listener.progress(new Status(imported, report.count, elapsedMillis(start),
+                        Math.min(1.0, input.count / (double) length), null));
+                }
+            }
+        } finally {
+            stopped.set(true);
+            reader.interrupt();
+            validators.shutdownNow();
+            report.close();
+            input.close();
+            if (imported > 0) repository.bulkChanged();
+        }
+        return new Status(imported, report.count, elapsedMillis(start), 1.0, report.count > 0 ? report.file : null);
+    }
+
+    // Drivers append the statement and more to a message; the first line says what was wrong
+    private static String firstLine(String message) {
+        if (message == null) return "rejected by the database";
+        int end = message.indexOf('\n');
+        return end < 0 ? message : message.substring(0, end).trim();
+    }
+
+    private static long elapsedMillis(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    // Waits for room in the queue, giving up once the import has stopped
+    private static void enqueue(BlockingQueue<Future<Chunk>> chunks, AtomicBoolean stopped, Future<Chunk> chunk) {
+        try {
+            while (!stopped.get() && !chunks.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                // retry
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Chunk take(BlockingQueue<Future<Chunk>> chunks) throws Exception {
+        try {
+            return chunks.take().get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            throw e;
+        }
+    }
+
+    // Runs on a worker: converts and validates one chunk of source rows
+    private static Chunk toChunk(List<SourceRow> rows, String today) throws SQLException {
+        int missingIds = 0;
+        long maxExplicitId = 0;
+        for (SourceRow row : rows) {
+            String id = row.values[ID];
+            if (id == null) {
+                missingIds++;
+            } else if (ID_PATTERN.matcher(id).matches()) {
+                maxExplicitId = Math.max(maxExplicitId, Long.parseLong(id));
+            }
+        }
+        // Before anything is inserted, and before this chunk's own ids are reserved
+        if (maxExplicitId > 0) IdAllocator.EMPLOYEES.advancePast(maxExplicitId);
+        long nextId = missingIds > 0 ? IdAllocator.EMPLOYEES.reserve(missingIds) : 0;
+
+        Chunk chunk = new Chunk(rows.size());
+        for (SourceRow row : rows) {
+            List<String> errors = new ArrayList<>();
+            String[] v = row.values;
+
+            String id = v[ID];
+            if (id == null) {
+                id = String.valueOf(nextId++);
+            } else if (!ID_PATTERN.matcher(id).matches()) {
+                errors.add("Id must be a whole number");
+            }
+            int age = 0;
+            if (v[AGE] == null) {
+                errors.add("Age is required");
+            } else {
+                try {
+                    age = Integer.parseInt(v[AGE]);
+                } catch (NumberFormatException e) {
+                    errors.add("Age must be a whole number");
+                }
+            }
+            if (!errors.isEmpty()) {
+                chunk.rejections.add(new Rejection(row, String.join("; ", errors)));
+                continue;
+            }
+
+            EmployeeRecord employee = new EmployeeRecord(id, v[NAME], age, v[GENDER], v[PHONE], v[EMAIL], v[POSITION],
+                v[DEPARTMENT], v[SALARY], v[EDUCATION], v[ADDRESS], v[JOINING_DATE] != null ? v[JOINING_DATE] : today);
+            errors.addAll(EmployeeValidator.validate(employee));
+            if (errors.isEmpty()) {
+                chunk.employees.add(employee);
+                chunk.rows.add(row);
+            } else {
+                chunk.rejections.add(new Rejection(row, String.join("; ", errors)));
+            }
+        }
+        return chunk;
+    }
+
+    private static final class Chunk {
+        final List<EmployeeRecord> employees;
+        // Source row of each employee, for reporting rows the database refuses
+        final List<SourceRow> rows;
+        final List<Rejection> rejections = new ArrayList<>();
+
+        Chunk(int size) {
+            employees = new ArrayList<>(size);
+            rows = new ArrayList<>(size);
+        }
+    }
+
+    private static final class SourceRow {
+        final int line;
+        // Trimmed values in FIELDS order; null for columns the file lacks or leaves empty
+        final String[] values;
+
+        SourceRow(int line, String[] values) {
+            this.line = line;
+            this.values = values;
+        }
+    }
+
+    private static final class Rejection {
+        final SourceRow row;
+        final String reason;
+
+        Rejection(SourceRow row, String reason) {
+            this.row = row;
+            this.reason = reason;
+        }
+    }
+
+    // Rejected rows as CSV: line, reason, then the row's values; the file is only created if needed
+    private static final class RejectReport implements Closeable {
+        final File file;
+        long count;
+        private Writer out;
+
+        RejectReport(File file) {
+            this.file = file;
+        }
+
+        void add(Rejection rejection) throws IOException {
+            if (out == null) {
+                out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8));
+                out.write("line,reason," + String.join(",", FIELDS) + "\n");
+            }
+            out.write(String.valueOf(rejection.row.line));
+            out.write(',');
+            out.write(quote(rejection.reason));
+            for (String value : rejection.row.values) {
+                out.write(',');
+                if (value != null) out.write(quote(value));
+            }
+            out.write('\n');
+            count++;
+        }
+
+        private static String quote(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (out != null) out.close();
+        }
+    }
+
+    // JSON when the first character is '[' or '{', CSV otherwise
+    private static RowSource openSource(InputStream input) throws IOException {
+        Text text = new Text(new InputStreamReader(input, StandardCharsets.UTF_8));
+        if (text.peek() == '\uFEFF') text.read();
+        text.skipWhitespace();
+        int first = text.peek();
+        return first == '[' || first == '{' ? new JsonSource(text) : new CsvSource(text);
+    }
+
+    // Index of an employee column by the name a file uses for it ("Joining Date" = joining_date), or -1
+    private static int fieldIndex(String name) {
+        String normalized = name.trim().toLowerCase().replace(' ', '_').replace('-', '_');
+        for (int i = 0; i < FIELDS.length; i++) {
+            if (FIELDS[i].equals(normalized)) return i;
+        }
+        return -1;
+    }
+
+    private static String clean(String value) {
+        if (value == null) return null;
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private interface RowSource extends Closeable {
+        // Next row, or null at the end of the file
+        SourceRow next() throws IOException;
+    }
+
+    // Buffered character input that tracks line numbers; faster than BufferedReader.read() per char
+    private static final class Text implements Closeable {
+        private final Reader in;
+        private final char[] buffer = new char[64 * 1024];
+        private int position;
+        private int limit;
+        int line = 1;
+
+        Text(Reader in) {
+            this.in = in;
+        }
+
+        int peek() throws IOException {
+            if (position == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position];
+        }
+
+        int read() throws IOException {
+            int c = peek();
+            if (c >= 0) {
+                position++;
+                if (c == '\n') line++;
+            }
+            return c;
+        }
+
+        void skipWhitespace() throws IOException {
+            while (true) {
+                int c = peek();
+                if (c != ' ' && c != '\t' && c != '\r' && c != '\n') return;
+                read();
+            }
+        }
+
+        IOException error(String message) {
+            return new IOException(message + " at line " + line);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    // RFC 4180 style: comma separated, double quotes around values containing commas, quotes or newlines
+    private static final class CsvSource implements RowSource {
+        private final Text text;
+        // Employee column of each file column, -1 for columns that aren't imported
+        private final int[] columns;
+        private final StringBuilder value = new StringBuilder();
+
+        CsvSource(Text text) throws IOException {
+            this.text = text;
+            List<String> header = readRecord();
+            if (header == null) throw new IOException("The file is empty");
+            columns = new int[header.size()];
+            boolean any = false;
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = fieldIndex(header.get(i));
+                any |= columns[i] >= 0;
+            }
+            if (!any) throw new IOException("The header row names none of the columns " + String.join(", ", FIELDS));
+        }
+
+        @Override
+        public SourceRow next() throws IOException {
+            while (true) {
+                int line = text.line;
+                List<String> record = readRecord();
+                if (record == null) return null;
+                if (record.size() == 1 && record.get(0).isEmpty()) continue;
+
+                String[] values = new String[FIELDS.length];
+                for (int i = 0; i < record.size() && i < columns.length; i++) {
+                    if (columns[i] >= 0) values[columns[i]] = clean(record.get(i));
+                }
+                return new SourceRow(line, values);
+            }
+        }
+
+        // One record's values, or null at the end of the input
+        private List<String> readRecord() throws IOException {
+            if (text.peek() < 0) return null;
+            List<String> record = new ArrayList<>(FIELDS.length);
+            value.setLength(0);
+            boolean quoted = false;
+            while (true) {
+                int c = text.read();
+                if (quoted) {
+                    if (c < 0) throw text.error("Unterminated quoted value");
+                    if (c == '"') {
+                        if (text.peek() == '"') {
+                            text.read();
+                            value.append('"');
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        value.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    record.add(value.toString());
+                    value.setLength(0);
+                } else if (c == '\r' || c == '\n' || c < 0) {
+                    if (c == '\r' && text.peek() == '\n') text.read();
+                    record.add(value.toString());
+                    return record;
+                } else {
+                    value.append((char) c);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            text.close();
+        }
+    }
+
+    // An array of flat objects, or objects one after another (JSON Lines); string, number, boolean and null values
+    private static final class JsonSource implements RowSource {
+        private final Text text;
+        private final StringBuilder value = new StringBuilder();
+        private boolean inArray;
+
+        JsonSource(Text text) throws IOException {
+            this.text = text;
+            if (text.peek() == '[') {
+                text.read();
+                inArray = true;
+            }
+        }
+
+        @Override
+        public SourceRow next() throws IOException {
+            text.skipWhitespace();
+            int c = text.peek();
+            if (inArray && c == ',') {
+                text.read();
+                text.skipWhitespace();
+                c = text.peek();
+            }
+            if (inArray && c == ']') {
+                text.read();
+                text.skipWhitespace();
+                if (text.peek() >= 0) throw text.error("Unexpected content after the array");
+                return null;
+            }
+            if (c < 0) {
+                if (inArray) throw text.error("Unterminated array");
+                return null;
+            }
+            if (c != '{') throw text.error("Expected an object");
+
+            int line = text.line;
+            text.read();
+            String[] values = new String[FIELDS.length];
+            text.skipWhitespace();
+            if (text.peek() == '}') {
+                text.read();
+                return new SourceRow(line, values);
+            }
+            while (true) {
+                text.skipWhitespace();
+                if (text.peek() != '"') throw text.error("Expected a field name");
+                int field = fieldIndex(readString());
+                text.skipWhitespace();
+                if (text.read() != ':') throw text.error("Expected ':'");
+                text.skipWhitespace();
+                String fieldValue = readValue();
+                if (field >= 0) values[field] = clean(fieldValue);
+                text.skipWhitespace();
+                int separator = text.read();
+                if (separator == '}') return new SourceRow(line, values);
+                if (separator != ',') throw text.error("Expected ',' or '}'");
+            }
+        }
+
+        private String readValue() throws IOException {
+            int c = text.peek();
+            if (c == '"') return readString();
+            if (c == '{' || c == '[') throw text.error("Nested objects and arrays are not supported");
+            value.setLength(0);
+            while (true) {
+                c = text.peek();
+                if (c < 0 || c == ',' || c == '}' || c == ']' || c == ' ' || c == '\t' || c == '\r' || c == '\n') break;
+                value.append((char) text.read());
+            }
+            String literal = value.toString();
+            if (literal.equals("null")) return null;
+            if (literal.isEmpty()) throw text.error("Expected a value");
+            return literal;
+        }
+
+        private String readString() throws IOException {
+            text.read();
+            value.setLength(0);
+            while (true) {
+                int c = text.read();
+                if (c < 0) throw text.error("Unterminated string");
+                if (c == '"') return value.toString();
+                if (c != '\\') {
+                    value.append((char) c);
+                    continue;
+                }
+                int escaped = text.read();
+                switch (escaped) {
+                    case '"': case '\\': case '/': value.append((char) escaped); break;
+                    case 'b': value.append('\b'); break;
+                    case 'f': value.append('\f'); break;
+                    case 'n': value.append('\n'); break;
+                    case 'r': value.append('\r'); break;
+                    case 't': value.append('\t'); break;
+                    case 'u':
+                        char[] hex = new char[4];
+                        for (int i = 0; i < 4; i++) {
+                            int h = text.read();
+                            if (h < 0) throw text.error("Unterminated string");
+                            hex[i] = (char) h;
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(new String(hex), 16));
+                        } catch (NumberFormatException e) {
+                            throw text.error("Invalid escape \\u" + new String(hex));
+                        }
+                        break;
+                    default:
+                        throw text.error("Invalid escape");
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            text.close();
+        }
+    }
+
+    // Bytes read so far, for progress; read by the importing thread while the reader thread counts
+    private static final class CountingInputStream extends FilterInputStream {
+        volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+    }
+}
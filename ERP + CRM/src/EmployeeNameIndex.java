@@ -0,0 +1,173 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Prefix index over employee ids and names for pickers.
+ *
+ * Every employee contributes one key per word of its name plus one for its id; a key is a position
+ * in the employee's lower-cased "id name" text, packed with the employee's number into a long.
+ * The keys are sorted by the text from that position on, so the employees matching a prefix are one
+ * contiguous run found by binary search: "ann" finds "Anna Smith" and "Bob Annan", "12" finds
+ * employee 12 and 120-129. A lookup costs a few microseconds however many employees there are.
+ *
+ * Immutable; build it off the EDT with of() and replace it when the employee list changes.
+ */
+public class EmployeeNameIndex {
+
+    // Separates the id from the name in an employee's text, so no prefix runs from one into the other
+    private static final char ID_END = '\u0001';
+
+    // Last index built, reused while EmployeeDirectory hands out the same list
+    private static volatile EmployeeNameIndex latest;
+
+    private final List<EmployeeRecord.Ref> source;
+    private final EmployeeRecord.Ref[] refs;
+    private final String[] texts;
+    // (employee << 32) | offset into its text, in order of the text from offset on
+    private final long[] keys;
+
+    private EmployeeNameIndex(List<EmployeeRecord.Ref> source) {
+        this.source = source;
+        this.refs = source.toArray(new EmployeeRecord.Ref[0]);
+        this.texts = new String[refs.length];
+
+        long[] keys = new long[refs.length * 3];
+        int count = 0;
+        for (int i = 0; i < refs.length; i++) {
+            String name = refs[i].getName() == null ? "" : refs[i].getName().toLowerCase();
+            String text = refs[i].getId() + ID_END + name;
+            texts[i] = text;
+            int nameStart = text.length() - name.length();
+            for (int offset = 0; offset < text.length(); offset++) {
+                boolean wordStart = offset == 0 || offset >= nameStart
+                    && Character.isLetterOrDigit(text.charAt(offset))
+                    && (offset == nameStart || !Character.isLetterOrDigit(text.charAt(offset - 1)));
+                if (!wordStart) continue;
+                if (count == keys.length) keys = Arrays.copyOf(keys, count * 2);
+                keys[count++] = (long) i << 32 | offset;
+            }
+        }
+        this.keys = Arrays.copyOf(keys, count);
+        sort(this.keys, new long[count], 0, count);
+    }
+
+    /** Index over the given employees, in the list's order for equal keys; cached for the same list. */
+    public static EmployeeNameIndex of(List<EmployeeRecord.Ref> refs) {
+        EmployeeNameIndex current = latest;
+        if (current != null && current.source == refs) return current;
+        current = new EmployeeNameIndex(refs);
+        latest = current;
+        return current;
+    }
+
+    public int size() {
+        return refs.length;
+    }
+
+    /**
+     * Up to limit employees with a word of the name, or the id, starting with prefix (ignoring
+     * case). An empty prefix returns the first employees of the list.
+     */
+    public List<EmployeeRecord.Ref> match(String prefix, int limit) {
+        List<EmployeeRecord.Ref> matches = new ArrayList<>(Math.min(limit, 32));
+        String wanted = prefix.trim().toLowerCase();
+        if (wanted.isEmpty()) {
+            for (int i = 0; i < refs.length && matches.size() < limit; i++) {
+                matches.add(refs[i]);
+            }
+            return matches;
+        }
+
+        // An employee can match on several words; the few already taken are checked linearly
+        int[] taken = new int[limit];
+        for (int k = lowerBound(wanted); k < keys.length && matches.size() < limit; k++) {
+            int employee = (int) (keys[k] >>> 32);
+            int offset = (int) keys[k];
+            if (!texts[employee].startsWith(wanted, offset)) break;
+            if (contains(taken, matches.size(), employee)) continue;
+            taken[matches.size()] = employee;
+            matches.add(refs[employee]);
+        }
+        return matches;
+    }
+
+    /** Whether match(prefix) would find the employee: its id, or a word of its name, starts with prefix. */
+    public static boolean matches(EmployeeRecord.Ref employee, String prefix) {
+        String wanted = prefix.trim().toLowerCase();
+        if (employee.getId().startsWith(wanted)) return true;
+        String name = employee.getName() == null ? "" : employee.getName().toLowerCase();
+        for (int offset = 0; offset < name.length(); offset++) {
+            boolean wordStart = Character.isLetterOrDigit(name.charAt(offset))
+                && (offset == 0 || !Character.isLetterOrDigit(name.charAt(offset - 1)));
+            if (wordStart && name.startsWith(wanted, offset)) return true;
+        }
+        return false;
+    }
+
+    // First key whose text is not less than prefix
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(keys[mid], prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int compare(long key, String prefix) {
+        String text = texts[(int) (key >>> 32)];
+        int offset = (int) key;
+        int length = Math.min(text.length() - offset, prefix.length());
+        for (int i = 0; i < length; i++) {
+            int diff = text.charAt(offset + i) - prefix.charAt(i);
+            if (diff != 0) return diff;
+        }
+        return (text.length() - offset) - prefix.length() < 0 ? -1 : 0;
+    }
+
+    private int compare(long a, long b) {
+        String textA = texts[(int) (a >>> 32)];
+        String textB = texts[(int) (b >>> 32)];
+        int offsetA = (int) a;
+        int offsetB = (int) b;
+        int length = Math.min(textA.length() - offsetA, textB.length() - offsetB);
+        for (int i = 0; i < length; i++) {
+            int diff = textA.charAt(offsetA + i) - textB.charAt(offsetB + i);
+            if (diff != 0) return diff;
+        }
+        int diff = (textA.length() - offsetA) - (textB.length() - offsetB);
+        return diff != 0 ? diff : Long.compare(a, b);
+    }
+
+    // Merge sort on the packed keys, so sorting doesn't box a Long per key
+    private void sort(long[] keys, long[] scratch, int from, int to) {
+        if (to - from < 2) return;
+        int mid = (from + to) >>> 1;
+        sort(keys, scratch, from, mid);
+        sort(keys, scratch, mid, to);
+        if (compare(keys[mid - 1], keys[mid]) <= 0) return;
+        System.arraycopy(keys, from, scratch, from, to - from);
+        int left = from;
+        int right = mid;
+        for (int i = from; i < to; i++) {
+            if (right >= to || left < mid && compare(scratch[left], scratch[right]) <= 0) {
+                keys[i] = scratch[left++];
+            } else {
+                keys[i] = scratch[right++];
+            }
+        }
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) return true;
+        }
+        return false;
+    }
+}
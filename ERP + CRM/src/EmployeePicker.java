@@ -0,0 +1,299 @@
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import javax.swing.AbstractListModel;
+import javax.swing.ComboBoxEditor;
+import javax.swing.ComboBoxModel;
+import javax.swing.JComboBox;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.JTextComponent;
+
+/**
+ * Type-ahead employee picker. Instead of one combo item per employee, the list holds the first
+ * MAX_MATCHES employees whose name (any word of it) or id starts with what has been typed, looked
+ * up in an EmployeeNameIndex on every keystroke. Typing that the index can't answer - it is still
+ * loading, or the employee was added by another client since - falls back to a prefix query once
+ * typing pauses. Employees added or removed in the meantime can be applied one at a time with
+ * employeeAdded() and employeeRemoved(), which leave the index alone until the next reload().
+ *
+ * The first item is a fixed placeholder ("All Employees", "-- Select Employee --") that is selected
+ * while the field is empty. Selection changes fire ItemEvents as with any combo box; read the
+ * choice with getSelectedEmployee(). Must only be used on the EDT.
+ */
+public class EmployeePicker extends JComboBox<EmployeeRecord.Ref> {
+
+    public static final int MAX_MATCHES = 20;
+
+    private final QueryScope scope;
+    private final EmployeeRecord.Ref placeholder;
+    private final MatchModel matches = new MatchModel();
+    private final JTextComponent field;
+    private final SearchPipeline fallback;
+
+    private EmployeeNameIndex index;
+    // Changes since the index was built, laid over its matches until a reload() includes them
+    private final Map<String, EmployeeRecord.Ref> added = new LinkedHashMap<>();
+    private final Set<String> removed = new HashSet<>();
+    // Set while the list or the field is changed by the picker rather than by typing
+    private boolean adjusting;
+    private String typed = "";
+
+    public EmployeePicker(QueryScope scope, EmployeeRecord.Ref placeholder) {
+        this.scope = scope;
+        this.placeholder = placeholder;
+        setModel(matches);
+        setEditable(true);
+        setMaximumRowCount(MAX_MATCHES);
+
+        field = (JTextComponent) getEditor().getEditorComponent();
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                textChanged();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                textChanged();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+        fallback = new SearchPipeline(field, scope, this::prepareFallback);
+        // The field shows the selection; focusing it selects the text so typing replaces it
+        field.addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusGained(FocusEvent e) {
+                field.selectAll();
+            }
+        });
+
+        showMatches("");
+        setSelectedItem(placeholder);
+    }
+
+    /**
+     * Reloads the employees from EmployeeDirectory and rebuilds the index in the background; the
+     * future completes with the number of employees, after the picker has switched to them.
+     */
+    public CompletableFuture<Integer> reload() {
+        // The directory already holds the changes applied so far, so the new index will too
+        Map<String, EmployeeRecord.Ref> addedBefore = new HashMap<>(added);
+        Set<String> removedBefore = new HashSet<>(removed);
+        CompletableFuture<EmployeeNameIndex> loaded = scope.submit(() -> EmployeeNameIndex.of(EmployeeDirectory.refs()));
+        CompletableFuture<Integer> count = new CompletableFuture<>();
+        loaded.whenComplete(scope.onEdt((loadedIndex, error) -> {
+            if (error != null) {
+                count.completeExceptionally(error);
+                return;
+            }
+            index = loadedIndex;
+            added.entrySet().removeIf(entry -> addedBefore.get(entry.getKey()) == entry.getValue());
+            removed.removeAll(removedBefore);
+            showMatches(typed);
+            count.complete(loadedIndex.size());
+        }));
+        return count;
+    }
+
+    /** Lists an employee added, or renamed, since the last reload(). */
+    public void employeeAdded(EmployeeRecord.Ref employee) {
+        removed.remove(employee.getId());
+        added.put(employee.getId(), employee);
+        showMatches(typed);
+    }
+
+    /** Stops listing an employee removed since the last reload(); the placeholder is selected if it was chosen. */
+    public void employeeRemoved(String id) {
+        added.remove(id);
+        removed.add(id);
+        EmployeeRecord.Ref selected = getSelectedEmployee();
+        if (selected != null && selected.getId().equals(id)) {
+            clearSelection();
+        } else {
+            showMatches(typed);
+        }
+    }
+
+    /** The chosen employee, or null while the placeholder is selected. */
+    public EmployeeRecord.Ref getSelectedEmployee() {
+        Object selected = getSelectedItem();
+        return selected instanceof EmployeeRecord.Ref && selected != placeholder ? (EmployeeRecord.Ref) selected : null;
+    }
+
+    /**
+     * Ids of up to count employees after and count before the selection in the list, nearest first;
+     * empty when nothing in the list is selected. For prefetching what arrowing through the list
+     * will select next.
+     */
+    public List<String> getNeighbourIds(int count) {
+        List<EmployeeRecord.Ref> items = matches.items;
+        int selected = items.indexOf(getSelectedEmployee());
+        if (selected < 0) return Collections.emptyList();
+        List<String> ids = new ArrayList<>(count * 2);
+        for (int distance = 1; distance <= count; distance++) {
+            for (int index : new int[]{selected + distance, selected - distance}) {
+                if (index >= 0 && index < items.size() && items.get(index) != placeholder) {
+                    ids.add(items.get(index).getId());
+                }
+            }
+        }
+        return ids;
+    }
+
+    /** Selects the placeholder and clears the field. */
+    public void clearSelection() {
+        typed = "";
+        showMatches("");
+        setSelectedItem(placeholder);
+    }
+
+    /** Stops a pending or running fallback query; call from dispose(). */
+    public void cancel() {
+        fallback.cancel();
+    }
+
+    // Selecting an item writes it into the field; that isn't typing, so it mustn't start a search
+    @Override
+    public void setSelectedItem(Object item) {
+        boolean wasAdjusting = adjusting;
+        adjusting = true;
+        try {
+            super.setSelectedItem(item);
+        } finally {
+            adjusting = wasAdjusting;
+        }
+    }
+
+    // The UI rewrites the field from the selection whenever the list changes; keep what was typed
+    @Override
+    public void configureEditor(ComboBoxEditor editor, Object item) {
+        // Also called from JComboBox's constructor, before this class's fields are set
+        if (matches != null && matches.replacing) return;
+        boolean wasAdjusting = adjusting;
+        adjusting = true;
+        try {
+            super.configureEditor(editor, item);
+        } finally {
+            adjusting = wasAdjusting;
+        }
+    }
+
+    private void textChanged() {
+        if (adjusting) return;
+        typed = field.getText().trim();
+        showMatches(typed);
+        if (field.isFocusOwner() && isShowing()) {
+            // Re-open so the popup is sized to the new list
+            setPopupVisible(false);
+            setPopupVisible(matches.getSize() > 0);
+        }
+    }
+
+    private void showMatches(String text) {
+        List<EmployeeRecord.Ref> found = new ArrayList<>(MAX_MATCHES);
+        if (index != null) {
+            for (EmployeeRecord.Ref employee : index.match(text, MAX_MATCHES + removed.size() + added.size())) {
+                if (found.size() == MAX_MATCHES) break;
+                if (!removed.contains(employee.getId()) && !added.containsKey(employee.getId())) found.add(employee);
+            }
+        }
+        for (EmployeeRecord.Ref employee : added.values()) {
+            if (found.size() == MAX_MATCHES) break;
+            if (EmployeeNameIndex.matches(employee, text)) found.add(employee);
+        }
+        setMatches(text, found);
+    }
+
+    private void setMatches(String text, List<EmployeeRecord.Ref> found) {
+        List<EmployeeRecord.Ref> items = new ArrayList<>(found.size() + 1);
+        if (text.isEmpty()) items.add(placeholder);
+        items.addAll(found);
+        matches.replace(items);
+    }
+
+    // Runs once typing pauses; only asks the database when the index had nothing for the text
+    private DbExecutor.DbCall<Runnable> prepareFallback(String text, SearchPipeline.Run run) {
+        if (text.isEmpty() || !text.equals(typed)) return null;
+        if (index != null && !index.match(text, 1).isEmpty()) return null;
+        return () -> {
+            List<EmployeeRecord.Ref> found = new EmployeeRepository().findRefsByPrefix(text, MAX_MATCHES);
+            return () -> {
+                if (!text.equals(typed) || found.isEmpty()) return;
+                setMatches(text, found);
+                if (field.isFocusOwner() && isShowing()) {
+                    setPopupVisible(false);
+                    setPopupVisible(true);
+                }
+            };
+        };
+    }
+
+    /**
+     * Current matches plus the selection. Text committed from the field (Enter, focus loss) selects
+     * the item it names or the first match; text that matches nothing keeps the previous selection.
+     */
+    private final class MatchModel extends AbstractListModel<EmployeeRecord.Ref> implements ComboBoxModel<EmployeeRecord.Ref> {
+        private List<EmployeeRecord.Ref> items = Collections.emptyList();
+        private Object selected;
+        boolean replacing;
+
+        void replace(List<EmployeeRecord.Ref> newItems) {
+            int oldSize = items.size();
+            replacing = true;
+            try {
+                items = newItems;
+                if (oldSize > 0) fireIntervalRemoved(this, 0, oldSize - 1);
+                if (!newItems.isEmpty()) fireIntervalAdded(this, 0, newItems.size() - 1);
+            } finally {
+                replacing = false;
+            }
+        }
+
+        @Override
+        public int getSize() {
+            return items.size();
+        }
+
+        @Override
+        public EmployeeRecord.Ref getElementAt(int index) {
+            return items.get(index);
+        }
+
+        @Override
+        public Object getSelectedItem() {
+            return selected;
+        }
+
+        @Override
+        public void setSelectedItem(Object item) {
+            if (item instanceof String) item = resolve(((String) item).trim());
+            if (item != null) selected = item;
+            // Always fired, so the field is rewritten to the selection even when it didn't change
+            fireContentsChanged(this, -1, -1);
+        }
+
+        private Object resolve(String text) {
+            if (text.isEmpty()) return placeholder;
+            if (selected != null && text.equals(selected.toString())) return selected;
+            for (EmployeeRecord.Ref item : items) {
+                if (item != placeholder && text.equals(item.toString())) return item;
+            }
+            for (EmployeeRecord.Ref item : items) {
+                if (item != placeholder) return item;
+            }
+            return null;
+        }
+    }
+}
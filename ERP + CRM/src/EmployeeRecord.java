@@ -0,0 +1,135 @@
+import java.util.Objects;
+
+/**
+ * Immutable row of the employee table. Values are kept as the screens display them
+ * (salary and joining date are stored as entered).
+ */
+public final class EmployeeRecord {
+
+    private final String id;
+    private final String name;
+    private final int age;
+    private final String gender;
+    private final String phone;
+    private final String email;
+    private final String position;
+    private final String department;
+    private final String salary;
+    private final String education;
+    private final String address;
+    private final String joiningDate;
+    // Incremented by every update; 0 for records not read from the database
+    private final int version;
+
+    public EmployeeRecord(String id, String name, int age, String gender, String phone, String email,
+                          String position, String department, String salary, String education,
+                          String address, String joiningDate) {
+        this(id, name, age, gender, phone, email, position, department, salary, education, address, joiningDate, 0);
+    }
+
+    public EmployeeRecord(String id, String name, int age, String gender, String phone, String email,
+                          String position, String department, String salary, String education,
+                          String address, String joiningDate, int version) {
+        this.id = id;
+        this.name = name;
+        this.age = age;
+        this.gender = gender;
+        this.phone = phone;
+        this.email = email;
+        this.position = position;
+        this.department = department;
+        this.salary = salary;
+        this.education = education;
+        this.address = address;
+        this.joiningDate = joiningDate;
+        this.version = version;
+    }
+
+    public String getId() { return id; }
+    public String getName() { return name; }
+    public int getAge() { return age; }
+    public String getGender() { return gender; }
+    public String getPhone() { return phone; }
+    public String getEmail() { return email; }
+    public String getPosition() { return position; }
+    public String getDepartment() { return department; }
+    public String getSalary() { return salary; }
+    public String getEducation() { return education; }
+    public String getAddress() { return address; }
+    public String getJoiningDate() { return joiningDate; }
+    public int getVersion() { return version; }
+
+    public EmployeeRecord withVersion(int version) {
+        return new EmployeeRecord(id, name, age, gender, phone, email, position, department, salary, education,
+            address, joiningDate, version);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof EmployeeRecord)) return false;
+        EmployeeRecord other = (EmployeeRecord) o;
+        return age == other.age && version == other.version && Objects.equals(id, other.id) && Objects.equals(name, other.name)
+            && Objects.equals(gender, other.gender) && Objects.equals(phone, other.phone)
+            && Objects.equals(email, other.email) && Objects.equals(position, other.position)
+            && Objects.equals(department, other.department) && Objects.equals(salary, other.salary)
+            && Objects.equals(education, other.education) && Objects.equals(address, other.address)
+            && Objects.equals(joiningDate, other.joiningDate);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, age, gender, phone, email, position, department, salary,
+            education, address, joiningDate, version);
+    }
+
+    @Override
+    public String toString() {
+        return id + " - " + name;
+    }
+
+    // id + name projection for pickers and combo boxes
+    public static final class Ref {
+        private final String id;
+        private final String name;
+
+        public Ref(String id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public String getId() { return id; }
+        public String getName() { return name; }
+
+        @Override
+        public String toString() {
+            return id + " - " + name;
+        }
+    }
+
+    // Contact/organisation projection used by reports and task assignment
+    public static final class Summary {
+        private final String id;
+        private final String name;
+        private final String department;
+        private final String position;
+        private final String email;
+        private final String phone;
+
+        public Summary(String id, String name, String department, String position, String email, String phone) {
+            this.id = id;
+            this.name = name;
+            this.department = department;
+            this.position = position;
+            this.email = email;
+            this.phone = phone;
+        }
+
+        public String getId() { return id; }
+        public String getName() { return name; }
+        public String getDepartment() { return department; }
+        public String getPosition() { return position; }
+        public String getEmail() { return email; }
+        public String getPhone() { return phone; }
+    }
+}
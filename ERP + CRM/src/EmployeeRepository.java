@@ -0,0 +1,650 @@
+import java.sql.ResultSet;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * All SQL against the employee table. Screens ask for the projection they display instead of
+ * SELECT *, and list access goes through keyset pagination (WHERE id > ? ORDER BY id) so a page
+ * costs the same no matter how deep it is. Writes are passed on to EmployeeDirectory and
+ * EmployeeSearchIndex once they have been applied, so the in-memory copies never lag behind this
+ * process's own changes, and published as DomainEvents so open screens can patch their rows. Quick
+ * searches match text anywhere in any column; they are answered from EmployeeSearchIndex when it is
+ * built, otherwise by LIKE, with the same result either way.
+ */
+public class EmployeeRepository {
+
+    static final String COLUMNS =
+        "id, name, age, gender, phone, email, position, department, salary, education, address, joining_date";
+
+    // COLUMNS plus the row version that optimistic updates check; what mapRecord reads
+    private static final String RECORD_COLUMNS = COLUMNS + ", version";
+
+    private static final String INSERT = "INSERT INTO employee (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Employees queued in employee_removal are gone as far as every listing and lookup is concerned,
+    // though EmployeeArchiver may not have moved them to the archive yet
+    static final String LIVE = "NOT EXISTS (SELECT 1 FROM employee_removal r WHERE r.employee_id = employee.id)";
+
+    // Copies one employee to the archive before it is deleted
+    private static final String ARCHIVE = "INSERT INTO employee_archive (" + COLUMNS + ") SELECT " + COLUMNS +
+        " FROM employee WHERE id = ?";
+
+    // Columns a paged listing can be sorted by, with a NULL-free expression so keyset comparisons work
+    private static final Map<String, String> SORT_EXPRESSIONS = new HashMap<>();
+    static {
+        for (String column : COLUMNS.split(", ")) {
+            SORT_EXPRESSIONS.put(column, column.equals("id") ? "id"
+                : column.equals("age") ? "COALESCE(age, 0)" : "COALESCE(" + column + ", '')");
+        }
+    }
+
+    // Quick search matches any column, as the table's client-side filter did; a full scan, so only used
+    // when EmployeeSearchIndex can't answer. The index gives the same rows, so removals and bulk updates
+    // by filter touch exactly what the table showed
+    private static final String TEXT_MATCH = "(CONCAT(id, '') LIKE ? OR LOWER(name) LIKE ? OR CONCAT(age, '') LIKE ? " +
+        "OR LOWER(gender) LIKE ? OR LOWER(phone) LIKE ? OR LOWER(email) LIKE ? OR LOWER(position) LIKE ? " +
+        "OR LOWER(department) LIKE ? OR LOWER(salary) LIKE ? OR LOWER(education) LIKE ? OR LOWER(address) LIKE ? " +
+        "OR LOWER(joining_date) LIKE ?)";
+
+    // Ids per JDBC batch when queueing a removal
+    private static final int REMOVAL_CHUNK = 1000;
+
+    // Quick searches with more index matches than this are left to TEXT_MATCH rather than sent as an IN list
+    private static final int MAX_INDEXED_MATCHES = 512;
+
+    private final JdbcProfile profile;
+
+    public EmployeeRepository() {
+        this(JdbcProfile.INTERACTIVE);
+    }
+
+    public EmployeeRepository(JdbcProfile profile) {
+        this.profile = profile;
+    }
+
+    public EmployeeRecord findById(String id) throws SQLException {
+        return executor().queryFirst("SELECT " + RECORD_COLUMNS + " FROM employee WHERE id = ? AND " + LIVE,
+            EmployeeRepository::mapRecord, id);
+    }
+
+    // Full rows for the ids in one query; ids not found are left out
+    public List<EmployeeRecord> findByIds(List<String> ids) throws SQLException {
+        if (ids.isEmpty()) return Collections.emptyList();
+        List<Object> params = new ArrayList<>();
+        String in = idIn(ids, params);
+        return executor().query("SELECT " + RECORD_COLUMNS + " FROM employee WHERE " + in + " AND " + LIVE, EmployeeRepository::mapRecord,
+            params.toArray());
+    }
+
+    /** Next page of full rows after the given id (null for the first page), in id order. */
+    public List<EmployeeRecord> findPage(String afterId, int limit) throws SQLException {
+        if (afterId == null) {
+            return executor().query("SELECT " + RECORD_COLUMNS + " FROM employee WHERE " + LIVE + " ORDER BY id LIMIT ?",
+                EmployeeRepository::mapRecord, limit);
+        }
+        return executor().query("SELECT " + RECORD_COLUMNS + " FROM employee WHERE id > ? AND " + LIVE + " ORDER BY id LIMIT ?",
+            EmployeeRepository::mapRecord, afterId, limit);
+    }
+
+    public int count(Filter filter) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String where = where(filter, params, null);
+        Integer total = executor().queryFirst("SELECT COUNT(*) FROM employee" + where, rs -> rs.getInt(1), params.toArray());
+        return total == null ? 0 : total;
+    }
+
+    /**
+     * Next page of rows matching the filter in the given order, after the given row (null for the
+     * first page). Ties on the sort column are broken by id, which is also the keyset.
+     */
+    public List<EmployeeRecord> findPage(Filter filter, String sortColumn, boolean ascending, EmployeeRecord after,
+                                         int limit) throws SQLException {
+        String expression = sortExpression(sortColumn);
+        List<Object> params = new ArrayList<>();
+        String keyset = null;
+        if (after != null) {
+            String op = ascending ? ">" : "<";
+            if (expression.equals("id")) {
+                keyset = "id " + op + " ?";
+            } else {
+                keyset = "(" + expression + " " + op + " ? OR (" + expression + " = ? AND id " + op + " ?))";
+                Object value = sortValue(after, sortColumn);
+                params.add(value);
+                params.add(value);
+            }
+            params.add(after.getId());
+        }
+        List<Object> filterParams = new ArrayList<>();
+        String where = where(filter, filterParams, keyset);
+        filterParams.addAll(params);
+        filterParams.add(limit);
+        return executor().query("SELECT " + RECORD_COLUMNS + " FROM employee" + where + orderBy(expression, ascending) + " LIMIT ?",
+            EmployeeRepository::mapRecord, filterParams.toArray());
+    }
+
+    // Page at an arbitrary position, for jumps past pages whose keyset isn't known yet
+    public List<EmployeeRecord> findPageAt(Filter filter, String sortColumn, boolean ascending, int offset,
+                                           int limit) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String where = where(filter, params, null);
+        params.add(limit);
+        params.add(offset);
+        return executor().query("SELECT " + RECORD_COLUMNS + " FROM employee" + where +
+            orderBy(sortExpression(sortColumn), ascending) + " LIMIT ? OFFSET ?", EmployeeRepository::mapRecord, params.toArray());
+    }
+
+    /**
+     * Every row matching the filter in the given order, read straight into a column store instead of
+     * one object per row; used where a whole (possibly very large) result is held, like print and export.
+     */
+    public ColumnarTableModel findMatchingColumns(Filter filter, String sortColumn, boolean ascending) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String where = where(filter, params, null);
+        return executor().queryResult("SELECT " + COLUMNS + " FROM employee" + where + orderBy(sortExpression(sortColumn), ascending),
+            rs -> columnsBuilder().read(rs).build(), params.toArray());
+    }
+
+    // Column layout of employee rows in a ColumnarTableModel, in COLUMNS order
+    static ColumnarTableModel.Builder columnsBuilder() {
+        return new ColumnarTableModel.Builder()
+            .intColumn("id").textColumn("name").intColumn("age").dictionaryColumn("gender")
+            .textColumn("phone").textColumn("email").dictionaryColumn("position").dictionaryColumn("department")
+            .decimalColumn("salary").dictionaryColumn("education").textColumn("address").dictionaryColumn("joining_date");
+    }
+
+    /** Hands every row, in id order, to the handler as it is read instead of building a list. */
+    public <T> T scanAll(QueryExecutor.ResultSetHandler<T> handler) throws SQLException {
+        return executor().queryResult("SELECT " + RECORD_COLUMNS + " FROM employee WHERE " + LIVE + " ORDER BY id", handler);
+    }
+
+    public List<EmployeeRecord> findAll() throws SQLException {
+        return executor().query("SELECT " + RECORD_COLUMNS + " FROM employee WHERE " + LIVE + " ORDER BY id",
+            EmployeeRepository::mapRecord);
+    }
+
+    // id + name of every employee, ordered by name
+    public List<EmployeeRecord.Ref> findAllRefs() throws SQLException {
+        return executor().query("SELECT id, name FROM employee WHERE " + LIVE + " ORDER BY name", EmployeeRepository::mapRef);
+    }
+
+    // Up to limit employees whose name starts with prefix, or whose id is prefix, ordered by name; a
+    // range scan of idx_employee_name, for pickers whose in-memory index missed
+    public List<EmployeeRecord.Ref> findRefsByPrefix(String prefix, int limit) throws SQLException {
+        String pattern = escapeLike(prefix) + "%";
+        if (prefix.matches("\\d{1,9}")) {
+            return executor().query("SELECT id, name FROM employee WHERE (id = ? OR name LIKE ?) AND " + LIVE +
+                " ORDER BY name LIMIT ?",
+                EmployeeRepository::mapRef, Integer.parseInt(prefix), pattern, limit);
+        }
+        return executor().query("SELECT id, name FROM employee WHERE name LIKE ? AND " + LIVE + " ORDER BY name LIMIT ?",
+            EmployeeRepository::mapRef, pattern, limit);
+    }
+
+    /** Summaries for one department, or for everyone when department is null or "All". */
+    public List<EmployeeRecord.Summary> findSummaries(String department) throws SQLException {
+        String query = "SELECT id, name, department, position, email, phone FROM employee WHERE " + LIVE;
+        if (department == null || "All".equals(department)) {
+            return executor().query(query + " ORDER BY id", EmployeeRepository::mapSummary);
+        }
+        return executor().query(query + " AND department = ? ORDER BY id", EmployeeRepository::mapSummary, department);
+    }
+
+    public List<String> findDistinctPositions() throws SQLException {
+        return executor().query("SELECT DISTINCT position FROM employee WHERE position IS NOT NULL AND " + LIVE + " ORDER BY position",
+            rs -> rs.getString(1));
+    }
+
+    public List<String> findDistinctDepartments() throws SQLException {
+        return executor().query("SELECT DISTINCT department FROM employee WHERE department IS NOT NULL AND " + LIVE +
+            " ORDER BY department",
+            rs -> rs.getString(1));
+    }
+
+    // Head count and average salary per department
+    public List<DepartmentStats> findDepartmentStats() throws SQLException {
+        return executor().query("SELECT department, COUNT(*) AS emp_count, AVG(CAST(salary AS DECIMAL(12, 2))) AS avg_sal " +
+            "FROM employee WHERE " + LIVE + " GROUP BY department ORDER BY department",
+            rs -> new DepartmentStats(rs.getString("department"), rs.getInt("emp_count"), rs.getDouble("avg_sal")));
+    }
+
+    public int count() throws SQLException {
+        Integer total = executor().queryFirst("SELECT COUNT(*) FROM employee WHERE " + LIVE, rs -> rs.getInt(1));
+        return total == null ? 0 : total;
+    }
+
+    public int insert(EmployeeRecord employee) throws SQLException {
+        int count = executor().update(INSERT, insertParams(employee));
+        if (count > 0) {
+            audit(AuditTrail.ADD, null, employee);
+            EmployeeDirectory.added(employee);
+            EmployeeSearchIndex.added(employee);
+            DomainEvents.publish(new DomainEvents.EmployeeAdded(employee));
+        }
+        return count;
+    }
+
+    // Inserts the employees and their ADD audit entries, the same ones insert() records, in one transaction
+    public int[] insertAll(Collection<EmployeeRecord> employees) throws SQLException {
+        List<Object[]> rows = new ArrayList<>(employees.size());
+        List<Object[]> entries = new ArrayList<>();
+        for (EmployeeRecord employee : employees) {
+            rows.add(insertParams(employee));
+            entries.addAll(auditEntries(AuditTrail.ADD, null, employee));
+        }
+        int[] counts = executor().inTransaction(transaction -> {
+            int[] inserted = transaction.batch(INSERT, rows);
+            transaction.batch(AuditTrail.INSERT, entries);
+            return inserted;
+        });
+        bulkChanged();
+        return counts;
+    }
+
+    /**
+     * Inserts the employees as one transaction, for bulk imports. If the batch is refused because of
+     * a bad row (duplicate id, value too long) it is rolled back and the rows are inserted one at a
+     * time, so only the offending rows are lost; their errors are returned by position in the list.
+     * Other failures (connection lost, cancelled) are thrown. Each inserted row gets the ADD audit
+     * entries insert() would record, written in the same transaction. In-memory copies and open
+     * screens are not told; call bulkChanged() once the import is over.
+     */
+    public Map<Integer, SQLException> importAll(List<EmployeeRecord> employees) throws SQLException {
+        List<Object[]> rows = new ArrayList<>(employees.size());
+        List<List<Object[]>> rowEntries = new ArrayList<>(employees.size());
+        List<Object[]> entries = new ArrayList<>();
+        for (EmployeeRecord employee : employees) {
+            rows.add(insertParams(employee));
+            rowEntries.add(auditEntries(AuditTrail.ADD, null, employee));
+            entries.addAll(rowEntries.get(rowEntries.size() - 1));
+        }
+        try {
+            executor().inTransaction(transaction -> {
+                transaction.batch(INSERT, rows);
+                return transaction.batch(AuditTrail.INSERT, entries);
+            });
+            return Collections.emptyMap();
+        } catch (SQLException e) {
+            if (!isRowError(e)) throw e;
+        }
+
+        Map<Integer, SQLException> rejected = new TreeMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            Object[] row = rows.get(i);
+            List<Object[]> entry = rowEntries.get(i);
+            try {
+                executor().inTransaction(transaction -> {
+                    transaction.update(INSERT, row);
+                    return transaction.batch(AuditTrail.INSERT, entry);
+                });
+            } catch (SQLException e) {
+                if (!isRowError(e)) throw e;
+                rejected.put(i, e);
+            }
+        }
+        return rejected;
+    }
+
+    /** Drops the in-memory copies and tells open screens to reload, after writes that bypassed them. */
+    public void bulkChanged() {
+        EmployeeDirectory.invalidate();
+        EmployeeSearchIndex.invalidate();
+        DomainEvents.publish(new DomainEvents.EmployeesChanged());
+    }
+
+    /**
+     * Saves the changes made to original, as read from the database: only the columns whose value
+     * differs are written, and only if nobody has updated the row since (its version is unchanged).
+     * Returns the row as now stored, with its new version, or null when the row has been changed,
+     * deleted or queued for removal in the meantime; findById then gives the current row to merge with. Nothing is written
+     * when nothing differs.
+     */
+    public EmployeeRecord update(EmployeeRecord original, EmployeeRecord changed) throws SQLException {
+        String[] columns = COLUMNS.split(", ");
+        Object[] before = insertParams(original);
+        Object[] after = insertParams(changed);
+        StringBuilder set = new StringBuilder();
+        List<Object> params = new ArrayList<>();
+        // The id is the key, not a value to change
+        for (int i = 1; i < columns.length; i++) {
+            if (Objects.equals(before[i], after[i])) continue;
+            set.append(columns[i]).append(" = ?, ");
+            params.add(after[i]);
+        }
+        if (params.isEmpty()) return original;
+
+        set.append("version = version + 1");
+        params.add(original.getId());
+        params.add(original.getVersion());
+        if (executor().update("UPDATE employee SET " + set + " WHERE id = ? AND version = ? AND " + LIVE,
+                params.toArray()) == 0) {
+            return null;
+        }
+
+        EmployeeRecord saved = changed.withVersion(original.getVersion() + 1);
+        audit(AuditTrail.UPDATE, original, saved);
+        EmployeeDirectory.updated(saved);
+        EmployeeSearchIndex.updated(saved);
+        DomainEvents.publish(new DomainEvents.EmployeeUpdated(saved));
+        return saved;
+    }
+
+    // Archives and deletes one employee in a single transaction
+    public int delete(String id) throws SQLException {
+        int count = executor().inTransaction(transaction -> {
+            transaction.update(ARCHIVE, id);
+            return transaction.update("DELETE FROM employee WHERE id = ?", id);
+        });
+        if (count > 0) {
+            AuditTrail.record(id, AuditTrail.REMOVE, null, null, null);
+            EmployeeDirectory.removed(id);
+            EmployeeSearchIndex.removed(id);
+            DomainEvents.publish(new DomainEvents.EmployeeRemoved(id));
+        }
+        return count;
+    }
+
+    /**
+     * Removes exactly these employees: their ids are recorded in employee_removal in one transaction,
+     * REMOVAL_CHUNK per batch, and from then on no listing or lookup returns them; if it fails, none
+     * is queued. Only the queue table is written, so no locks are held on employee. EmployeeArchiver
+     * then moves the rows to employee_archive a chunk at a time. Returns the number of employees queued.
+     */
+    public int requestRemoval(Collection<String> ids) throws SQLException {
+        List<Object[]> rows = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            rows.add(new Object[]{id});
+        }
+        executor().inTransaction(transaction -> {
+            for (int from = 0; from < rows.size(); from += REMOVAL_CHUNK) {
+                List<Object[]> chunk = rows.subList(from, Math.min(rows.size(), from + REMOVAL_CHUNK));
+                // Ids already queued are queued again rather than failing the batch
+                transaction.batch("DELETE FROM employee_removal WHERE employee_id = ?", chunk);
+                transaction.batch("INSERT INTO employee_removal (employee_id) VALUES (?)", chunk);
+            }
+            return null;
+        });
+        bulkChanged();
+        EmployeeArchiver.wake();
+        return rows.size();
+    }
+
+    /**
+     * Like requestRemoval(ids) for every employee matching the filter, selected by the database in
+     * one statement. expected is the number of employees the user confirmed; if the filter matches
+     * any other number by now, nothing is queued and an SQLException says so.
+     */
+    public int requestRemoval(Filter filter, int expected) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String where = where(filter, params, null);
+        int count = executor().inTransaction(transaction -> {
+            int queued = transaction.update("INSERT INTO employee_removal (employee_id) SELECT id FROM employee" + where,
+                params.toArray());
+            if (queued != expected) {
+                throw new SQLException(queued + " employees match the filter now, not the " + expected +
+                    " shown. Nothing was removed; refresh the table and try again.");
+            }
+            return queued;
+        });
+        bulkChanged();
+        EmployeeArchiver.wake();
+        return count;
+    }
+
+    public int countPendingRemovals() throws SQLException {
+        Integer pending = executor().queryFirst("SELECT COUNT(*) FROM employee_removal", rs -> rs.getInt(1));
+        return pending == null ? 0 : pending;
+    }
+
+    /**
+     * Moves up to limit queued removals to employee_archive in one transaction and returns how many
+     * were taken off the queue. In-memory copies and open screens are not told; call bulkChanged().
+     */
+    int archivePending(int limit) throws SQLException {
+        List<Object[]> rows = executor().query("SELECT employee_id FROM employee_removal ORDER BY employee_id LIMIT ?",
+            rs -> new Object[]{rs.getObject(1)}, limit);
+        if (rows.isEmpty()) return 0;
+        int[] deleted = executor().inTransaction(transaction -> {
+            transaction.batch(ARCHIVE, rows);
+            int[] counts = transaction.batch("DELETE FROM employee WHERE id = ?", rows);
+            transaction.batch("DELETE FROM employee_removal WHERE employee_id = ?", rows);
+            return counts;
+        });
+        // Ids deleted by delete() meanwhile, or that never existed, removed nothing and aren't audited
+        for (int i = 0; i < deleted.length; i++) {
+            if (deleted[i] != 0) AuditTrail.record(rows.get(i)[0], AuditTrail.REMOVE, null, null, null);
+        }
+        return rows.size();
+    }
+
+    /** Criteria for paged listings; null fields don't filter. */
+    public static final class Filter {
+        public static final Filter NONE = new Filter(null, null, null, null);
+
+        private final String id;
+        private final String text;
+        private final String department;
+        private final String position;
+        private final String education;
+
+        public Filter(String id, String text, String department, String position) {
+            this(id, text, department, position, null);
+        }
+
+        public Filter(String id, String text, String department, String position, String education) {
+            this.id = id;
+            this.text = text == null || text.trim().isEmpty() ? null : text.trim();
+            this.department = department;
+            this.position = position;
+            this.education = education;
+        }
+
+        public String getId() { return id; }
+        public String getText() { return text; }
+        public String getDepartment() { return department; }
+        public String getPosition() { return position; }
+        public String getEducation() { return education; }
+
+        public boolean isEmpty() {
+            return id == null && text == null && department == null && position == null && education == null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Filter)) return false;
+            Filter other = (Filter) o;
+            return Objects.equals(id, other.id) && Objects.equals(text, other.text)
+                && Objects.equals(department, other.department) && Objects.equals(position, other.position)
+                && Objects.equals(education, other.education);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, text, department, position, education);
+        }
+    }
+
+    public static final class DepartmentStats {
+        private final String department;
+        private final int employeeCount;
+        private final double averageSalary;
+
+        public DepartmentStats(String department, int employeeCount, double averageSalary) {
+            this.department = department;
+            this.employeeCount = employeeCount;
+            this.averageSalary = averageSalary;
+        }
+
+        public String getDepartment() { return department; }
+        public int getEmployeeCount() { return employeeCount; }
+        public double getAverageSalary() { return averageSalary; }
+    }
+
+    private QueryExecutor executor() throws SQLException {
+        return conn.executor(profile);
+    }
+
+    // " WHERE ..." for the filter plus an optional extra condition; employees queued for removal never match
+    static String where(Filter filter, List<Object> params, String extra) {
+        List<String> conditions = new ArrayList<>();
+        conditions.add(LIVE);
+        if (filter != null) {
+            if (filter.getId() != null) {
+                conditions.add("id = ?");
+                params.add(filter.getId());
+            }
+            List<String> matches = filter.getText() == null ? null
+                : EmployeeSearchIndex.search(filter.getText(), MAX_INDEXED_MATCHES);
+            if (matches != null) {
+                conditions.add(idIn(matches, params));
+            } else if (filter.getText() != null) {
+                conditions.add(TEXT_MATCH);
+                String pattern = "%" + escapeLike(filter.getText().toLowerCase(Locale.ROOT)) + "%";
+                for (int i = 0; i < 12; i++) {
+                    params.add(pattern);
+                }
+            }
+            if (filter.getDepartment() != null) {
+                conditions.add("department = ?");
+                params.add(filter.getDepartment());
+            }
+            if (filter.getPosition() != null) {
+                conditions.add("position = ?");
+                params.add(filter.getPosition());
+            }
+            if (filter.getEducation() != null) {
+                conditions.add("education = ?");
+                params.add(filter.getEducation());
+            }
+        }
+        if (extra != null) conditions.add(extra);
+        return " WHERE " + String.join(" AND ", conditions);
+    }
+
+    // "id IN (...)" with the list padded to a power of two, so the statement cache sees few distinct shapes
+    private static String idIn(List<String> ids, List<Object> params) {
+        if (ids.isEmpty()) return "1 = 0";
+        int slots = Integer.highestOneBit(Math.max(16, ids.size() * 2 - 1));
+        StringBuilder in = new StringBuilder("id IN (");
+        for (int i = 0; i < slots; i++) {
+            in.append(i == 0 ? "?" : ", ?");
+            params.add(ids.get(Math.min(i, ids.size() - 1)));
+        }
+        return in.append(")").toString();
+    }
+
+    // Bad data in a row (SQLState class 22) or a violated constraint (class 23), as opposed to the database
+    // failing; drivers report batch failures as a BatchUpdateException with the row's error chained
+    static boolean isRowError(SQLException e) {
+        String state = e.getSQLState();
+        if (e instanceof SQLIntegrityConstraintViolationException || e instanceof SQLDataException
+            || state != null && (state.startsWith("22") || state.startsWith("23"))) {
+            return true;
+        }
+        SQLException next = e.getNextException();
+        if (next == null && e.getCause() instanceof SQLException) next = (SQLException) e.getCause();
+        return next != null && next != e && isRowError(next);
+    }
+
+    // Backslash is the LIKE escape character on both MySQL and H2
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static String orderBy(String expression, boolean ascending) {
+        String direction = ascending ? " ASC" : " DESC";
+        return expression.equals("id") ? " ORDER BY id" + direction
+            : " ORDER BY " + expression + direction + ", id" + direction;
+    }
+
+    private static String sortExpression(String sortColumn) {
+        String expression = SORT_EXPRESSIONS.get(sortColumn);
+        if (expression == null) {
+            throw new IllegalArgumentException("Cannot sort employees by " + sortColumn);
+        }
+        return expression;
+    }
+
+    // Value of the sort expression for a row, matching the COALESCE defaults
+    private static Object sortValue(EmployeeRecord employee, String sortColumn) {
+        switch (sortColumn) {
+            case "name": return nonNull(employee.getName());
+            case "age": return employee.getAge();
+            case "gender": return nonNull(employee.getGender());
+            case "phone": return nonNull(employee.getPhone());
+            case "email": return nonNull(employee.getEmail());
+            case "position": return nonNull(employee.getPosition());
+            case "department": return nonNull(employee.getDepartment());
+            case "salary": return nonNull(employee.getSalary());
+            case "education": return nonNull(employee.getEducation());
+            case "address": return nonNull(employee.getAddress());
+            case "joining_date": return nonNull(employee.getJoiningDate());
+            default: return employee.getId();
+        }
+    }
+
+    private static String nonNull(String value) {
+        return value == null ? "" : value;
+    }
+
+    // Queues one audit entry per column whose value differs; before is null for a new employee
+    // One changed field, as audited
+    private interface FieldChange {
+        void changed(String field, Object oldValue, Object newValue);
+    }
+
+    private static void audit(String action, EmployeeRecord before, EmployeeRecord after) {
+        forEachChange(before, after, (field, oldValue, newValue) ->
+            AuditTrail.record(after.getId(), action, field, oldValue, newValue));
+    }
+
+    // The entries audit() would queue, as AuditTrail.INSERT parameters for a bulk write
+    private static List<Object[]> auditEntries(String action, EmployeeRecord before, EmployeeRecord after) {
+        List<Object[]> entries = new ArrayList<>();
+        forEachChange(before, after, (field, oldValue, newValue) ->
+            entries.add(AuditTrail.entry(after.getId(), action, field, oldValue, newValue)));
+        return entries;
+    }
+
+    // Every column but the id whose value differs; with no before, every column set in after
+    private static void forEachChange(EmployeeRecord before, EmployeeRecord after, FieldChange change) {
+        String[] columns = COLUMNS.split(", ");
+        Object[] old = before == null ? new Object[columns.length] : insertParams(before);
+        Object[] now = insertParams(after);
+        for (int i = 1; i < columns.length; i++) {
+            if (!Objects.equals(old[i], now[i])) change.changed(columns[i], old[i], now[i]);
+        }
+    }
+
+    private static Object[] insertParams(EmployeeRecord employee) {
+        return new Object[]{employee.getId(), employee.getName(), employee.getAge(), employee.getGender(),
+            employee.getPhone(), employee.getEmail(), employee.getPosition(), employee.getDepartment(),
+            employee.getSalary(), employee.getEducation(), employee.getAddress(), employee.getJoiningDate()};
+    }
+
+    static EmployeeRecord mapRecord(ResultSet rs) throws SQLException {
+        return new EmployeeRecord(rs.getString("id"), rs.getString("name"), rs.getInt("age"),
+            rs.getString("gender"), rs.getString("phone"), rs.getString("email"), rs.getString("position"),
+            rs.getString("department"), rs.getString("salary"), rs.getString("education"),
+            rs.getString("address"), rs.getString("joining_date"), rs.getInt("version"));
+    }
+
+    private static EmployeeRecord.Ref mapRef(ResultSet rs) throws SQLException {
+        return new EmployeeRecord.Ref(rs.getString("id"), rs.getString("name"));
+    }
+
+    private static EmployeeRecord.Summary mapSummary(ResultSet rs) throws SQLException {
+        return new EmployeeRecord.Summary(rs.getString("id"), rs.getString("name"), rs.getString("department"),
+            rs.getString("position"), rs.getString("email"), rs.getString("phone"));
+    }
+}
@@ -0,0 +1,479 @@
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index for the employee quick search.
+ *
+ * The high-cardinality fields the quick search matches (id, name, phone, email, salary, address)
+ * are lower-cased and split into three-character grams, and each gram keeps the sorted list of
+ * employees containing it. A search intersects the lists of the query's grams, walking the shortest
+ * and probing the others, then checks the candidates left against their text, so it costs the size
+ * of the smallest list rather than a table scan. The low-cardinality fields (age, gender, position,
+ * department, education, joining date) are only kept as their set of distinct values: a query that
+ * matches one of those matches a large share of the table anyway and is left to SQL.
+ *
+ * EmployeeRepository keeps the index current for this process's own writes, and it is rebuilt in
+ * the background after employeeCacheTtlSeconds for changes made by other clients. It is first built
+ * the first time it is asked for. Until then, and for queries it can't answer (shorter than three
+ * characters, more matches than the caller's limit, a table larger than
+ * employeeSearchIndexMaxEntries), search() returns null and the caller falls back to SQL.
+ */
+public class EmployeeSearchIndex {
+
+    private static final int GRAM = 3;
+    // Lists probed per candidate besides the shortest; past a few, checking the text is cheaper
+    private static final int PROBED_LISTS = 2;
+    // Between the fields of a document's text so no gram or match spans two fields
+    private static final char FIELD_SEPARATOR = '\u0000';
+
+    private static final Object lock = new Object();
+    private static volatile Index index;
+    private static boolean building;
+    // Writes seen while a build is running, replayed on the new index once it is in place
+    private static List<Change> pending;
+    // Bumped by invalidate() so a build started before it is thrown away
+    private static int generation;
+    private static long bypassUntil;
+    private static volatile long lastBuildMillis;
+
+    // A write to apply to an index
+    private interface Change {
+        void apply(Index target);
+    }
+
+    /**
+     * Ids of the employees whose searchable fields contain text (case-insensitive), in id order,
+     * or null when the index can't answer and the caller should search the database instead.
+     */
+    public static List<String> search(String text, int limit) {
+        if (text == null || text.length() < GRAM) return null;
+        Index current = current();
+        return current == null ? null : current.search(text.toLowerCase(Locale.ROOT), limit);
+    }
+
+    // Employees indexed, 0 while there is no index
+    public static int getSize() {
+        Index current = index;
+        return current == null ? 0 : current.size();
+    }
+
+    // Duration of the last completed build, in milliseconds
+    public static long getLastBuildMillis() {
+        return lastBuildMillis;
+    }
+
+    /** Drops the index; the next search rebuilds it. */
+    public static void invalidate() {
+        synchronized (lock) {
+            index = null;
+            pending = null;
+            building = false;
+            generation++;
+            bypassUntil = 0;
+        }
+    }
+
+    // Called by EmployeeRepository once an insert has committed
+    static void added(EmployeeRecord employee) {
+        String text = text(employee);
+        String[] values = values(employee);
+        apply(target -> target.put(employee.getId(), text, values));
+    }
+
+    // Called by EmployeeRepository once an update has committed
+    static void updated(EmployeeRecord employee) {
+        String text = text(employee);
+        String[] values = values(employee);
+        apply(target -> {
+            if (target.text(employee.getId()) == null) return;
+            target.put(employee.getId(), text, values);
+        });
+    }
+
+    static void removed(String id) {
+        apply(target -> target.remove(id));
+    }
+
+    private static void apply(Change change) {
+        Index current;
+        synchronized (lock) {
+            if (building) pending.add(change);
+            current = index;
+        }
+        if (current != null) change.apply(current);
+    }
+
+    // The index if it is built and fresh; otherwise starts a build and returns what there is
+    private static Index current() {
+        long ttl = TimeUnit.SECONDS.toNanos(conn.config().getEmployeeCacheTtlSeconds());
+        Index current = index;
+        long now = System.nanoTime();
+        if (current != null && (ttl <= 0 || now - current.builtAt < ttl)) return current;
+
+        synchronized (lock) {
+            if (building || conn.config().getEmployeeSearchIndexMaxEntries() <= 0) return index;
+            if (bypassUntil != 0 && now - bypassUntil < 0) return null;
+            building = true;
+            pending = new ArrayList<>();
+            int requested = generation;
+            DbExecutor.submit(JdbcProfile.REPORTING, () -> build(requested, Math.max(ttl, TimeUnit.MINUTES.toNanos(1))))
+                .whenComplete((built, error) -> {
+                    if (error != null) {
+                        System.err.println("Error building employee search index: " + DbExecutor.describe(error));
+                        synchronized (lock) {
+                            if (requested == generation) building = false;
+                        }
+                    }
+                });
+            // A stale index keeps answering until the rebuild replaces it
+            return index;
+        }
+    }
+
+    private static Index build(int requested, long bypassNanos) throws SQLException {
+        int max = conn.config().getEmployeeSearchIndexMaxEntries();
+        long start = System.nanoTime();
+        Index built = new Index(start);
+        boolean complete = new EmployeeRepository(JdbcProfile.REPORTING).scanAll(rs -> {
+            while (rs.next()) {
+                if (built.size() >= max) return false;
+                EmployeeRecord employee = EmployeeRepository.mapRecord(rs);
+                built.put(employee.getId(), text(employee), values(employee));
+            }
+            return true;
+        });
+
+        synchronized (lock) {
+            if (requested != generation) return null;
+            building = false;
+            List<Change> changes = pending;
+            pending = null;
+            if (!complete) {
+                System.err.println("Employee table has more than " + max + " rows, not indexing it for search");
+                index = null;
+                bypassUntil = System.nanoTime() + bypassNanos;
+                return null;
+            }
+            for (Change change : changes) {
+                change.apply(built);
+            }
+            index = built;
+        }
+        lastBuildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return built;
+    }
+
+    // Lower-cased gram-indexed fields, separated
+    private static String text(EmployeeRecord employee) {
+        String[] fields = {employee.getId(), employee.getName(), employee.getPhone(), employee.getEmail(), employee.getSalary(),
+            employee.getAddress()};
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) text.append(FIELD_SEPARATOR);
+            if (fields[i] != null) text.append(fields[i].toLowerCase(Locale.ROOT));
+        }
+        return text.toString();
+    }
+
+    private static String[] values(EmployeeRecord employee) {
+        return new String[]{String.valueOf(employee.getAge()), employee.getGender(), employee.getPosition(),
+            employee.getDepartment(), employee.getEducation(), employee.getJoiningDate()};
+    }
+
+    // The three chars packed into a long, then multiplied by an odd constant (a bijection) because
+    // Long.hashCode() folds the halves together and would put most grams in a handful of buckets
+    private static long gram(String text, int at) {
+        long packed = ((long) text.charAt(at) << 32) | ((long) text.charAt(at + 1) << 16) | text.charAt(at + 2);
+        return packed * 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * One built index. Documents are numbered in the order they are added, so appending keeps every
+     * posting list sorted; an update or removal only marks the old document dead, and the lists are
+     * compacted once dead documents outnumber live ones.
+     */
+    private static final class Index {
+        final long builtAt;
+        private final ReadWriteLock rw = new ReentrantReadWriteLock();
+        private final Map<Long, Postings> postings = new HashMap<>();
+        private final Map<String, Integer> docById = new HashMap<>();
+        private final BitSet dead = new BitSet();
+        private String[] ids = new String[1024];
+        private String[] texts = new String[1024];
+        private int docs;
+
+        // Distinct low-cardinality values ever seen; one that is no longer used only costs a fallback
+        private final Set<String> values = new HashSet<>();
+        // values joined by FIELD_SEPARATOR for a single contains(), rebuilt after a value is added
+        private volatile String joinedValues = "";
+
+        Index(long builtAt) {
+            this.builtAt = builtAt;
+        }
+
+        int size() {
+            rw.readLock().lock();
+            try {
+                return docById.size();
+            } finally {
+                rw.readLock().unlock();
+            }
+        }
+
+        String text(String id) {
+            rw.readLock().lock();
+            try {
+                Integer doc = docById.get(id);
+                return doc == null ? null : texts[doc];
+            } finally {
+                rw.readLock().unlock();
+            }
+        }
+
+        void put(String id, String text, String[] fieldValues) {
+            rw.writeLock().lock();
+            try {
+                Integer previous = docById.get(id);
+                if (previous != null) {
+                    dead.set(previous);
+                    texts[previous] = null;
+                }
+                append(id, text);
+                boolean added = false;
+                for (String value : fieldValues) {
+                    if (value != null && value.length() >= GRAM) added |= values.add(value.toLowerCase(Locale.ROOT));
+                }
+                if (added) joinedValues = null;
+                compactIfSparse();
+            } finally {
+                rw.writeLock().unlock();
+            }
+        }
+
+        void remove(String id) {
+            rw.writeLock().lock();
+            try {
+                Integer doc = docById.remove(id);
+                if (doc == null) return;
+                dead.set(doc);
+                texts[doc] = null;
+                compactIfSparse();
+            } finally {
+                rw.writeLock().unlock();
+            }
+        }
+
+        List<String> search(String query, int limit) {
+            if (query.indexOf(FIELD_SEPARATOR) >= 0) return new ArrayList<>();
+            if (matchesValue(query)) return null;
+
+            rw.readLock().lock();
+            try {
+                List<Postings> lists = new ArrayList<>();
+                for (int i = 0; i + GRAM <= query.length(); i++) {
+                    Postings list = postings.get(gram(query, i));
+                    if (list == null) return new ArrayList<>();
+                    if (!lists.contains(list)) lists.add(list);
+                }
+                lists.sort((a, b) -> Integer.compare(a.size, b.size));
+                if (lists.size() > PROBED_LISTS + 1) lists = lists.subList(0, PROBED_LISTS + 1);
+
+                // Walk the shortest list, skipping ahead whenever a probed list has no entry for a candidate
+                Cursor walk = new Cursor(lists.get(0));
+                Cursor[] probes = new Cursor[lists.size() - 1];
+                for (int l = 0; l < probes.length; l++) {
+                    probes[l] = new Cursor(lists.get(l + 1));
+                }
+                List<String> matches = new ArrayList<>();
+                int target = 0;
+                candidates:
+                while (walk.advanceTo(target)) {
+                    int doc = walk.doc;
+                    target = doc + 1;
+                    for (Cursor probe : probes) {
+                        if (!probe.advanceTo(doc)) break candidates;
+                        if (probe.doc != doc) {
+                            // Leapfrog: nothing before the probe's next entry can match
+                            target = probe.doc;
+                            continue candidates;
+                        }
+                    }
+                    if (dead.get(doc) || !texts[doc].contains(query)) continue;
+                    if (matches.size() == limit) return null;
+                    matches.add(ids[doc]);
+                }
+                // Documents are in insertion order; callers expect id order
+                matches.sort(EmployeeSearchIndex::compareIds);
+                return matches;
+            } finally {
+                rw.readLock().unlock();
+            }
+        }
+
+        private boolean matchesValue(String query) {
+            String joined = joinedValues;
+            if (joined == null) {
+                rw.readLock().lock();
+                try {
+                    joined = String.join(String.valueOf(FIELD_SEPARATOR), values);
+                } finally {
+                    rw.readLock().unlock();
+                }
+                joinedValues = joined;
+            }
+            return joined.contains(query);
+        }
+
+        private void append(String id, String text) {
+            if (docs == ids.length) {
+                ids = Arrays.copyOf(ids, docs * 2);
+                texts = Arrays.copyOf(texts, docs * 2);
+            }
+            int doc = docs++;
+            ids[doc] = id;
+            texts[doc] = text;
+            docById.put(id, doc);
+            // Distance to the next field separator; grams are only taken within a field
+            int fieldLeft = 0;
+            for (int i = text.length() - 1; i >= 0; i--) {
+                fieldLeft = text.charAt(i) == FIELD_SEPARATOR ? 0 : fieldLeft + 1;
+                if (fieldLeft >= GRAM) {
+                    postings.computeIfAbsent(gram(text, i), k -> new Postings()).add(doc);
+                }
+            }
+        }
+
+        // Re-numbers the live documents and rebuilds the lists without the dead ones
+        private void compactIfSparse() {
+            int live = docById.size();
+            if (docs < 1024 || docs - live <= live) return;
+            String[] liveIds = new String[Math.max(1024, live * 2)];
+            String[] liveTexts = new String[liveIds.length];
+            int next = 0;
+            for (int doc = 0; doc < docs; doc++) {
+                if (dead.get(doc)) continue;
+                liveIds[next] = ids[doc];
+                liveTexts[next] = texts[doc];
+                next++;
+            }
+            postings.clear();
+            docById.clear();
+            dead.clear();
+            ids = liveIds;
+            texts = liveTexts;
+            docs = 0;
+            for (int doc = 0; doc < next; doc++) {
+                append(liveIds[doc], liveTexts[doc]);
+            }
+        }
+    }
+
+    /**
+     * Growable sorted list of document numbers, stored as variable-length deltas (one or two bytes
+     * for most entries instead of four). Every BLOCK entries the absolute number and byte offset are
+     * kept aside, so a Cursor can skip whole blocks instead of decoding from the start.
+     */
+    private static final class Postings {
+        static final int BLOCK = 64;
+
+        byte[] data = new byte[8];
+        int bytes;
+        int size;
+        int last = -1;
+        // First document of each block, and where the deltas of its other entries start
+        int[] blockDocs = new int[1];
+        int[] blockOffsets = new int[1];
+
+        void add(int doc) {
+            // A document repeating a gram adds it once
+            if (doc == last) return;
+            if (size % BLOCK == 0) {
+                int block = size / BLOCK;
+                if (block == blockDocs.length) {
+                    blockDocs = Arrays.copyOf(blockDocs, block * 2);
+                    blockOffsets = Arrays.copyOf(blockOffsets, block * 2);
+                }
+                blockDocs[block] = doc;
+                blockOffsets[block] = bytes;
+            } else {
+                if (bytes + 5 > data.length) data = Arrays.copyOf(data, Math.max(data.length * 2, bytes + 5));
+                int delta = doc - last;
+                while (delta >= 0x80) {
+                    data[bytes++] = (byte) (delta | 0x80);
+                    delta >>>= 7;
+                }
+                data[bytes++] = (byte) delta;
+            }
+            last = doc;
+            size++;
+        }
+    }
+
+    // Forward-only position in a Postings list
+    private static final class Cursor {
+        final Postings list;
+        int index = -1;
+        int doc;
+        private int offset;
+
+        Cursor(Postings list) {
+            this.list = list;
+        }
+
+        boolean next() {
+            if (++index >= list.size) return false;
+            if (index % Postings.BLOCK == 0) {
+                doc = list.blockDocs[index / Postings.BLOCK];
+                offset = list.blockOffsets[index / Postings.BLOCK];
+            } else {
+                int delta = 0;
+                for (int shift = 0; ; shift += 7) {
+                    byte b = list.data[offset++];
+                    delta |= (b & 0x7F) << shift;
+                    if (b >= 0) break;
+                }
+                doc += delta;
+            }
+            return true;
+        }
+
+        // Moves to the first entry >= target; false once the list has none
+        boolean advanceTo(int target) {
+            if (index >= list.size) return false;
+            if (index >= 0 && doc >= target) return true;
+
+            // Last block starting at or before target, binary searched from the current block
+            int low = Math.max(index, 0) / Postings.BLOCK;
+            int high = (list.size - 1) / Postings.BLOCK;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (list.blockDocs[mid] <= target) low = mid; else high = mid - 1;
+            }
+            if (low * Postings.BLOCK > index) index = low * Postings.BLOCK - 1;
+
+            while (next()) {
+                if (doc >= target) return true;
+            }
+            return false;
+        }
+    }
+
+    private static int compareIds(String a, String b) {
+        try {
+            return Long.compare(Long.parseLong(a), Long.parseLong(b));
+        } catch (NumberFormatException e) {
+            return a.compareTo(b);
+        }
+    }
+}
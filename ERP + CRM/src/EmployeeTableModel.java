@@ -0,0 +1,448 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Lazy employee table model. The row count comes from a COUNT(*) up front; rows are fetched a page
+ * at a time, by keyset on (sort column, id), only when the table asks for them, and the most
+ * recently used pages are kept. Filtering and sorting are done by the database: set them with
+ * setFilter() and through the RowSorter from createSorter(), which turns header clicks into ORDER BY.
+ * Single changes are patched into the cached pages (employeeAdded/Updated/Removed) where the row's
+ * place is known, instead of re-counting.
+ *
+ * Must only be used on the EDT; fetches run through the window's QueryScope.
+ */
+public class EmployeeTableModel extends AbstractTableModel {
+
+    public static final int PAGE_SIZE = 200;
+    private static final int MAX_CACHED_PAGES = 50;
+
+    // Employee table order; the names double as sort columns
+    private static final String[] COLUMNS = {"id", "name", "age", "gender", "phone", "email", "position",
+        "department", "salary", "education", "address", "joining_date"};
+
+    private final EmployeeRepository repository;
+    private final QueryScope scope;
+
+    private final Map<Integer, List<EmployeeRecord>> pages = new LinkedHashMap<Integer, List<EmployeeRecord>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<EmployeeRecord>> eldest) {
+            if (size() <= MAX_CACHED_PAGES) return false;
+            unindex(eldest.getValue());
+            return true;
+        }
+    };
+    // Model row of every employee on a cached page
+    private final Map<String, Integer> rowById = new HashMap<>();
+    // Last row of every page seen so far, kept after the page is evicted so the next page can use the keyset
+    private final Map<Integer, EmployeeRecord> pageEnds = new HashMap<>();
+    private final Set<Integer> loading = new HashSet<>();
+
+    private EmployeeRepository.Filter filter = EmployeeRepository.Filter.NONE;
+    private int sortColumn = 0;
+    private boolean ascending = true;
+    private int rowCount;
+    private boolean counted;
+    // Bumped whenever the filter or order changes, so answers to older requests are dropped
+    private int generation;
+
+    public EmployeeTableModel(EmployeeRepository repository, QueryScope scope) {
+        this.repository = repository;
+        this.scope = scope;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    // Rows that haven't arrived yet show as blank until their page is loaded
+    @Override
+    public Object getValueAt(int row, int column) {
+        EmployeeRecord employee = getEmployeeAt(row);
+        if (employee == null) return null;
+        switch (column) {
+            case 0: return employee.getId();
+            case 1: return employee.getName();
+            case 2: return employee.getAge();
+            case 3: return employee.getGender();
+            case 4: return employee.getPhone();
+            case 5: return employee.getEmail();
+            case 6: return employee.getPosition();
+            case 7: return employee.getDepartment();
+            case 8: return employee.getSalary();
+            case 9: return employee.getEducation();
+            case 10: return employee.getAddress();
+            default: return employee.getJoiningDate();
+        }
+    }
+
+    /** The row's employee, or null while its page is still loading (the load is started). */
+    public EmployeeRecord getEmployeeAt(int row) {
+        if (row < 0 || row >= rowCount) return null;
+        int page = row / PAGE_SIZE;
+        List<EmployeeRecord> rows = pages.get(page);
+        if (rows == null) {
+            load(page);
+            return null;
+        }
+        int index = row % PAGE_SIZE;
+        return index < rows.size() ? rows.get(index) : null;
+    }
+
+    // Like getEmployeeAt() but never starts a load; null when the row's page isn't cached
+    public EmployeeRecord getLoadedEmployeeAt(int row) {
+        if (row < 0 || row >= rowCount) return null;
+        List<EmployeeRecord> rows = pages.get(row / PAGE_SIZE);
+        int index = row % PAGE_SIZE;
+        return rows != null && index < rows.size() ? rows.get(index) : null;
+    }
+
+    public boolean isCounted() {
+        return counted;
+    }
+
+    public EmployeeRepository.Filter getFilter() {
+        return filter;
+    }
+
+    public String getSortColumn() {
+        return COLUMNS[sortColumn];
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public void setFilter(EmployeeRepository.Filter filter) {
+        if (filter == null) filter = EmployeeRepository.Filter.NONE;
+        if (filter.equals(this.filter)) return;
+        this.filter = filter;
+        refresh();
+    }
+
+    public void setSort(int column, boolean ascending) {
+        if (column == sortColumn && ascending == this.ascending) return;
+        this.sortColumn = column;
+        this.ascending = ascending;
+        refresh();
+    }
+
+    /** Shows the filter with its row count already known, e.g. counted by a search off the EDT. */
+    public void setFilter(EmployeeRepository.Filter filter, int count) {
+        this.filter = filter == null ? EmployeeRepository.Filter.NONE : filter;
+        reset();
+        rowCount = count;
+        counted = true;
+        fireTableDataChanged();
+    }
+
+    /** Forgets every cached page and re-counts; visible rows are fetched again as they are painted. */
+    public void refresh() {
+        reset();
+
+        int requested = generation;
+        EmployeeRepository.Filter currentFilter = filter;
+        scope.submit(() -> repository.count(currentFilter)).whenComplete(scope.onEdt((count, error) -> {
+            if (requested != generation) return;
+            if (error != null) {
+                System.err.println("Error counting employees: " + DbExecutor.describe(error));
+                return;
+            }
+            rowCount = count;
+            counted = true;
+            fireTableDataChanged();
+        }));
+    }
+
+    /** Replaces the employee in place if it is on a cached page and the change can't move it. */
+    public void employeeUpdated(EmployeeRecord employee) {
+        if (!filter.isEmpty() || sortColumn != 0) {
+            refresh();
+            return;
+        }
+        Integer row = rowById.get(employee.getId());
+        if (row == null) return;
+        pages.get(row / PAGE_SIZE).set(row % PAGE_SIZE, employee);
+        fireTableRowsUpdated(row, row);
+    }
+
+    /**
+     * Adds a new employee's row. Without a filter and in id order its place follows from the cached
+     * pages: it goes into its page if that is cached, and the cached pages after it, whose rows have
+     * all moved down one, are dropped and read again when painted. Otherwise whether and where it
+     * shows is up to the database, so the table re-counts.
+     */
+    public void employeeAdded(EmployeeRecord employee) {
+        if (!filter.isEmpty() || sortColumn != 0 || !counted) {
+            refresh();
+            return;
+        }
+        Integer cached = rowById.get(employee.getId());
+        int row = cached != null ? cached : firstRowAfter(employee.getId());
+        int page = row / PAGE_SIZE;
+        List<EmployeeRecord> rows = pages.get(page);
+        if (cached != null) {
+            // Its page was read after the insert, but the count is from before
+            dropPagesFrom(page + 1);
+        } else if (rows != null && (row < rowCount ? getLoadedEmployeeAt(row) != null : row % PAGE_SIZE == rows.size())) {
+            dropPagesFrom(page + 1);
+            rows.add(row % PAGE_SIZE, employee);
+            if (rows.size() > PAGE_SIZE) rowById.remove(rows.remove(PAGE_SIZE).getId());
+            pageChanged(page, row % PAGE_SIZE);
+        } else {
+            dropPagesFrom(page);
+        }
+        rowCount++;
+        fireTableRowsInserted(row, row);
+    }
+
+    /**
+     * Takes out a removed employee's row: where it is cached, or without a filter and in id order
+     * where it must have been. The cached pages after it are dropped, as their rows have moved up
+     * one. Otherwise the table re-counts.
+     */
+    public void employeeRemoved(String id) {
+        Integer cached = rowById.get(id);
+        if (cached == null && (!filter.isEmpty() || sortColumn != 0 || !counted)) {
+            refresh();
+            return;
+        }
+
+        int row = cached != null ? cached : firstRowAfter(id);
+        int page = row / PAGE_SIZE;
+        List<EmployeeRecord> rows = cached != null ? pages.get(page) : null;
+        if (rows != null) {
+            // The page's new last row is the next page's first; without it the page is read again
+            List<EmployeeRecord> next = pages.get(page + 1);
+            rowById.remove(rows.remove(row % PAGE_SIZE).getId());
+            if (next != null && !next.isEmpty()) rows.add(next.get(0));
+            if (next == null && (page + 1) * PAGE_SIZE < rowCount) {
+                dropPagesFrom(page);
+            } else {
+                dropPagesFrom(page + 1);
+                pageChanged(page, row % PAGE_SIZE);
+            }
+        } else {
+            dropPagesFrom(page);
+        }
+        rowCount = Math.max(0, rowCount - 1);
+        fireTableRowsDeleted(row, row);
+    }
+
+    private void reset() {
+        generation++;
+        pages.clear();
+        pageEnds.clear();
+        rowById.clear();
+        loading.clear();
+        counted = false;
+    }
+
+    // Row at which id belongs in id order, counting only the cached rows known to come before it
+    private int firstRowAfter(String id) {
+        long value = Long.parseLong(id);
+        int row = 0;
+        for (Map.Entry<Integer, List<EmployeeRecord>> entry : pages.entrySet()) {
+            List<EmployeeRecord> rows = entry.getValue();
+            if (rows.isEmpty()) continue;
+            int start = entry.getKey() * PAGE_SIZE;
+            if (before(rows.get(rows.size() - 1), value)) {
+                row = Math.max(row, start + rows.size());
+            } else if (before(rows.get(0), value)) {
+                int low = 0;
+                int high = rows.size() - 1;
+                while (low < high) {
+                    int mid = (low + high) >>> 1;
+                    if (before(rows.get(mid), value)) {
+                        low = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+                return start + low;
+            }
+        }
+        return row;
+    }
+
+    private boolean before(EmployeeRecord employee, long id) {
+        long value = Long.parseLong(employee.getId());
+        return ascending ? value < id : value > id;
+    }
+
+    // Re-indexes a page's rows from index on after one was put in or taken out
+    private void pageChanged(int page, int from) {
+        List<EmployeeRecord> rows = pages.get(page);
+        for (int i = from; i < rows.size(); i++) {
+            rowById.put(rows.get(i).getId(), page * PAGE_SIZE + i);
+        }
+        pageEnds.remove(page);
+        if (rows.size() == PAGE_SIZE) pageEnds.put(page, rows.get(PAGE_SIZE - 1));
+    }
+
+    // Forgets the pages from first on, which are read again when painted; loads under way are dropped
+    private void dropPagesFrom(int first) {
+        pages.entrySet().removeIf(entry -> {
+            if (entry.getKey() < first) return false;
+            unindex(entry.getValue());
+            return true;
+        });
+        pageEnds.keySet().removeIf(page -> page >= first);
+        if (!loading.isEmpty()) {
+            // Their rows may be from before the change; the repaint below asks for them again
+            generation++;
+            loading.clear();
+            SwingUtilities.invokeLater(() -> fireTableRowsUpdated(0, Math.max(0, rowCount - 1)));
+        }
+    }
+
+    private void unindex(List<EmployeeRecord> rows) {
+        for (EmployeeRecord employee : rows) {
+            rowById.remove(employee.getId());
+        }
+    }
+
+    /** Sorter that hands sort changes to the database instead of sorting in memory. */
+    public RowSorter<EmployeeTableModel> createSorter() {
+        return new SqlSorter();
+    }
+
+    private void load(int page) {
+        if (!loading.add(page)) return;
+
+        int requested = generation;
+        EmployeeRepository.Filter currentFilter = filter;
+        String column = COLUMNS[sortColumn];
+        boolean currentAscending = ascending;
+        EmployeeRecord after = page == 0 ? null : lastRowOf(page - 1);
+
+        scope.submit(() -> page == 0 || after != null
+                ? repository.findPage(currentFilter, column, currentAscending, after, PAGE_SIZE)
+                : repository.findPageAt(currentFilter, column, currentAscending, page * PAGE_SIZE, PAGE_SIZE))
+            .whenComplete(scope.onEdt((rows, error) -> {
+                if (requested != generation) return;
+                loading.remove(page);
+                if (error != null) {
+                    System.err.println("Error loading employees: " + DbExecutor.describe(error));
+                    return;
+                }
+                int first = page * PAGE_SIZE;
+                pages.put(page, new ArrayList<>(rows));
+                for (int i = 0; i < rows.size(); i++) {
+                    rowById.put(rows.get(i).getId(), first + i);
+                }
+                if (!rows.isEmpty()) pageEnds.put(page, rows.get(rows.size() - 1));
+
+                // A short page is the last: corrects a count that patches got wrong, e.g. racing another client
+                if (rows.size() < PAGE_SIZE && first + rows.size() != rowCount) {
+                    rowCount = first + rows.size();
+                    fireTableDataChanged();
+                    return;
+                }
+                int last = Math.min(first + PAGE_SIZE, rowCount) - 1;
+                if (last >= first) fireTableRowsUpdated(first, last);
+            }));
+    }
+
+    private EmployeeRecord lastRowOf(int page) {
+        List<EmployeeRecord> rows = pages.get(page);
+        if (rows != null && rows.size() == PAGE_SIZE) return rows.get(PAGE_SIZE - 1);
+        return pageEnds.get(page);
+    }
+
+    // Identity mapping: rows come back from the database already in order
+    private final class SqlSorter extends RowSorter<EmployeeTableModel> {
+
+        @Override
+        public EmployeeTableModel getModel() {
+            return EmployeeTableModel.this;
+        }
+
+        @Override
+        public void toggleSortOrder(int column) {
+            boolean nextAscending = column != sortColumn || !ascending;
+            setSort(column, nextAscending);
+            fireSortOrderChanged();
+        }
+
+        @Override
+        public int convertRowIndexToModel(int index) {
+            return index;
+        }
+
+        @Override
+        public int convertRowIndexToView(int index) {
+            return index;
+        }
+
+        @Override
+        public void setSortKeys(List<? extends SortKey> keys) {
+            if (keys == null || keys.isEmpty()) {
+                setSort(0, true);
+            } else {
+                SortKey key = keys.get(0);
+                setSort(key.getColumn(), key.getSortOrder() != SortOrder.DESCENDING);
+            }
+            fireSortOrderChanged();
+        }
+
+        @Override
+        public List<? extends SortKey> getSortKeys() {
+            return Collections.singletonList(new SortKey(sortColumn, ascending ? SortOrder.ASCENDING : SortOrder.DESCENDING));
+        }
+
+        @Override
+        public int getViewRowCount() {
+            return rowCount;
+        }
+
+        @Override
+        public int getModelRowCount() {
+            return rowCount;
+        }
+
+        @Override
+        public void modelStructureChanged() {
+        }
+
+        @Override
+        public void allRowsChanged() {
+        }
+
+        @Override
+        public void rowsInserted(int firstRow, int endRow) {
+        }
+
+        @Override
+        public void rowsDeleted(int firstRow, int endRow) {
+        }
+
+        @Override
+        public void rowsUpdated(int firstRow, int endRow) {
+        }
+
+        @Override
+        public void rowsUpdated(int firstRow, int endRow, int column) {
+        }
+    }
+}
@@ -0,0 +1,57 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Rules a new employee must pass before it is inserted, shared by the Add Employee form and bulk
+ * imports so both accept exactly the same rows.
+ */
+public class EmployeeValidator {
+
+    // Range of the Add Employee form's age spinner
+    public static final int MIN_AGE = 18;
+    public static final int MAX_AGE = 65;
+
+    private static final Pattern PHONE = Pattern.compile("\\d{10}");
+    private static final Pattern EMAIL = Pattern.compile("^[A-Za-z0-9+_.-]+@(.+)$");
+
+    /** The problems with the employee, empty when it can be added. Safe to call from any thread. */
+    public static List<String> validate(EmployeeRecord employee) {
+        List<String> errors = new ArrayList<>();
+
+        if (isBlank(employee.getName())) errors.add("Name is required");
+        if (isBlank(employee.getPhone())) errors.add("Phone number is required");
+        if (isBlank(employee.getEmail())) errors.add("Email is required");
+        if (isBlank(employee.getPosition())) errors.add("Position is required");
+        if (isBlank(employee.getSalary())) errors.add("Salary is required");
+        if (isBlank(employee.getAddress())) errors.add("Address is required");
+
+        if (employee.getAge() < MIN_AGE || employee.getAge() > MAX_AGE) {
+            errors.add("Age must be between " + MIN_AGE + " and " + MAX_AGE);
+        }
+
+        String phone = employee.getPhone();
+        if (!isBlank(phone) && !PHONE.matcher(phone).matches()) {
+            errors.add("Phone number must be 10 digits");
+        }
+
+        String email = employee.getEmail();
+        if (!isBlank(email) && !EMAIL.matcher(email).matches()) {
+            errors.add("Invalid email format");
+        }
+
+        String salary = employee.getSalary();
+        if (!isBlank(salary)) {
+            try {
+                Double.parseDouble(salary);
+            } catch (NumberFormatException e) {
+                errors.add("Salary must be a valid number");
+            }
+        }
+        return errors;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
@@ -0,0 +1,117 @@
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands out ids that no other client, import or earlier run can be given (hi/lo allocation).
+ *
+ * The id_block table holds, per sequence, the next id nobody has reserved. A client reserves a
+ * whole block of ids by moving that value forward with a compare-and-set UPDATE, so concurrent
+ * clients never get overlapping blocks and no row stays locked. Ids of the block are then handed
+ * out from memory without locking, so only one next() in BLOCK_SIZE goes to the database. Ids of a
+ * block that isn't used up before the application exits are skipped, never reused.
+ *
+ * A sequence starts after the highest id already in its table, so ids written before it existed
+ * (or by hand) are never handed out again.
+ */
+public class IdAllocator {
+
+    public static final IdAllocator EMPLOYEES = new IdAllocator("employee", "employee", "id", 100000);
+
+    private static final int BLOCK_SIZE = 100;
+    // Compare-and-set attempts before a reservation gives up under contention
+    private static final int MAX_ATTEMPTS = 50;
+
+    // Ids [next, end) of the current block; next only ever grows, so a plain CAS is enough
+    private static final class Block {
+        final long next;
+        final long end;
+
+        Block(long next, long end) {
+            this.next = next;
+            this.end = end;
+        }
+    }
+
+    private final String sequence;
+    private final String table;
+    private final String column;
+    private final long firstId;
+    private final AtomicReference<Block> block = new AtomicReference<>(new Block(0, 0));
+    private volatile boolean sequenceExists;
+
+    IdAllocator(String sequence, String table, String column, long firstId) {
+        this.sequence = sequence;
+        this.table = table;
+        this.column = column;
+        this.firstId = firstId;
+    }
+
+    /** The next id. Usually answered from memory; reserves a new block when the current one is used up. */
+    public long next() throws SQLException {
+        while (true) {
+            Block current = block.get();
+            if (current.next < current.end) {
+                if (block.compareAndSet(current, new Block(current.next + 1, current.end))) return current.next;
+                continue;
+            }
+            refill(current);
+        }
+    }
+
+    /**
+     * Reserves count consecutive ids for the caller alone, straight from the database, and returns
+     * the first. For bulk inserts, which would use up many blocks.
+     */
+    public long reserve(int count) throws SQLException {
+        if (count <= 0) throw new IllegalArgumentException("count must be positive: " + count);
+        return reserveInDatabase(count);
+    }
+
+    /**
+     * Makes sure later ids are above maxId, after rows were written with ids chosen elsewhere (an
+     * import with explicit ids). Ids of blocks already handed to clients are not checked.
+     */
+    public void advancePast(long maxId) throws SQLException {
+        ensureSequence();
+        conn.executor().update("UPDATE id_block SET next_id = ? WHERE name = ? AND next_id <= ?",
+            maxId + 1, sequence, maxId);
+    }
+
+    // Only one thread goes to the database; the others wait for its block instead of reserving their own
+    private synchronized void refill(Block empty) throws SQLException {
+        if (block.get() != empty) return;
+        long first = reserveInDatabase(BLOCK_SIZE);
+        block.set(new Block(first, first + BLOCK_SIZE));
+    }
+
+    private long reserveInDatabase(int count) throws SQLException {
+        ensureSequence();
+        QueryExecutor executor = conn.executor();
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            Long next = executor.queryFirst("SELECT next_id FROM id_block WHERE name = ?", rs -> rs.getLong(1), sequence);
+            if (next == null) throw new SQLException("Id sequence '" + sequence + "' is missing");
+            if (executor.update("UPDATE id_block SET next_id = ? WHERE name = ? AND next_id = ?",
+                    next + count, sequence, next) == 1) {
+                return next;
+            }
+        }
+        throw new SQLException("Could not reserve ids from sequence '" + sequence + "': too much contention");
+    }
+
+    // Creates the sequence row on first use, starting after the table's highest id
+    private void ensureSequence() throws SQLException {
+        if (sequenceExists) return;
+        QueryExecutor executor = conn.executor();
+        if (executor.queryFirst("SELECT 1 FROM id_block WHERE name = ?", rs -> rs.getInt(1), sequence) == null) {
+            Long max = executor.queryFirst("SELECT MAX(" + column + ") FROM " + table, rs -> rs.getLong(1));
+            long start = Math.max(firstId, (max == null ? 0 : max) + 1);
+            try {
+                executor.update("INSERT INTO id_block (name, next_id) VALUES (?, ?)", sequence, start);
+            } catch (SQLException e) {
+                // Another client created it first; its starting point is just as good
+                if (!EmployeeRepository.isRowError(e)) throw e;
+            }
+        }
+        sequenceExists = true;
+    }
+}
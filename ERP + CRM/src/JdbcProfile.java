@@ -0,0 +1,42 @@
+/**
+ * Named JDBC tuning profiles. Each profile gets its own connection pool so a long report or a
+ * bulk load never competes with interactive screens for connections.
+ *
+ * The values here are defaults; any of them can be overridden in app_settings.properties with
+ * keys of the form {@code jdbc.<profile>.<setting>}, e.g. {@code jdbc.reporting.fetchSize=1000}.
+ */
+public enum JdbcProfile {
+
+    // Short lookups and single-row writes from the screens
+    INTERACTIVE(0, false, false, 64, 15_000, 2, 10),
+
+    // Large batched inserts/updates; rewriting turns a batch into multi-row statements
+    BULK(0, false, true, 16, 300_000, 0, 2),
+
+    // Large result sets streamed with a server-side cursor instead of buffered in memory
+    REPORTING(500, true, false, 32, 120_000, 0, 3);
+
+    final int fetchSize;
+    final boolean useCursorFetch;
+    final boolean rewriteBatchedStatements;
+    final int statementCacheSize;
+    final int socketTimeoutMillis;
+    final int minIdle;
+    final int maxPoolSize;
+
+    JdbcProfile(int fetchSize, boolean useCursorFetch, boolean rewriteBatchedStatements,
+                int statementCacheSize, int socketTimeoutMillis, int minIdle, int maxPoolSize) {
+        this.fetchSize = fetchSize;
+        this.useCursorFetch = useCursorFetch;
+        this.rewriteBatchedStatements = rewriteBatchedStatements;
+        this.statementCacheSize = statementCacheSize;
+        this.socketTimeoutMillis = socketTimeoutMillis;
+        this.minIdle = minIdle;
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    // Prefix of this profile's override keys in app_settings.properties
+    String key(String setting) {
+        return "jdbc." + name().toLowerCase() + "." + setting;
+    }
+}
@@ -20,24 +20,12 @@ public class Login extends JFrame implements ActionListener, KeyListener {
     private JRadioButton erpRadioButton, crmRadioButton;
     private ButtonGroup loginGroup;
     
-    // Database connection - reuse connection
-    private conn dbConnection;
-    
     public Login() {
-        initializeDatabase();
+        conn.checkReachable(this, null);
         initializeUI();
         setupEventListeners();
     }
     
-    private void initializeDatabase() {
-        try {
-            dbConnection = new conn();
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Database connection failed: " + e.getMessage(), 
-                                        "Connection Error", JOptionPane.ERROR_MESSAGE);
-        }
-    }
-    
     private void initializeUI() {
         // Configure window
         setTitle("Login");
@@ -194,60 +182,37 @@ public class Login extends JFrame implements ActionListener, KeyListener {
         loginButton.setText("Logging in...");
         
         // Perform login in background thread
-        SwingWorker<Boolean, Void> loginWorker = new SwingWorker<Boolean, Void>() {
-            @Override
-            protected Boolean doInBackground() throws Exception {
-                return authenticateUser(username, password);
-            }
+        DbExecutor.submit(() -> authenticateUser(username, password)).whenComplete(DbExecutor.onEdt((loginSuccess, error) -> {
+            // Re-enable login button
+            loginButton.setEnabled(true);
+            loginButton.setText("Login");
             
-            @Override
-            protected void done() {
-                try {
-                    boolean loginSuccess = get();
-                    if (loginSuccess) {
-                        String loginType = erpRadioButton.isSelected() ? "ERP" : "CRM";
-                        JOptionPane.showMessageDialog(Login.this, 
-                            "Welcome! Logged in to " + loginType + " system.", 
-                            "Login Successful", JOptionPane.INFORMATION_MESSAGE);
-                        
-                        setVisible(false);
-                        dispose();
-                        new Main_class();
-                    } else {
-                        JOptionPane.showMessageDialog(Login.this, 
-                            "Invalid username or password", 
-                            "Login Failed", JOptionPane.ERROR_MESSAGE);
-                    }
-                } catch (Exception ex) {
-                    JOptionPane.showMessageDialog(Login.this, 
-                        "Login failed: " + ex.getMessage(), 
-                        "Error", JOptionPane.ERROR_MESSAGE);
-                } finally {
-                    // Re-enable login button
-                    loginButton.setEnabled(true);
-                    loginButton.setText("Login");
-                }
+            if (error != null) {
+                JOptionPane.showMessageDialog(Login.this, 
+                    "Login failed: " + DbExecutor.describe(error), 
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            } else if (loginSuccess) {
+                AuditTrail.setUser(username);
+                String loginType = erpRadioButton.isSelected() ? "ERP" : "CRM";
+                JOptionPane.showMessageDialog(Login.this, 
+                    "Welcome! Logged in to " + loginType + " system.", 
+                    "Login Successful", JOptionPane.INFORMATION_MESSAGE);
+                
+                setVisible(false);
+                dispose();
+                new Main_class();
+            } else {
+                JOptionPane.showMessageDialog(Login.this, 
+                    "Invalid username or password", 
+                    "Login Failed", JOptionPane.ERROR_MESSAGE);
             }
-        };
-        
-        loginWorker.execute();
+        }));
     }
     
     private boolean authenticateUser(String username, String password) throws SQLException {
-        if (dbConnection == null || dbConnection.statement == null) {
-            throw new SQLException("Database connection not available");
-        }
-        
-        // Use PreparedStatement to prevent SQL injection
-        String query = "SELECT * FROM login WHERE username = ? AND password = ?";
-        try (PreparedStatement pstmt = dbConnection.statement.getConnection().prepareStatement(query)) {
-            pstmt.setString(1, username);
-            pstmt.setString(2, password); // In production, use hashed passwords
-            
-            try (ResultSet resultSet = pstmt.executeQuery()) {
-                return resultSet.next();
-            }
-        }
+        // Parameterized to prevent SQL injection
+        String query = "SELECT 1 FROM login WHERE username = ? AND password = ?";
+        return conn.executor().queryFirst(query, rs -> Boolean.TRUE, username, password) != null; // In production, use hashed passwords
     }
     
     private void handleBack() {
@@ -276,21 +241,6 @@ public class Login extends JFrame implements ActionListener, KeyListener {
     @Override
     public void keyReleased(KeyEvent e) {}
     
-    @Override
-    public void dispose() {
-        // Clean up database connection
-        if (dbConnection != null) {
-            try {
-                if (dbConnection.statement != null) {
-                    dbConnection.statement.close();
-                }
-            } catch (SQLException e) {
-                System.err.println("Error closing database connection: " + e.getMessage());
-            }
-        }
-        super.dispose();
-    }
-    
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> new Login());
     }
@@ -0,0 +1,267 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread-safe entry point for running SQL.
+ *
+ * Every call borrows its own pooled connection and a prepared statement from that connection's
+ * statement cache, so concurrent SwingWorkers never share a Statement or close each other's
+ * ResultSets. Parameters are bound positionally with setObject. When a call runs under
+ * DbExecutor, the time left before its deadline is applied as the statement's query timeout and
+ * the executing statement can be cancelled from another thread through the call's CallContext.
+ */
+public class QueryExecutor {
+
+    // Maps the current row of a ResultSet to an object
+    public interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    // Consumes a whole ResultSet (e.g. to build a table model)
+    public interface ResultSetHandler<T> {
+        T handle(ResultSet rs) throws SQLException;
+    }
+
+    // Statements that must commit together; see inTransaction()
+    public interface TransactionWork<T> {
+        T run(Transaction transaction) throws SQLException;
+    }
+
+    /** Runs statements on the connection of one inTransaction() call. */
+    public static final class Transaction {
+        private final Connection connection;
+
+        private Transaction(Connection connection) {
+            this.connection = connection;
+        }
+
+        public int update(String sql, Object... params) throws SQLException {
+            try (PreparedStatement pstmt = prepare(connection, sql)) {
+                bind(pstmt, params);
+                return pstmt.executeUpdate();
+            } finally {
+                finish();
+            }
+        }
+
+        public int[] batch(String sql, List<Object[]> rows) throws SQLException {
+            try (PreparedStatement pstmt = prepare(connection, sql)) {
+                for (Object[] row : rows) {
+                    bind(pstmt, row);
+                    pstmt.addBatch();
+                }
+                return pstmt.executeBatch();
+            } finally {
+                finish();
+            }
+        }
+    }
+
+    /**
+     * Deadline and cancellation state of one DbExecutor call. cancel() can be called from any
+     * thread; it cancels the statement currently executing and makes later queries of the call fail.
+     */
+    static final class CallContext {
+        // System.nanoTime() deadline, 0 when there is none
+        final long deadline;
+        // Application method that submitted the call, for the slow-query log
+        final String callSite;
+        private Statement running;
+        private boolean cancelled;
+
+        CallContext(long deadline, String callSite) {
+            this.deadline = deadline;
+            this.callSite = callSite;
+        }
+
+        synchronized void start(Statement statement) throws SQLException {
+            if (cancelled) {
+                throw new SQLException("Query cancelled", "57014");
+            }
+            running = statement;
+        }
+
+        synchronized void finish() {
+            running = null;
+        }
+
+        // Cancels under the lock so the statement can't be handed to another call in between
+        synchronized void cancel() {
+            cancelled = true;
+            if (running != null) {
+                try {
+                    if (running.isClosed()) return;
+                    running.cancel();
+                } catch (SQLException e) {
+                    System.err.println("Error cancelling query: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static final ThreadLocal<CallContext> CONTEXT = new ThreadLocal<>();
+
+    private final ConnectionPool pool;
+
+    public QueryExecutor(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    public <T> List<T> query(String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        return queryResult(sql, rs -> {
+            List<T> rows = new ArrayList<>();
+            while (rs.next()) {
+                rows.add(mapper.map(rs));
+            }
+            return rows;
+        }, params);
+    }
+
+    // First row mapped, or null when the query returns nothing
+    public <T> T queryFirst(String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        return queryResult(sql, rs -> rs.next() ? mapper.map(rs) : null, params);
+    }
+
+    public <T> T queryResult(String sql, ResultSetHandler<T> handler, Object... params) throws SQLException {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement pstmt = prepare(connection, sql)) {
+            bind(pstmt, params);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return handler.handle(rs);
+            }
+        } finally {
+            finish();
+        }
+    }
+
+    public int update(String sql, Object... params) throws SQLException {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement pstmt = prepare(connection, sql)) {
+            bind(pstmt, params);
+            return pstmt.executeUpdate();
+        } finally {
+            finish();
+        }
+    }
+
+    // Runs an INSERT and returns the key generated for the new row, or -1 when there is none
+    public long insert(String sql, Object... params) throws SQLException {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement pstmt = prepare(connection, sql, true)) {
+            bind(pstmt, params);
+            pstmt.executeUpdate();
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                return keys.next() ? keys.getLong(1) : -1;
+            }
+        } finally {
+            finish();
+        }
+    }
+
+    public int[] batch(String sql, List<Object[]> rows) throws SQLException {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement pstmt = prepare(connection, sql)) {
+            for (Object[] row : rows) {
+                bind(pstmt, row);
+                pstmt.addBatch();
+            }
+            return pstmt.executeBatch();
+        } finally {
+            finish();
+        }
+    }
+
+    // Like batch(), but the rows are committed as one transaction: all of them or, on failure, none
+    public int[] batchInTransaction(String sql, List<Object[]> rows) throws SQLException {
+        return inTransaction(transaction -> transaction.batch(sql, rows));
+    }
+
+    /**
+     * Runs the work's statements on one connection and commits them together; if the work throws,
+     * everything is rolled back and the exception rethrown. The pool puts the connection back into
+     * auto-commit mode when it is returned.
+     */
+    public <T> T inTransaction(TransactionWork<T> work) throws SQLException {
+        try (Connection connection = pool.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                T result = work.run(new Transaction(connection));
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                try {
+                    connection.rollback();
+                } catch (SQLException rollbackError) {
+                    e.addSuppressed(rollbackError);
+                }
+                throw e;
+            }
+        }
+    }
+
+    public double getStatementCacheHitRatio() {
+        return pool.getStats().getStatementHitRatio();
+    }
+
+    static CallContext currentContext() {
+        return CONTEXT.get();
+    }
+
+    static void setContext(CallContext context) {
+        if (context == null) {
+            CONTEXT.remove();
+        } else {
+            CONTEXT.set(context);
+        }
+    }
+
+    private static PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+        return prepare(connection, sql, false);
+    }
+
+    // Cached statements are reused, so the timeout is always set, including back to 0. Statements
+    // returning generated keys are not cached by the pool.
+    private static PreparedStatement prepare(Connection connection, String sql, boolean generatedKeys) throws SQLException {
+        PreparedStatement pstmt = generatedKeys
+            ? connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS) : connection.prepareStatement(sql);
+        CallContext context = CONTEXT.get();
+        int timeoutSeconds = 0;
+        try {
+            if (context != null) {
+                if (context.deadline != 0) {
+                    long remaining = context.deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw new SQLTimeoutException("Deadline passed before the query started");
+                    }
+                    timeoutSeconds = (int) Math.max(1, TimeUnit.NANOSECONDS.toSeconds(remaining + 999_999_999L));
+                }
+                context.start(pstmt);
+            }
+            pstmt.setQueryTimeout(timeoutSeconds);
+        } catch (SQLException e) {
+            pstmt.close();
+            throw e;
+        }
+        return pstmt;
+    }
+
+    private static void finish() {
+        CallContext context = CONTEXT.get();
+        if (context != null) {
+            context.finish();
+        }
+    }
+
+    private static void bind(PreparedStatement pstmt, Object[] params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            pstmt.setObject(i + 1, params[i]);
+        }
+    }
+}
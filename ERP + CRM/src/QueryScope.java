@@ -0,0 +1,65 @@
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+/**
+ * Ties database calls to the lifetime of a frame. Calls submitted through the scope are cancelled
+ * when the frame calls close() from dispose(): queued calls never start, running statements are
+ * cancelled with Statement.cancel() so their connections go back to the pool, and results that
+ * arrive afterwards are dropped instead of touching a disposed window.
+ */
+public class QueryScope {
+
+    private final Set<CompletableFuture<?>> pending = Collections.newSetFromMap(new IdentityHashMap<>());
+    private volatile boolean closed;
+
+    public <T> CompletableFuture<T> submit(DbExecutor.DbCall<T> call) {
+        return track(DbExecutor.submit(call));
+    }
+
+    public <T> CompletableFuture<T> submit(JdbcProfile profile, DbExecutor.DbCall<T> call) {
+        return track(DbExecutor.submit(profile, call));
+    }
+
+    /** Like DbExecutor.onEdt, but the callback is skipped once the scope has been closed. */
+    public <T> BiConsumer<T, Throwable> onEdt(BiConsumer<T, Throwable> callback) {
+        return DbExecutor.onEdt((result, error) -> {
+            if (!closed) callback.accept(result, error);
+        });
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    // Cancels everything still outstanding; safe to call more than once
+    public void close() {
+        CompletableFuture<?>[] outstanding;
+        synchronized (pending) {
+            closed = true;
+            outstanding = pending.toArray(new CompletableFuture<?>[0]);
+            pending.clear();
+        }
+        for (CompletableFuture<?> future : outstanding) {
+            future.cancel(true);
+        }
+    }
+
+    private <T> CompletableFuture<T> track(CompletableFuture<T> future) {
+        synchronized (pending) {
+            if (closed) {
+                future.cancel(true);
+                return future;
+            }
+            pending.add(future);
+        }
+        future.whenComplete((result, error) -> {
+            synchronized (pending) {
+                pending.remove(future);
+            }
+        });
+        return future;
+    }
+}
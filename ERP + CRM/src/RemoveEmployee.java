@@ -3,9 +3,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
+import java.util.List;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 
@@ -22,9 +20,11 @@ public class RemoveEmployee extends JFrame implements ActionListener, ItemListen
     private static final Color BACKGROUND_COLOR = new Color(236, 240, 241);
     private static final Color INPUT_COLOR = new Color(248, 249, 250);
     private static final Color BORDER_COLOR = new Color(220, 221, 225);
+    // Employees before and after the selection whose details are loaded along with it
+    private static final int PREFETCH_NEIGHBOURS = 5;
     
     // UI Components
-    private JComboBox<EmployeeItem> employeeComboBox;
+    private EmployeePicker employeeComboBox;
     private JButton deleteButton, backButton, refreshButton, previewButton;
     private JLabel nameValueLabel, phoneValueLabel, emailValueLabel, positionValueLabel, 
                    departmentValueLabel, salaryValueLabel, addressValueLabel, statusLabel;
@@ -32,28 +32,11 @@ public class RemoveEmployee extends JFrame implements ActionListener, ItemListen
     private JProgressBar progressBar;
     
     // Data
-    private conn dbConnection;
+    private final EmployeeRepository employeeRepository = new EmployeeRepository();
+    private final QueryScope queryScope = new QueryScope();
     private EmployeeDetails selectedEmployee;
     
     // Inner classes for data management
-    private static class EmployeeItem {
-        private final String id;
-        private final String name;
-        
-        public EmployeeItem(String id, String name) {
-            this.id = id;
-            this.name = name;
-        }
-        
-        public String getId() { return id; }
-        public String getName() { return name; }
-        
-        @Override
-        public String toString() {
-            return id + " - " + name;
-        }
-    }
-    
     private static class EmployeeDetails {
         String id, name, phone, email, position, department, salary, address, education, gender, joiningDate;
         int age;
@@ -77,20 +60,11 @@ public class RemoveEmployee extends JFrame implements ActionListener, ItemListen
     }
     
     public RemoveEmployee() {
-        initializeDatabase();
+        conn.checkReachable(this, queryScope);
         initializeUI();
         loadEmployeeData();
     }
     
-    private void initializeDatabase() {
-        try {
-            dbConnection = new conn();
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Database connection failed: " + e.getMessage(),
-                                        "Connection Error", JOptionPane.ERROR_MESSAGE);
-        }
-    }
-    
     private void initializeUI() {
         // Configure main window
         setTitle("Remove Employee - EMS");
@@ -219,7 +193,8 @@ public class RemoveEmployee extends JFrame implements ActionListener, ItemListen
         selectLabel.setFont(new Font("Segoe UI", Font.BOLD, 16));
         selectLabel.setForeground(SECONDARY_COLOR);
         
-        employeeComboBox = new JComboBox<>();
+        // Type-ahead over names and ids instead of one item per employee
+        employeeComboBox = new EmployeePicker(queryScope, new EmployeeRecord.Ref("", "-- Select Employee --"));
         employeeComboBox.setFont(new Font("Segoe UI", Font.PLAIN, 14));
         employeeComboBox.setPreferredSize(new Dimension(300, 40));
         employeeComboBox.setBackground(INPUT_COLOR);
@@ -414,33 +389,20 @@ public class RemoveEmployee extends JFrame implements ActionListener, ItemListen
     }
     
     private void loadEmployeeData() {
-        try {
-            if (dbConnection == null || dbConnection.statement == null) {
-                statusLabel.setText("Database connection not available");
+        employeeComboBox.clearSelection();
+        employeeComboBox.reload().whenComplete(queryScope.onEdt((count, error) -> {
+            if (error != null) {
+                error.printStackTrace();
+                statusLabel.setText("Error loading employee data");
                 statusLabel.setForeground(DANGER_COLOR);
+                JOptionPane.showMessageDialog(this, "Error loading employee data: " + DbExecutor.describe(error),
+                                            "Database Error", JOptionPane.ERROR_MESSAGE);
                 return;
             }
             
-            employeeComboBox.removeAllItems();
-            employeeComboBox.addItem(new EmployeeItem("", "-- Select Employee --"));
-            
-            ResultSet rs = dbConnection.statement.executeQuery("SELECT id, name FROM employee ORDER BY name");
-            int count = 0;
-            while (rs.next()) {
-                employeeComboBox.addItem(new EmployeeItem(rs.getString("id"), rs.getString("name")));
-                count++;
-            }
-            
             statusLabel.setText(count + " employees available");
             statusLabel.setForeground(SUCCESS_COLOR);
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
-            statusLabel.setText("Error loading employee data");
-            statusLabel.setForeground(DANGER_COLOR);
-            JOptionPane.showMessageDialog(this, "Error loading employee data: " + e.getMessage(),
-                                        "Database Error", JOptionPane.ERROR_MESSAGE);
-        }
+        }));
     }
     
     private void loadEmployeeDetails(String employeeId) {
@@ -449,48 +411,53 @@ public class RemoveEmployee extends JFrame implements ActionListener, ItemListen
             return;
         }
         
-        try {
-            String query = "SELECT * FROM employee WHERE id = ?";
-            try (PreparedStatement pstmt = dbConnection.statement.getConnection().prepareStatement(query)) {
-                pstmt.setString(1, employeeId);
-                ResultSet rs = pstmt.executeQuery();
+        // Employees around the selection are loaded ahead, so arrowing through the list is answered from memory
+        List<String> neighbours = employeeComboBox.getNeighbourIds(PREFETCH_NEIGHBOURS);
+        queryScope.submit(() -> EmployeeDirectory.get(employeeId, neighbours)).whenComplete(queryScope.onEdt((employee, error) -> {
+            // Ignore answers for an employee that is no longer selected
+            EmployeeRecord.Ref selectedItem = employeeComboBox.getSelectedEmployee();
+            if (selectedItem == null || !employeeId.equals(selectedItem.getId())) return;
+            
+            if (error != null) {
+                error.printStackTrace();
+                clearEmployeeDetails();
+                statusLabel.setText("Error loading employee details");
+                statusLabel.setForeground(DANGER_COLOR);
+            } else if (employee != null) {
+                selectedEmployee = new EmployeeDetails(
+                    employee.getId(),
+                    employee.getName(),
+                    employee.getAge(),
+                    employee.getGender(),
+                    employee.getPhone(),
+                    employee.getEmail(),
+                    employee.getPosition(),
+                    employee.getDepartment(),
+                    employee.getSalary(),
+                    employee.getEducation(),
+                    employee.getAddress(),
+                    employee.getJoiningDate()
+                );
                 
-                if (rs.next()) {
-                    selectedEmployee = new EmployeeDetails(
-                        rs.getString("id"),
-                        rs.getString("name"),
-                        rs.getInt("age"),
-                        rs.getString("gender"),
-                        rs.getString("phone"),
-                        rs.getString("email"),
-                        rs.getString("position"),
-                        rs.getString("department"),
-                        rs.getString("salary"),
-                        rs.getString("education"),
-                        rs.getString("address"),
-                        rs.getString("joining_date")
-                    );
-                    
-                    updateEmployeeDisplay();
-                    employeeInfoPanel.setVisible(true);
-                    deleteButton.setEnabled(true);
-                    previewButton.setEnabled(true);
-                    
-                    statusLabel.setText("Employee details loaded");
-                    statusLabel.setForeground(SUCCESS_COLOR);
-                } else {
-                    clearEmployeeDetails();
-                    statusLabel.setText("Employee not found");
-                    statusLabel.setForeground(DANGER_COLOR);
-                }
+                updateEmployeeDisplay();
+                employeeInfoPanel.setVisible(true);
+                deleteButton.setEnabled(true);
+                previewButton.setEnabled(true);
+                
+                statusLabel.setText("Employee details loaded");
+                statusLabel.setForeground(SUCCESS_COLOR);
+                
+                // Keeps the neighbours loaded ahead as the selection moves; reads nothing while enough are cached
+                queryScope.submit(() -> {
+                    EmployeeDirectory.prefetch(neighbours);
+                    return null;
+                });
+            } else {
+                clearEmployeeDetails();
+                statusLabel.setText("Employee not found");
+                statusLabel.setForeground(DANGER_COLOR);
             }
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
-            clearEmployeeDetails();
-            statusLabel.setText("Error loading employee details");
-            statusLabel.setForeground(DANGER_COLOR);
-        }
+        }));
     }
     
     private void updateEmployeeDisplay() {
@@ -543,8 +510,8 @@ public class RemoveEmployee extends JFrame implements ActionListener, ItemListen
     @Override
     public void itemStateChanged(ItemEvent e) {
         if (e.getStateChange() == ItemEvent.SELECTED) {
-            EmployeeItem selectedItem = (EmployeeItem) employeeComboBox.getSelectedItem();
-            if (selectedItem != null && !selectedItem.getId().isEmpty()) {
+            EmployeeRecord.Ref selectedItem = employeeComboBox.getSelectedEmployee();
+            if (selectedItem != null) {
                 loadEmployeeDetails(selectedItem.getId());
             } else {
                 clearEmployeeDetails();
@@ -608,74 +575,42 @@ public class RemoveEmployee extends JFrame implements ActionListener, ItemListen
         deleteButton.setEnabled(false);
         previewButton.setEnabled(false);
         
-        SwingWorker<Boolean, Void> worker = new SwingWorker<Boolean, Void>() {
-            @Override
-            protected Boolean doInBackground() throws Exception {
-                try {
-                    if (dbConnection == null || dbConnection.statement == null) {
-                        throw new Exception("Database connection not available");
-                    }
-                    
-                    String query = "DELETE FROM employee WHERE id = ?";
-                    try (PreparedStatement pstmt = dbConnection.statement.getConnection().prepareStatement(query)) {
-                        pstmt.setString(1, selectedEmployee.id);
-                        int rowsAffected = pstmt.executeUpdate();
-                        return rowsAffected > 0;
-                    }
-                } catch (Exception ex) {
-                    ex.printStackTrace();
-                    return false;
-                }
-            }
+        EmployeeDetails employee = selectedEmployee;
+        DbExecutor.submit(() -> employeeRepository.delete(employee.id) > 0).whenComplete(queryScope.onEdt((success, error) -> {
+            progressBar.setVisible(false);
             
-            @Override
-            protected void done() {
-                progressBar.setVisible(false);
+            if (error != null) {
+                error.printStackTrace();
+                JOptionPane.showMessageDialog(RemoveEmployee.this,
+                    "Error: " + DbExecutor.describe(error),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+                deleteButton.setEnabled(true);
+                previewButton.setEnabled(true);
+            } else if (success) {
+                JOptionPane.showMessageDialog(RemoveEmployee.this,
+                    "Employee '" + employee.name + "' deleted successfully!\n" +
+                    "Employee ID: " + employee.id,
+                    "Success", JOptionPane.INFORMATION_MESSAGE);
                 
-                try {
-                    boolean success = get();
-                    if (success) {
-                        JOptionPane.showMessageDialog(RemoveEmployee.this,
-                            "Employee '" + selectedEmployee.name + "' deleted successfully!\n" +
-                            "Employee ID: " + selectedEmployee.id,
-                            "Success", JOptionPane.INFORMATION_MESSAGE);
-                        
-                        // Refresh data and clear selection
-                        loadEmployeeData();
-                        clearEmployeeDetails();
-                        
-                    } else {
-                        JOptionPane.showMessageDialog(RemoveEmployee.this,
-                            "Failed to delete employee. Please try again.",
-                            "Error", JOptionPane.ERROR_MESSAGE);
-                        deleteButton.setEnabled(true);
-                        previewButton.setEnabled(true);
-                    }
-                } catch (Exception ex) {
-                    JOptionPane.showMessageDialog(RemoveEmployee.this,
-                        "Error: " + ex.getMessage(),
-                        "Error", JOptionPane.ERROR_MESSAGE);
-                    deleteButton.setEnabled(true);
-                    previewButton.setEnabled(true);
-                }
+                // Refresh data and clear selection
+                loadEmployeeData();
+                clearEmployeeDetails();
+                
+            } else {
+                JOptionPane.showMessageDialog(RemoveEmployee.this,
+                    "Failed to delete employee. Please try again.",
+                    "Error", JOptionPane.ERROR_MESSAGE);
+                deleteButton.setEnabled(true);
+                previewButton.setEnabled(true);
             }
-        };
-        
-        worker.execute();
+        }));
     }
     
     @Override
     public void dispose() {
-        // Clean up database connection
-        if (dbConnection != null) {
-            try {
-                if (dbConnection.statement != null) {
-                    dbConnection.statement.close();
-                }
-            } catch (Exception e) {
-                System.err.println("Error closing database connection: " + e.getMessage());
-            }
-        }
+        // Cancel this window's outstanding queries
+        if (employeeComboBox != null) employeeComboBox.cancel();
+        queryScope.close();
         super.dispose();
     }
     
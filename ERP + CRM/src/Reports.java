@@ -2,7 +2,9 @@ import java.awt.*;
 import java.awt.event.*;
 import java.sql.*;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import javax.swing.*;
 import javax.swing.border.*;
@@ -34,25 +36,20 @@ public class Reports extends JFrame implements ActionListener {
     private JLabel totalEmployeesLabel, activeTasksLabel, completionRateLabel, statusLabel;
     
     // Data
-    private conn dbConnection;
+    private final EmployeeRepository employeeRepository = new EmployeeRepository(JdbcProfile.REPORTING);
+    private final TaskRepository taskRepository = new TaskRepository(JdbcProfile.REPORTING);
+    private final QueryScope queryScope = new QueryScope();
+    private SearchPipeline searchPipeline;
+    // Rows of the last generated report, replaced (never modified) so searches can read them off the EDT
+    private volatile List<Object[]> reportRows = new ArrayList<>();
     
     public Reports() {
-        initializeDatabase();
+        conn.checkReachable(this, queryScope);
         initializeUI();
         loadInitialData();
         setupEventListeners();
     }
     
-    private void initializeDatabase() {
-        try {
-            dbConnection = new conn();
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Database connection failed: " + e.getMessage(),
-                                        "Database Error", JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
-        }
-    }
-    
     private void initializeUI() {
         setTitle("Employee Management System - Reports");
         setSize(WINDOW_WIDTH, WINDOW_HEIGHT);
@@ -499,12 +496,7 @@ public class Reports extends JFrame implements ActionListener {
         // Add listeners for filters
         reportTypeCombo.addActionListener(e -> updateReportColumns());
         
-        searchField.addKeyListener(new KeyAdapter() {
-            @Override
-            public void keyReleased(KeyEvent e) {
-                filterReportData();
-            }
-        });
+        searchPipeline = new SearchPipeline(searchField, queryScope, this::prepareReportSearch);
     }
     
     private void loadInitialData() {
@@ -513,47 +505,39 @@ public class Reports extends JFrame implements ActionListener {
     }
     
     private void updateStatistics() {
-        try {
+        queryScope.submit(JdbcProfile.REPORTING, () -> {
+            String[] values = new String[3];
             // Get total employees
-            String empQuery = "SELECT COUNT(*) as total FROM employee";
-            ResultSet empRs = dbConnection.statement.executeQuery(empQuery);
-            if (empRs.next()) {
-                totalEmployeesLabel.setText(String.valueOf(empRs.getInt("total")));
-            }
-            empRs.close();
+            values[0] = String.valueOf(EmployeeDirectory.count());
             
             // Get active tasks (if tasks table exists)
             try {
-                String taskQuery = "SELECT COUNT(*) as active FROM tasks WHERE status IN ('Pending', 'In Progress')";
-                ResultSet taskRs = dbConnection.statement.executeQuery(taskQuery);
-                if (taskRs.next()) {
-                    activeTasksLabel.setText(String.valueOf(taskRs.getInt("active")));
-                }
-                taskRs.close();
+                values[1] = String.valueOf(taskRepository.countOpen());
                 
                 // Calculate completion rate
-                String completionQuery = "SELECT " +
-                    "(SELECT COUNT(*) FROM tasks WHERE status = 'Completed') * 100.0 / COUNT(*) as rate " +
-                    "FROM tasks";
-                ResultSet compRs = dbConnection.statement.executeQuery(completionQuery);
-                if (compRs.next()) {
-                    completionRateLabel.setText(String.format("%.1f%%", compRs.getDouble("rate")));
-                }
-                compRs.close();
+                values[2] = String.format("%.1f%%", taskRepository.completionRate());
             } catch (SQLException e) {
                 // Tasks table doesn't exist, set default values
-                activeTasksLabel.setText("N/A");
-                completionRateLabel.setText("N/A");
+                values[1] = "N/A";
+                values[2] = "N/A";
             }
-            
-        } catch (SQLException e) {
-            System.err.println("Error updating statistics: " + e.getMessage());
-        }
+            return values;
+        }).whenComplete(queryScope.onEdt((values, error) -> {
+            if (error != null) {
+                System.err.println("Error updating statistics: " + error.getMessage());
+                return;
+            }
+            totalEmployeesLabel.setText(values[0]);
+            activeTasksLabel.setText(values[1]);
+            completionRateLabel.setText(values[2]);
+        }));
     }
     
     private void updateReportColumns() {
         String reportType = (String) reportTypeCombo.getSelectedItem();
         tableModel.setRowCount(0);
+        reportRows = new ArrayList<>();
+        showReportModel(tableModel);
         
         switch (reportType) {
             case "Employee Summary":
@@ -581,151 +565,145 @@ public class Reports extends JFrame implements ActionListener {
         // Update status without progress indication
         statusLabel.setText("Generating Report...");
         statusLabel.setForeground(WARNING_COLOR);
+        generateBtn.setEnabled(false);
         
-        try {
-            tableModel.setRowCount(0);
-            
+        queryScope.submit(JdbcProfile.REPORTING, () -> {
             switch (reportType) {
                 case "Employee Summary":
-                    generateEmployeeSummary(department);
-                    break;
+                    return generateEmployeeSummary(department);
                 case "Department Analysis":
-                    generateDepartmentAnalysis();
-                    break;
+                    return generateDepartmentAnalysis();
                 case "Task Reports":
-                    generateTaskReports(department);
-                    break;
+                    return generateTaskReports(department);
                 case "Performance Overview":
-                    generatePerformanceOverview(department);
-                    break;
+                    return generatePerformanceOverview(department);
                 case "Attendance Summary":
-                    generateAttendanceSummary(department);
-                    break;
+                    return generateAttendanceSummary(department);
+                default:
+                    return new ArrayList<Object[]>();
+            }
+        }).whenComplete(queryScope.onEdt((rows, error) -> {
+            generateBtn.setEnabled(true);
+            if (error != null) {
+                System.err.println("Error generating report: " + error.getMessage());
+                statusLabel.setText("❌ Error Generating Report");
+                statusLabel.setForeground(DANGER_COLOR);
+                JOptionPane.showMessageDialog(this, 
+                    "Error generating report: " + DbExecutor.describe(error), 
+                    "Report Error", 
+                    JOptionPane.ERROR_MESSAGE);
+                return;
             }
             
+            tableModel.setRowCount(0);
+            for (Object[] row : rows) {
+                tableModel.addRow(row);
+            }
+            reportRows = rows;
+            // Re-apply the search to the new rows
+            searchPipeline.runNow();
+            
             // Update status to completed
             statusLabel.setText("✅ Report Generated Successfully");
             statusLabel.setForeground(SUCCESS_COLOR);
             generateReportSummary();
-            
-        } catch (SQLException e) {
-            System.err.println("Error generating report: " + e.getMessage());
-            statusLabel.setText("❌ Error Generating Report");
-            statusLabel.setForeground(DANGER_COLOR);
-            JOptionPane.showMessageDialog(this, 
-                "Error generating report: " + e.getMessage(), 
-                "Report Error", 
-                JOptionPane.ERROR_MESSAGE);
-        }
-    }
-    
-    private void generateEmployeeSummary(String department) throws SQLException {
-        String query = "SELECT id, name, department, position, email, phone FROM employee";
-        if (!"All".equals(department)) {
-            query += " WHERE department = '" + department + "'";
-        }
-        
-        ResultSet rs = dbConnection.statement.executeQuery(query);
-        while (rs.next()) {
-            tableModel.addRow(new Object[]{
-                rs.getInt("id"),
-                rs.getString("name"),
-                rs.getString("department"),
-                rs.getString("position"),
-                rs.getString("email"),
-                rs.getString("phone")
+        }));
+    }
+    
+    // Report rows are built off the EDT and added to the table model in one go
+    private List<Object[]> generateEmployeeSummary(String department) throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
+        for (EmployeeRecord.Summary employee : EmployeeDirectory.summaries(department)) {
+            rows.add(new Object[]{
+                employee.getId(),
+                employee.getName(),
+                employee.getDepartment(),
+                employee.getPosition(),
+                employee.getEmail(),
+                employee.getPhone()
             });
         }
-        rs.close();
+        return rows;
     }
     
-    private void generateDepartmentAnalysis() throws SQLException {
-        String query = "SELECT department, COUNT(*) as emp_count, AVG(salary) as avg_sal " +
-                      "FROM employee GROUP BY department";
-        
-        ResultSet rs = dbConnection.statement.executeQuery(query);
-        while (rs.next()) {
-            tableModel.addRow(new Object[]{
-                rs.getString("department"),
-                rs.getInt("emp_count"),
-                String.format("$%.2f", rs.getDouble("avg_sal")),
+    private List<Object[]> generateDepartmentAnalysis() throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
+        for (EmployeeRepository.DepartmentStats stats : employeeRepository.findDepartmentStats()) {
+            rows.add(new Object[]{
+                stats.getDepartment(),
+                stats.getEmployeeCount(),
+                String.format("$%.2f", stats.getAverageSalary()),
                 "N/A" // Placeholder for active projects
             });
         }
-        rs.close();
+        return rows;
     }
     
-    private void generateTaskReports(String department) throws SQLException {
+    private List<Object[]> generateTaskReports(String department) {
+        List<Object[]> rows = new ArrayList<>();
         try {
-            String query = "SELECT t.id, t.title, t.status, t.priority, e.name as assigned_to, t.due_date " +
-                          "FROM tasks t LEFT JOIN employee e ON t.assigned_to = e.id";
-            
-            if (!"All".equals(department)) {
-                query += " WHERE e.department = '" + department + "'";
-            }
-            
-            ResultSet rs = dbConnection.statement.executeQuery(query);
-            while (rs.next()) {
-                tableModel.addRow(new Object[]{
-                    rs.getInt("id"),
-                    rs.getString("title"),
-                    rs.getString("status"),
-                    rs.getString("priority"),
-                    rs.getString("assigned_to") != null ? rs.getString("assigned_to") : "Unassigned",
-                    rs.getDate("due_date") != null ? new SimpleDateFormat("dd/MM/yyyy").format(rs.getDate("due_date")) : "N/A"
+            for (TaskRecord task : taskRepository.findByDepartment(department)) {
+                rows.add(new Object[]{
+                    task.getId(),
+                    task.getTitle(),
+                    task.getStatus(),
+                    task.getPriority(),
+                    task.getAssigneeName() != null ? task.getAssigneeName() : "Unassigned",
+                    task.getDueDate() != null ? new SimpleDateFormat("dd/MM/yyyy").format(java.sql.Date.valueOf(task.getDueDate())) : "N/A"
                 });
             }
-            rs.close();
         } catch (SQLException e) {
             // Tasks table doesn't exist
-            tableModel.addRow(new Object[]{"N/A", "No task data available", "N/A", "N/A", "N/A", "N/A"});
+            rows.clear();
+            rows.add(new Object[]{"N/A", "No task data available", "N/A", "N/A", "N/A", "N/A"});
         }
+        return rows;
     }
     
-    private void generatePerformanceOverview(String department) throws SQLException {
-        String query = "SELECT name, department FROM employee";
+    private List<Object[]> generatePerformanceOverview(String department) throws SQLException {
+        String query = "SELECT name, department FROM employee WHERE " + EmployeeRepository.LIVE;
+        Object[] params = {};
         if (!"All".equals(department)) {
-            query += " WHERE department = '" + department + "'";
+            query += " AND department = ?";
+            params = new Object[]{department};
         }
         
-        ResultSet rs = dbConnection.statement.executeQuery(query);
-        while (rs.next()) {
+        return conn.executor(JdbcProfile.REPORTING).query(query, rs -> {
             // Simulate performance data
             int completedTasks = (int) (Math.random() * 20);
             double performanceScore = 60 + (Math.random() * 40);
             
-            tableModel.addRow(new Object[]{
+            return new Object[]{
                 rs.getString("name"),
                 rs.getString("department"),
                 completedTasks,
                 String.format("%.1f", performanceScore)
-            });
-        }
-        rs.close();
+            };
+        }, params);
     }
     
-    private void generateAttendanceSummary(String department) throws SQLException {
-        String query = "SELECT name, department FROM employee";
+    private List<Object[]> generateAttendanceSummary(String department) throws SQLException {
+        String query = "SELECT name, department FROM employee WHERE " + EmployeeRepository.LIVE;
+        Object[] params = {};
         if (!"All".equals(department)) {
-            query += " WHERE department = '" + department + "'";
+            query += " AND department = ?";
+            params = new Object[]{department};
         }
         
-        ResultSet rs = dbConnection.statement.executeQuery(query);
-        while (rs.next()) {
+        return conn.executor(JdbcProfile.REPORTING).query(query, rs -> {
             // Simulate attendance data
             int daysPresent = 20 + (int) (Math.random() * 10);
             int daysAbsent = (int) (Math.random() * 5);
             double attendanceRate = (daysPresent * 100.0) / (daysPresent + daysAbsent);
             
-            tableModel.addRow(new Object[]{
+            return new Object[]{
                 rs.getString("name"),
                 rs.getString("department"),
                 daysPresent,
                 daysAbsent,
                 String.format("%.1f%%", attendanceRate)
-            });
-        }
-        rs.close();
+            };
+        }, params);
     }
     
     private void generateReportSummary() {
@@ -758,37 +736,34 @@ public class Reports extends JFrame implements ActionListener {
         summaryArea.setText(summary.toString());
     }
     
-    private void filterReportData() {
-        // Simple filtering based on search text
-        String searchText = searchField.getText().toLowerCase();
-        if (searchText.isEmpty()) {
-            generateReport();
-            return;
+    // Matches the search text against the generated rows in the background; an empty search shows them all
+    private DbExecutor.DbCall<Runnable> prepareReportSearch(String text, SearchPipeline.Run run) {
+        if (text.isEmpty()) {
+            showReportModel(tableModel);
+            return null;
         }
-        
-        // Filter existing table data
-        DefaultTableModel filteredModel = new DefaultTableModel();
-        filteredModel.setColumnIdentifiers(getColumnNames());
-        
-        for (int i = 0; i < tableModel.getRowCount(); i++) {
-            boolean matchFound = false;
-            for (int j = 0; j < tableModel.getColumnCount(); j++) {
-                Object value = tableModel.getValueAt(i, j);
-                if (value != null && value.toString().toLowerCase().contains(searchText)) {
-                    matchFound = true;
-                    break;
-                }
-            }
-            if (matchFound) {
-                Object[] row = new Object[tableModel.getColumnCount()];
-                for (int j = 0; j < tableModel.getColumnCount(); j++) {
-                    row[j] = tableModel.getValueAt(i, j);
+        String searchText = text.toLowerCase();
+        List<Object[]> rows = reportRows;
+        String[] columns = getColumnNames();
+        
+        return () -> {
+            DefaultTableModel filteredModel = new DefaultTableModel(columns, 0);
+            for (int i = 0; i < rows.size(); i++) {
+                if (i % 1024 == 0 && run.isCancelled()) return null;
+                for (Object value : rows.get(i)) {
+                    if (value != null && value.toString().toLowerCase().contains(searchText)) {
+                        filteredModel.addRow(rows.get(i));
+                        break;
+                    }
                 }
-                filteredModel.addRow(row);
             }
-        }
-        
-        reportTable.setModel(filteredModel);
+            return () -> showReportModel(filteredModel);
+        };
+    }
+    
+    private void showReportModel(TableModel model) {
+        if (reportTable.getModel() == model) return;
+        reportTable.setModel(model);
         styleTable(reportTable);
     }
     
@@ -875,19 +850,9 @@ public class Reports extends JFrame implements ActionListener {
     
     @Override
     public void dispose() {
-        // Clean up database connection
-        if (dbConnection != null) {
-            try {
-                if (dbConnection.statement != null) {
-                    dbConnection.statement.close();
-                }
-                if (dbConnection.connection != null) {
-                    dbConnection.connection.close();
-                }
-            } catch (SQLException e) {
-                System.err.println("Error closing database connection: " + e.getMessage());
-            }
-        }
+        // Cancel this window's outstanding queries
+        if (searchPipeline != null) searchPipeline.cancel();
+        queryScope.close();
         super.dispose();
     }
     
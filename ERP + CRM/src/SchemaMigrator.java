@@ -0,0 +1,239 @@
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Versioned schema migrations. Each step runs once, in order, and is recorded in schema_version;
+ * steps only ever add tables, columns and indexes - they never drop data.
+ *
+ * To change the schema, append a new step to {@link #migrations()} - never edit a step that has
+ * already shipped.
+ */
+public class SchemaMigrator {
+
+    // One migration step
+    interface Migration {
+        void apply(Connection connection) throws SQLException;
+    }
+
+    private static final class Step {
+        final int version;
+        final String description;
+        final Migration migration;
+
+        Step(int version, String description, Migration migration) {
+            this.version = version;
+            this.description = description;
+            this.migration = migration;
+        }
+    }
+
+    private static boolean migrated;
+
+    private static List<Step> migrations() {
+        List<Step> steps = new ArrayList<>();
+        steps.add(new Step(1, "Create tasks table", SchemaMigrator::createTasksTable));
+        steps.add(new Step(2, "Index tasks by assignee/status and creation date", connection -> {
+            createIndexIfMissing(connection, "tasks", "idx_tasks_assignee_status", "assigned_to", "status");
+            createIndexIfMissing(connection, "tasks", "idx_tasks_created", "created_date");
+        }));
+        steps.add(new Step(3, "Index employees by department/position and by position", connection -> {
+            createIndexIfMissing(connection, "employee", "idx_employee_department_position", "department", "position");
+            createIndexIfMissing(connection, "employee", "idx_employee_position", "position");
+        }));
+        steps.add(new Step(4, "Index employees by name for picker prefix lookups", connection ->
+            createIndexIfMissing(connection, "employee", "idx_employee_name", "name")));
+        steps.add(new Step(5, "Create id_block table for block id allocation", connection -> {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.executeUpdate("CREATE TABLE IF NOT EXISTS id_block (" +
+                    "name VARCHAR(50) PRIMARY KEY, next_id BIGINT NOT NULL)");
+            }
+        }));
+        steps.add(new Step(6, "Add version column to employee for optimistic updates", connection -> {
+            if (columnType(connection, "employee", "version") != null) return;
+            try (Statement stmt = connection.createStatement()) {
+                stmt.executeUpdate("ALTER TABLE employee ADD COLUMN version INT NOT NULL DEFAULT 0");
+            }
+        }));
+        steps.add(new Step(7, "Create employee_removal queue and employee_archive table", SchemaMigrator::createArchiveTables));
+        steps.add(new Step(8, "Create employee_bulk_change journal for undoing bulk updates", connection -> {
+            String idType = columnType(connection, "employee", "id");
+            String employeeIdType = idType != null && idType.toUpperCase().startsWith("BIGINT") ? "BIGINT" : "INT";
+            try (Statement stmt = connection.createStatement()) {
+                stmt.executeUpdate("CREATE TABLE IF NOT EXISTS employee_bulk_change (" +
+                    "run_id BIGINT NOT NULL, chunk INT NOT NULL, id " + employeeIdType + " NOT NULL, " +
+                    "department VARCHAR(50), position VARCHAR(100), salary VARCHAR(20), version INT NOT NULL, " +
+                    "changed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, PRIMARY KEY (run_id, id))");
+            }
+            createIndexIfMissing(connection, "employee_bulk_change", "idx_employee_bulk_change_chunk", "run_id", "chunk");
+        }));
+        steps.add(new Step(9, "Create employee_audit log of field-level changes", connection -> {
+            String idType = columnType(connection, "employee", "id");
+            String employeeIdType = idType != null && idType.toUpperCase().startsWith("BIGINT") ? "BIGINT" : "INT";
+            try (Statement stmt = connection.createStatement()) {
+                stmt.executeUpdate("CREATE TABLE IF NOT EXISTS employee_audit (" +
+                    "audit_id BIGINT PRIMARY KEY AUTO_INCREMENT, employee_id " + employeeIdType + " NOT NULL, " +
+                    "action VARCHAR(10) NOT NULL, field VARCHAR(30), old_value VARCHAR(255), new_value VARCHAR(255), " +
+                    "changed_by VARCHAR(100), changed_at TIMESTAMP NOT NULL)");
+            }
+            createIndexIfMissing(connection, "employee_audit", "idx_employee_audit_employee", "employee_id", "changed_at");
+        }));
+        return steps;
+    }
+
+    /**
+     * Brings the schema up to date. Cheap after the first successful call, so screens that need
+     * the schema can call it defensively.
+     */
+    public static synchronized void migrate() throws SQLException {
+        if (migrated) return;
+
+        try (Connection connection = conn.pool(JdbcProfile.INTERACTIVE).getConnection()) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.executeUpdate("CREATE TABLE IF NOT EXISTS schema_version (" +
+                    "version INT PRIMARY KEY, description VARCHAR(255) NOT NULL, " +
+                    "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            }
+
+            // On MySQL the employee and login tables are provisioned outside the application
+            if (conn.config().getBackend().isEmbedded()) {
+                createBaseTables(connection);
+            }
+
+            int current = currentVersion(connection);
+            for (Step step : migrations()) {
+                if (step.version <= current) continue;
+
+                step.migration.apply(connection);
+                try (PreparedStatement pstmt = connection.prepareStatement(
+                        "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+                    pstmt.setInt(1, step.version);
+                    pstmt.setString(2, step.description);
+                    pstmt.executeUpdate();
+                } catch (SQLIntegrityConstraintViolationException e) {
+                    // Another instance applied the same step concurrently; steps are idempotent
+                }
+            }
+        }
+        migrated = true;
+    }
+
+    public static int currentVersion(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(version) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    // Same shape as the production tables, plus a default admin so the embedded database is usable
+    private static void createBaseTables(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS employee (" +
+                "id INT PRIMARY KEY, name VARCHAR(100) NOT NULL, age INT, gender VARCHAR(10), " +
+                "phone VARCHAR(15), email VARCHAR(100), position VARCHAR(100), department VARCHAR(50), " +
+                "salary VARCHAR(20), education VARCHAR(50), address VARCHAR(255), joining_date VARCHAR(20))");
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS login (" +
+                "username VARCHAR(50) PRIMARY KEY, password VARCHAR(100) NOT NULL, role VARCHAR(20))");
+
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM login")) {
+                if (rs.next() && rs.getInt(1) == 0) {
+                    stmt.executeUpdate("INSERT INTO login (username, password, role) VALUES ('admin', 'admin', 'Admin')");
+                }
+            }
+        }
+    }
+
+    // Tasks reference employee ids, so match whatever integer type employee.id uses
+    private static void createTasksTable(Connection connection) throws SQLException {
+        String idType = columnType(connection, "employee", "id");
+        String employeeIdType = idType != null && idType.toUpperCase().startsWith("BIGINT") ? "BIGINT" : "INT";
+
+        try (Statement stmt = connection.createStatement()) {
+            try {
+                stmt.executeUpdate("CREATE TABLE IF NOT EXISTS tasks (" +
+                    "id " + employeeIdType + " PRIMARY KEY AUTO_INCREMENT, " +
+                    "title VARCHAR(255) NOT NULL, description TEXT, " +
+                    "priority ENUM('Low', 'Medium', 'High') DEFAULT 'Medium', " +
+                    "status ENUM('Pending', 'In Progress', 'Completed', 'Cancelled') DEFAULT 'Pending', " +
+                    "assigned_to " + employeeIdType + " NULL, estimated_hours INT DEFAULT 8, " +
+                    "due_date DATE, created_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            } catch (SQLException e) {
+                // Fallback basic table
+                stmt.executeUpdate("CREATE TABLE IF NOT EXISTS tasks (" +
+                    "id INT PRIMARY KEY AUTO_INCREMENT, title VARCHAR(255) NOT NULL, description TEXT, " +
+                    "priority VARCHAR(10) DEFAULT 'Medium', status VARCHAR(20) DEFAULT 'Pending', " +
+                    "assigned_to INT NULL, estimated_hours INT DEFAULT 8, " +
+                    "due_date DATE, created_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            }
+
+            try {
+                stmt.executeUpdate("ALTER TABLE tasks ADD CONSTRAINT fk_tasks_employee " +
+                    "FOREIGN KEY (assigned_to) REFERENCES employee(id) ON DELETE SET NULL");
+            } catch (SQLException e) { /* FK constraint optional, may already exist */ }
+        }
+    }
+
+    // Removed employees keep the employee columns; archive_id keys them, as an id may be removed more than once
+    private static void createArchiveTables(Connection connection) throws SQLException {
+        String idType = columnType(connection, "employee", "id");
+        String employeeIdType = idType != null && idType.toUpperCase().startsWith("BIGINT") ? "BIGINT" : "INT";
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS employee_removal (" +
+                "employee_id " + employeeIdType + " PRIMARY KEY, requested_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS employee_archive (" +
+                "archive_id BIGINT PRIMARY KEY AUTO_INCREMENT, id " + employeeIdType + " NOT NULL, " +
+                "name VARCHAR(100), age INT, gender VARCHAR(10), phone VARCHAR(15), email VARCHAR(100), " +
+                "position VARCHAR(100), department VARCHAR(50), salary VARCHAR(20), education VARCHAR(50), " +
+                "address VARCHAR(255), joining_date VARCHAR(20), removed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        }
+        createIndexIfMissing(connection, "employee_archive", "idx_employee_archive_id", "id");
+    }
+
+    private static void createIndexIfMissing(Connection connection, String table, String indexName,
+                                             String... columns) throws SQLException {
+        if (indexExists(connection, table, indexName)) return;
+
+        StringBuilder columnList = new StringBuilder();
+        for (String column : columns) {
+            if (columnList.length() > 0) columnList.append(", ");
+            columnList.append(column);
+            // TEXT/BLOB columns can only be indexed on a prefix
+            String type = columnType(connection, table, column);
+            if (type != null && (type.toUpperCase().contains("TEXT") || type.toUpperCase().contains("BLOB"))) {
+                columnList.append("(100)");
+            }
+        }
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("CREATE INDEX " + indexName + " ON " + table + " (" + columnList + ")");
+        }
+    }
+
+    private static boolean indexExists(Connection connection, String table, String indexName) throws SQLException {
+        DatabaseMetaData meta = connection.getMetaData();
+        try (ResultSet rs = meta.getIndexInfo(connection.getCatalog(), null, identifier(meta, table), false, true)) {
+            while (rs.next()) {
+                if (indexName.equalsIgnoreCase(rs.getString("INDEX_NAME"))) return true;
+            }
+        }
+        return false;
+    }
+
+    private static String columnType(Connection connection, String table, String column) throws SQLException {
+        DatabaseMetaData meta = connection.getMetaData();
+        try (ResultSet rs = meta.getColumns(connection.getCatalog(), null, identifier(meta, table), identifier(meta, column))) {
+            return rs.next() ? rs.getString("TYPE_NAME") : null;
+        }
+    }
+
+    private static String identifier(DatabaseMetaData meta, String name) throws SQLException {
+        return meta.storesUpperCaseIdentifiers() ? name.toUpperCase() : name;
+    }
+}
@@ -0,0 +1,123 @@
+import java.util.concurrent.CompletableFuture;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.JTextComponent;
+
+/**
+ * Debounced, cancellable search behind a text field.
+ *
+ * Edits to the field (typed, pasted or cleared) restart a short timer; only when typing pauses is
+ * the search prepared on the EDT and its work submitted through the window's QueryScope. Starting a
+ * new run cancels the previous one - its statement is cancelled and its Run reports isCancelled(),
+ * so CPU-bound matching can stop early - and only the latest run's result reaches the EDT. The EDT
+ * itself only restarts a timer per keystroke and applies the final result.
+ *
+ * Typical use, from a frame:
+ * <pre>
+ * searchPipeline = new SearchPipeline(searchField, queryScope, (text, run) -&gt; {
+ *     Filter filter = currentFilter(text);           // on the EDT
+ *     return () -&gt; {
+ *         int count = repository.count(filter);      // in the background
+ *         return () -&gt; tableModel.setFilter(filter, count);   // back on the EDT
+ *     };
+ * });
+ * </pre>
+ * Other inputs that change the result (combos, refresh) call runNow().
+ */
+public class SearchPipeline {
+
+    public static final int DEFAULT_DELAY_MILLIS = 150;
+
+    /**
+     * Prepares one run. Called on the EDT with the field's current text; reads whatever other
+     * inputs it needs and returns the background work. The work returns the update to apply on the
+     * EDT, or null if it gave up because the run was cancelled.
+     */
+    public interface Search {
+        DbExecutor.DbCall<Runnable> prepare(String text, Run run);
+    }
+
+    // Cancellation flag of one run, for work that loops over data in memory
+    public static final class Run {
+        private volatile boolean cancelled;
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private final JTextComponent field;
+    private final QueryScope scope;
+    private final Search search;
+    private final Timer timer;
+
+    // Only touched on the EDT
+    private Run current;
+    private CompletableFuture<Runnable> running;
+
+    public SearchPipeline(JTextComponent field, QueryScope scope, Search search) {
+        this(field, scope, DEFAULT_DELAY_MILLIS, search);
+    }
+
+    public SearchPipeline(JTextComponent field, QueryScope scope, int delayMillis, Search search) {
+        this.field = field;
+        this.scope = scope;
+        this.search = search;
+        this.timer = new Timer(delayMillis, e -> runNow());
+        this.timer.setRepeats(false);
+
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                timer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                timer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+    }
+
+    /** Runs the search for the current input right away, superseding any pending or running one. */
+    public void runNow() {
+        timer.stop();
+        cancelRunning();
+
+        Run run = new Run();
+        current = run;
+        DbExecutor.DbCall<Runnable> work = search.prepare(field.getText().trim(), run);
+        if (work == null) return;
+
+        running = scope.submit(() -> run.isCancelled() ? null : work.call());
+        running.whenComplete(scope.onEdt((update, error) -> {
+            if (run != current || run.isCancelled()) return;
+            running = null;
+            if (error != null) {
+                System.err.println("Error searching: " + DbExecutor.describe(error));
+                return;
+            }
+            if (update != null) update.run();
+        }));
+    }
+
+    /** Drops a pending keystroke and cancels the running search; call from dispose(). */
+    public void cancel() {
+        timer.stop();
+        cancelRunning();
+        current = null;
+    }
+
+    private void cancelRunning() {
+        if (current != null) current.cancelled = true;
+        if (running != null) {
+            running.cancel(true);
+            running = null;
+        }
+    }
+}
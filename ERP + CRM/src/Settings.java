@@ -9,6 +9,7 @@ import java.util.Properties;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.TitledBorder;
+import javax.swing.table.DefaultTableModel;
 
 public class Settings extends JFrame implements ActionListener {
     // Constants for modern design
@@ -44,6 +45,8 @@ public class Settings extends JFrame implements ActionListener {
     
     // UI Components - System Info & Backup
     private JTextArea systemInfoArea, backupLogArea;
+    private DefaultTableModel queryStatsModel;
+    private javax.swing.Timer queryStatsTimer;
     private JButton backupNowBtn, restoreBtn, clearLogsBtn, exportSettingsBtn;
     private JProgressBar backupProgressBar;
     
@@ -53,26 +56,16 @@ public class Settings extends JFrame implements ActionListener {
     private JTabbedPane settingsTabs;
     
     // Data
-    private conn dbConnection;
     private Properties appProperties;
     private final String PROPERTIES_FILE = "app_settings.properties";
     
     public Settings() {
-        initializeDatabase();
+        conn.checkReachable(this, null);
         initializeProperties();
         initializeUI();
         loadCurrentSettings();
     }
     
-    private void initializeDatabase() {
-        try {
-            dbConnection = new conn();
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Database connection failed: " + e.getMessage(),
-                                        "Connection Error", JOptionPane.ERROR_MESSAGE);
-        }
-    }
-    
     private void initializeProperties() {
         appProperties = new Properties();
         loadProperties();
@@ -536,6 +529,44 @@ public class Settings extends JFrame implements ActionListener {
         JScrollPane infoScroll = new JScrollPane(systemInfoArea);
         infoSection.add(infoScroll, BorderLayout.CENTER);
         
+        // Query Statistics Section, refreshed live while the window is open
+        JPanel queryStatsSection = createSectionPanel("Query Statistics");
+        queryStatsModel = new DefaultTableModel(new String[]{"Statement", "Calls", "Errors", "Rows",
+            "Mean ms", "p50 ms", "p95 ms", "p99 ms", "Max ms"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+            
+            // Numeric columns sort numerically
+            @Override
+            public Class<?> getColumnClass(int column) {
+                return column == 0 ? String.class : column <= 3 ? Long.class : Double.class;
+            }
+        };
+        JTable queryStatsTable = new JTable(queryStatsModel);
+        queryStatsTable.setFont(new Font("Consolas", Font.PLAIN, 11));
+        queryStatsTable.setAutoCreateRowSorter(true);
+        queryStatsTable.getColumnModel().getColumn(0).setPreferredWidth(420);
+        JScrollPane queryStatsScroll = new JScrollPane(queryStatsTable);
+        queryStatsScroll.setPreferredSize(new Dimension(800, 180));
+        
+        JButton resetStatsBtn = createModernButton("Reset Statistics", WARNING_COLOR);
+        resetStatsBtn.addActionListener(e -> {
+            StatementMetrics.reset();
+            refreshQueryStats();
+        });
+        JPanel queryStatsButtons = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        queryStatsButtons.setOpaque(false);
+        queryStatsButtons.add(resetStatsBtn);
+        
+        queryStatsSection.add(queryStatsScroll, BorderLayout.CENTER);
+        queryStatsSection.add(queryStatsButtons, BorderLayout.SOUTH);
+        
+        queryStatsTimer = new javax.swing.Timer(2000, e -> refreshQueryStats());
+        queryStatsTimer.start();
+        refreshQueryStats();
+        
         // Backup Section
         JPanel backupSection = createSectionPanel("Database Backup & Restore");
         JPanel backupContent = new JPanel(new BorderLayout());
@@ -586,6 +617,8 @@ public class Settings extends JFrame implements ActionListener {
         mainContent.setOpaque(false);
         mainContent.add(infoSection);
         mainContent.add(Box.createVerticalStrut(20));
+        mainContent.add(queryStatsSection);
+        mainContent.add(Box.createVerticalStrut(20));
         mainContent.add(backupSection);
         
         panel.add(mainContent, BorderLayout.CENTER);
@@ -843,10 +876,65 @@ public class Settings extends JFrame implements ActionListener {
         info.append("Total Memory: ").append(totalMemory).append(" MB\n");
         info.append("Free Memory: ").append(freeMemory).append(" MB\n");
         info.append("Used Memory: ").append(totalMemory - freeMemory).append(" MB\n");
-        
+
+        // Connection pool information, one pool per JDBC profile
+        for (JdbcProfile profile : JdbcProfile.values()) {
+            ConnectionPool.Stats poolStats = conn.poolStats(profile);
+            if (poolStats == null) continue;
+            info.append("\nConnection Pool (").append(profile.name().toLowerCase()).append("):\n");
+            info.append("Connections: ").append(poolStats.getTotal()).append(" of ").append(poolStats.getMaxSize())
+                .append(" (").append(poolStats.getActive()).append(" active, ").append(poolStats.getIdle()).append(" idle)\n");
+            info.append("Waiting Threads: ").append(poolStats.getWaiting()).append("\n");
+            info.append("Borrows: ").append(poolStats.getBorrows()).append("\n");
+            info.append("Created / Closed: ").append(poolStats.getCreated()).append(" / ").append(poolStats.getDestroyed()).append("\n");
+            info.append("Timeouts: ").append(poolStats.getTimeouts()).append("\n");
+            info.append("Statement Cache Hit Ratio: ").append(String.format("%.1f%%", poolStats.getStatementHitRatio() * 100)).append("\n");
+            info.append("Leaks Reported / Reclaimed: ").append(poolStats.getLeaks()).append(" / ").append(poolStats.getAbandoned()).append("\n");
+        }
+
+        info.append("\nEmployee Directory Cache:\n");
+        info.append("Cached Employees: ").append(EmployeeDirectory.getSize()).append("\n");
+        info.append("Hits / Misses: ").append(EmployeeDirectory.getHitCount()).append(" / ").append(EmployeeDirectory.getMissCount()).append("\n");
+        info.append("Detail Cache Employees: ").append(EmployeeDetailCache.getSize()).append("\n");
+        info.append("Detail Hits / Misses / Evictions: ").append(EmployeeDetailCache.getHitCount()).append(" / ")
+            .append(EmployeeDetailCache.getMissCount()).append(" / ").append(EmployeeDetailCache.getEvictionCount()).append("\n");
+        info.append("Detail Prefetched: ").append(EmployeeDetailCache.getPrefetchCount()).append("\n");
+        info.append("Search Index Employees: ").append(EmployeeSearchIndex.getSize()).append(" (last built in ")
+            .append(EmployeeSearchIndex.getLastBuildMillis()).append(" ms)\n");
+        info.append("Archived Employees: ").append(EmployeeArchiver.getArchivedCount()).append("\n");
+
+        info.append("\nAudit Trail:\n");
+        info.append("Queued Entries: ").append(AuditTrail.getQueueDepth()).append("\n");
+        info.append("Lag: ").append(AuditTrail.getLagMillis()).append(" ms\n");
+        info.append("Written / Dropped / Rejected: ").append(AuditTrail.getWrittenCount()).append(" / ").append(AuditTrail.getDroppedCount())
+            .append(" / ").append(AuditTrail.getRejectedCount()).append("\n");
+        info.append("Last Flush: ").append(AuditTrail.getLastFlushMillis()).append(" ms (").append(AuditTrail.getFailedFlushCount()).append(" failed)\n");
+
         systemInfoArea.setText(info.toString());
     }
     
+    // Latency statistics per normalized SQL, slowest in total first
+    private void refreshQueryStats() {
+        queryStatsModel.setRowCount(0);
+        for (StatementMetrics.Snapshot stats : StatementMetrics.snapshot()) {
+            queryStatsModel.addRow(new Object[]{
+                stats.getSql(),
+                stats.getCalls(),
+                stats.getErrors(),
+                stats.getRows(),
+                millis(stats.getMeanMillis()),
+                millis(stats.getP50Millis()),
+                millis(stats.getP95Millis()),
+                millis(stats.getP99Millis()),
+                millis(stats.getMaxMillis())
+            });
+        }
+    }
+    
+    private static Double millis(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+    
     @Override
     public void actionPerformed(ActionEvent e) {
         if (e.getSource() == testConnectionBtn) {
@@ -1006,43 +1094,34 @@ public class Settings extends JFrame implements ActionListener {
             return;
         }
         
-        try {
-            if (dbConnection != null && dbConnection.statement != null) {
-                // Verify current password (in production, use proper authentication)
-                String verifyQuery = "SELECT * FROM login WHERE password = ?";
-                PreparedStatement pstmt = dbConnection.statement.getConnection().prepareStatement(verifyQuery);
-                pstmt.setString(1, currentPassword);
-                ResultSet rs = pstmt.executeQuery();
-                
-                if (rs.next()) {
-                    // Update password
-                    String updateQuery = "UPDATE login SET password = ? WHERE password = ?";
-                    PreparedStatement updateStmt = dbConnection.statement.getConnection().prepareStatement(updateQuery);
-                    updateStmt.setString(1, newPassword);
-                    updateStmt.setString(2, currentPassword);
-                    
-                    int result = updateStmt.executeUpdate();
-                    if (result > 0) {
-                        JOptionPane.showMessageDialog(this, "Password changed successfully!",
-                                                    "Success", JOptionPane.INFORMATION_MESSAGE);
-                        // Clear password fields
-                        currentPasswordField.setText("");
-                        newPasswordField.setText("");
-                        confirmPasswordField.setText("");
-                    } else {
-                        JOptionPane.showMessageDialog(this, "Failed to change password.",
-                                                    "Error", JOptionPane.ERROR_MESSAGE);
-                    }
-                } else {
-                    JOptionPane.showMessageDialog(this, "Current password is incorrect.",
-                                                "Authentication Failed", JOptionPane.ERROR_MESSAGE);
-                }
+        // -1 when the current password doesn't match, otherwise the number of rows updated
+        DbExecutor.submit(() -> {
+            QueryExecutor executor = conn.executor();
+            // Verify current password (in production, use proper authentication)
+            if (executor.queryFirst("SELECT 1 FROM login WHERE password = ?", rs -> Boolean.TRUE, currentPassword) == null) {
+                return -1;
             }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Database error: " + ex.getMessage(),
-                                        "Error", JOptionPane.ERROR_MESSAGE);
-        }
+            return executor.update("UPDATE login SET password = ? WHERE password = ?", newPassword, currentPassword);
+        }).whenComplete(DbExecutor.onEdt((result, error) -> {
+            if (error != null) {
+                error.printStackTrace();
+                JOptionPane.showMessageDialog(this, DbExecutor.describe(error),
+                                            "Error", JOptionPane.ERROR_MESSAGE);
+            } else if (result < 0) {
+                JOptionPane.showMessageDialog(this, "Current password is incorrect.",
+                                            "Authentication Failed", JOptionPane.ERROR_MESSAGE);
+            } else if (result > 0) {
+                JOptionPane.showMessageDialog(this, "Password changed successfully!",
+                                            "Success", JOptionPane.INFORMATION_MESSAGE);
+                // Clear password fields
+                currentPasswordField.setText("");
+                newPasswordField.setText("");
+                confirmPasswordField.setText("");
+            } else {
+                JOptionPane.showMessageDialog(this, "Failed to change password.",
+                                            "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }));
     }
     
     private void addNewUser() {
@@ -1055,51 +1134,41 @@ public class Settings extends JFrame implements ActionListener {
             return;
         }
         
-        try {
-            if (dbConnection != null && dbConnection.statement != null) {
-                // Check if username already exists
-                String checkQuery = "SELECT * FROM login WHERE username = ?";
-                PreparedStatement checkStmt = dbConnection.statement.getConnection().prepareStatement(checkQuery);
-                checkStmt.setString(1, username);
-                ResultSet rs = checkStmt.executeQuery();
-                
-                if (rs.next()) {
-                    JOptionPane.showMessageDialog(this, "Username already exists.",
-                                                "Duplicate User", JOptionPane.WARNING_MESSAGE);
-                    return;
-                }
-                
-                // Generate default password
-                String defaultPassword = "password123";
-                
-                // Insert new user
-                String insertQuery = "INSERT INTO login (username, password, role) VALUES (?, ?, ?)";
-                PreparedStatement insertStmt = dbConnection.statement.getConnection().prepareStatement(insertQuery);
-                insertStmt.setString(1, username);
-                insertStmt.setString(2, defaultPassword);
-                insertStmt.setString(3, role);
+        // Generate default password
+        String defaultPassword = "password123";
+        
+        // -1 when the username is taken, otherwise the number of rows inserted
+        DbExecutor.submit(() -> {
+            QueryExecutor executor = conn.executor();
+            // Check if username already exists
+            if (executor.queryFirst("SELECT 1 FROM login WHERE username = ?", rs -> Boolean.TRUE, username) != null) {
+                return -1;
+            }
+            return executor.update("INSERT INTO login (username, password, role) VALUES (?, ?, ?)",
+                username, defaultPassword, role);
+        }).whenComplete(DbExecutor.onEdt((result, error) -> {
+            if (error != null) {
+                error.printStackTrace();
+                JOptionPane.showMessageDialog(this, DbExecutor.describe(error),
+                                            "Error", JOptionPane.ERROR_MESSAGE);
+            } else if (result < 0) {
+                JOptionPane.showMessageDialog(this, "Username already exists.",
+                                            "Duplicate User", JOptionPane.WARNING_MESSAGE);
+            } else if (result > 0) {
+                JOptionPane.showMessageDialog(this,
+                    "User added successfully!\nUsername: " + username +
+                    "\nDefault Password: " + defaultPassword +
+                    "\nRole: " + role +
+                    "\n\nPlease ask the user to change their password on first login.",
+                    "User Added", JOptionPane.INFORMATION_MESSAGE);
                 
-                int result = insertStmt.executeUpdate();
-                if (result > 0) {
-                    JOptionPane.showMessageDialog(this,
-                        "User added successfully!\nUsername: " + username +
-                        "\nDefault Password: " + defaultPassword +
-                        "\nRole: " + role +
-                        "\n\nPlease ask the user to change their password on first login.",
-                        "User Added", JOptionPane.INFORMATION_MESSAGE);
-                    
-                    newUsernameField.setText("");
-                    userRoleCombo.setSelectedIndex(0);
-                } else {
-                    JOptionPane.showMessageDialog(this, "Failed to add user.",
-                                                "Error", JOptionPane.ERROR_MESSAGE);
-                }
+                newUsernameField.setText("");
+                userRoleCombo.setSelectedIndex(0);
+            } else {
+                JOptionPane.showMessageDialog(this, "Failed to add user.",
+                                            "Error", JOptionPane.ERROR_MESSAGE);
             }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Database error: " + ex.getMessage(),
-                                        "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        }));
     }
     
     private void performBackup() {
@@ -1252,15 +1321,8 @@ public class Settings extends JFrame implements ActionListener {
     
     @Override
     public void dispose() {
-        // Clean up database connection
-        if (dbConnection != null) {
-            try {
-                if (dbConnection.statement != null) {
-                    dbConnection.statement.close();
-                }
-            } catch (Exception e) {
-                System.err.println("Error closing database connection: " + e.getMessage());
-            }
+        if (queryStatsTimer != null) {
+            queryStatsTimer.stop();
         }
         super.dispose();
     }
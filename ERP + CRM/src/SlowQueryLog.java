@@ -0,0 +1,390 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Writes statements slower than slowQueryThresholdMillis to a size-rotated local file
+ * (slowQueryLogFile, rotated to .1 .. .N at slowQueryLogMaxBytes). Each entry carries the SQL,
+ * its bind values with salary/password values redacted, the duration, the row count and the
+ * screen method that issued it. Entries are queued and written by a background thread, so a
+ * slow query never waits on the disk; if the queue is full the entry is dropped and counted.
+ */
+public class SlowQueryLog {
+
+    private static final int QUEUE_CAPACITY = 1000;
+    private static final int MAX_VALUE_LENGTH = 100;
+    private static final Pattern SENSITIVE = Pattern.compile("(?i).*(salary|password|passwd|pwd|secret).*");
+    private static final Pattern TOKEN = Pattern.compile("'(?:[^']|'')*'|[A-Za-z_][A-Za-z0-9_.]*|\\?|<=|>=|<>|!=|\\S");
+    private static final Set<String> KEYWORDS = Set.of("LIMIT", "OFFSET", "VALUES", "SELECT", "WHERE", "AND", "OR",
+        "NOT", "IN", "LIKE", "BETWEEN", "IS", "THEN", "ELSE", "WHEN", "CASE", "ON", "SET");
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    // Infrastructure classes skipped when looking for the calling screen
+    private static final Set<String> INFRASTRUCTURE = Set.of("SlowQueryLog", "StatementMetrics", "QueryExecutor",
+        "ConnectionPool", "DbExecutor", "QueryScope", "conn");
+
+    private static final Map<String, String[]> parameterColumns = new ConcurrentHashMap<>();
+    private static final AtomicLong dropped = new AtomicLong();
+
+    private static volatile boolean configured;
+    private static long thresholdNanos = -1;
+    private static BlockingQueue<Entry> queue;
+
+    /** A slow execution waiting for its row count (known once the ResultSet is closed). */
+    static final class Entry {
+        private final String sql;
+        private final Object[] params;
+        private final int batchSize;
+        private final long durationNanos;
+        private final String callSite;
+        private final LocalDateTime time = LocalDateTime.now();
+        private boolean published;
+        private long rows;
+
+        private Entry(String sql, Object[] params, int batchSize, long durationNanos, String callSite) {
+            this.sql = sql;
+            this.params = params;
+            this.batchSize = batchSize;
+            this.durationNanos = durationNanos;
+            this.callSite = callSite;
+        }
+
+        synchronized void publish(long rows) {
+            if (published) return;
+            published = true;
+            this.rows = rows;
+            if (!queue.offer(this)) {
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    static boolean isEnabled() {
+        configure();
+        return thresholdNanos >= 0;
+    }
+
+    static boolean isSlow(long durationNanos) {
+        return isEnabled() && durationNanos >= thresholdNanos;
+    }
+
+    // Entry for a slow execution; the caller publishes it with the row count
+    static Entry entry(String sql, Object[] params, int batchSize, long durationNanos) {
+        return new Entry(sql, params, batchSize, durationNanos, callSite());
+    }
+
+    public static long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * The application method running the query, e.g. "Task_ass.loadData > TaskRepository.findAllWithAssignee"
+     * when it was submitted through DbExecutor from Task_ass.loadData.
+     */
+    static String callSite() {
+        String here = StackWalker.getInstance().walk(frames -> frames
+            .filter(frame -> isApplicationFrame(frame.getClassName()))
+            .findFirst()
+            .map(frame -> describe(frame.getClassName(), frame.getMethodName()))
+            .orElse("unknown"));
+        QueryExecutor.CallContext context = QueryExecutor.currentContext();
+        if (context == null || context.callSite == null || context.callSite.equals(here)) {
+            return here;
+        }
+        return context.callSite + " > " + here;
+    }
+
+    // Call site of the code submitting work, captured before it leaves the caller's thread
+    static String submitSite() {
+        if (!isEnabled()) return null;
+        return StackWalker.getInstance().walk(frames -> frames
+            .filter(frame -> isApplicationFrame(frame.getClassName()))
+            .findFirst()
+            .map(frame -> describe(frame.getClassName(), frame.getMethodName()))
+            .orElse(null));
+    }
+
+    private static boolean isApplicationFrame(String className) {
+        if (className.indexOf('.') >= 0 || className.startsWith("$Proxy")) return false;
+        int nested = className.indexOf('$');
+        String outer = nested >= 0 ? className.substring(0, nested) : className;
+        return !INFRASTRUCTURE.contains(outer);
+    }
+
+    // Task_ass$1 / lambda$loadData$3 become Task_ass.loadData
+    private static String describe(String className, String methodName) {
+        int nested = className.indexOf('$');
+        String outer = nested >= 0 ? className.substring(0, nested) : className;
+        if (methodName.startsWith("lambda$")) {
+            int end = methodName.indexOf('$', 7);
+            methodName = end > 7 ? methodName.substring(7, end) : methodName.substring(7);
+        }
+        return outer + "." + methodName;
+    }
+
+    private static String format(Entry entry) {
+        StringBuilder line = new StringBuilder(256);
+        line.append(TIMESTAMP.format(entry.time))
+            .append(" | ").append(String.format("%.1f ms", entry.durationNanos / 1e6))
+            .append(" | rows=").append(entry.rows)
+            .append(" | ").append(entry.callSite)
+            .append(" | ").append(redactLiterals(entry.sql).replaceAll("\\s+", " ").trim());
+        if (entry.batchSize > 0) {
+            line.append(" | batch of ").append(entry.batchSize);
+        }
+        if (entry.params != null && entry.params.length > 0) {
+            String[] columns = parameterColumns(entry.sql);
+            line.append(" | params=[");
+            for (int i = 0; i < entry.params.length; i++) {
+                if (i > 0) line.append(", ");
+                String column = i < columns.length ? columns[i] : null;
+                line.append(column != null && SENSITIVE.matcher(column).matches() ? "****" : formatValue(entry.params[i]));
+            }
+            line.append(']');
+        }
+        return line.toString();
+    }
+
+    private static String formatValue(Object value) {
+        if (value == null) return "NULL";
+        String text = String.valueOf(value);
+        if (text.length() > MAX_VALUE_LENGTH) text = text.substring(0, MAX_VALUE_LENGTH) + "...";
+        return value instanceof Number || value instanceof Boolean ? text : "'" + text.replace("'", "''") + "'";
+    }
+
+    /** Column each ? is compared with or assigned to, or null where it can't be told. */
+    static String[] parameterColumns(String sql) {
+        String[] cached = parameterColumns.get(sql);
+        if (cached != null) return cached;
+
+        List<String> tokens = new ArrayList<>();
+        Matcher matcher = TOKEN.matcher(sql);
+        while (matcher.find()) tokens.add(matcher.group());
+
+        String[] result = slotColumns(tokens, false).toArray(new String[0]);
+        if (parameterColumns.size() < 1024) parameterColumns.put(sql, result);
+        return result;
+    }
+
+    // Replaces string literals assigned to or compared with a sensitive column
+    private static String redactLiterals(String sql) {
+        List<MatchResult> matches = new ArrayList<>();
+        List<String> tokens = new ArrayList<>();
+        Matcher matcher = TOKEN.matcher(sql);
+        while (matcher.find()) {
+            matches.add(matcher.toMatchResult());
+            tokens.add(matcher.group());
+        }
+
+        List<String> columns = slotColumns(tokens, true);
+        StringBuilder out = new StringBuilder(sql.length());
+        int last = 0;
+        int slot = 0;
+        for (MatchResult match : matches) {
+            if (!match.group().startsWith("'")) continue;
+            String column = columns.get(slot++);
+            if (column != null && SENSITIVE.matcher(column).matches()) {
+                out.append(sql, last, match.start()).append("'****'");
+                last = match.end();
+            }
+        }
+        return out.append(sql, last, sql.length()).toString();
+    }
+
+    // Column for each value slot in order: ? placeholders, or string literals when literals is true
+    private static List<String> slotColumns(List<String> tokens, boolean literals) {
+        List<String> columns = new ArrayList<>();
+        List<String> insertColumns = insertColumns(tokens);
+        int valuesStart = indexOfIgnoreCase(tokens, "VALUES");
+        int valueIndex = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if (insertColumns != null && i > valuesStart && (token.equals(",") || token.equals("("))) {
+                if (token.equals(",")) valueIndex++;
+                continue;
+            }
+            if (literals ? !token.startsWith("'") : !token.equals("?")) continue;
+
+            if (insertColumns != null && i > valuesStart) {
+                columns.add(insertColumns.isEmpty() ? null : insertColumns.get(valueIndex % insertColumns.size()));
+            } else {
+                columns.add(precedingColumn(tokens, i));
+            }
+        }
+        return columns;
+    }
+
+    // Column list of INSERT INTO t (a, b, c) VALUES (...), or null
+    private static List<String> insertColumns(List<String> tokens) {
+        if (tokens.size() < 4 || !tokens.get(0).equalsIgnoreCase("INSERT") || !tokens.get(3).equals("(")) return null;
+        List<String> columns = new ArrayList<>();
+        for (int i = 4; i < tokens.size() && !tokens.get(i).equals(")"); i++) {
+            if (!tokens.get(i).equals(",")) columns.add(tokens.get(i));
+        }
+        return columns;
+    }
+
+    // Skips back over the comparison operator to the identifier in front of it. When that is a
+    // parenthesised expression such as COALESCE(salary, ''), its sensitive column if it has one,
+    // otherwise its first column
+    private static String precedingColumn(List<String> tokens, int index) {
+        for (int i = index - 1; i >= 0 && i >= index - 3; i--) {
+            String token = tokens.get(i);
+            if (token.equals(")")) return expressionColumn(tokens, i);
+            if (isOperator(token)) continue;
+            return isColumn(token) ? token : null;
+        }
+        return null;
+    }
+
+    // Columns inside the parentheses closed at index close
+    private static String expressionColumn(List<String> tokens, int close) {
+        String column = null;
+        int depth = 0;
+        for (int i = close; i >= 0; i--) {
+            String token = tokens.get(i);
+            if (token.equals(")")) depth++;
+            else if (token.equals("(") && --depth == 0) break;
+            else if (isColumn(token) && (i + 1 >= tokens.size() || !tokens.get(i + 1).equals("("))) {
+                if (SENSITIVE.matcher(token).matches()) return token;
+                column = token;
+            }
+        }
+        return column;
+    }
+
+    private static boolean isColumn(String token) {
+        boolean identifier = Character.isLetter(token.charAt(0)) || token.charAt(0) == '_';
+        return identifier && !KEYWORDS.contains(token.toUpperCase());
+    }
+
+    private static boolean isOperator(String token) {
+        switch (token.toUpperCase()) {
+            case "=": case "<": case ">": case "<=": case ">=": case "<>": case "!=": case "(":
+            case "LIKE": case "IN":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static int indexOfIgnoreCase(List<String> tokens, String word) {
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.get(i).equalsIgnoreCase(word)) return i;
+        }
+        return -1;
+    }
+
+    private static void configure() {
+        if (configured) return;
+        synchronized (SlowQueryLog.class) {
+            if (configured) return;
+            DbConfig config = conn.config();
+            int thresholdMillis = config.getSlowQueryThresholdMillis();
+            if (thresholdMillis >= 0) {
+                queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+                Thread writer = new Thread(new Writer(new File(config.getSlowQueryLogFile()),
+                    config.getSlowQueryLogMaxBytes(), Math.max(1, config.getSlowQueryLogFiles())), "slow-query-log");
+                writer.setDaemon(true);
+                writer.start();
+                thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+            }
+            configured = true;
+        }
+    }
+
+    // Appends queued entries to the file, rotating it when it grows past maxBytes
+    private static final class Writer implements Runnable {
+        private final File file;
+        private final long maxBytes;
+        private final int files;
+        private OutputStream out;
+        private long size;
+
+        Writer(File file, long maxBytes, int files) {
+            this.file = file;
+            this.maxBytes = maxBytes;
+            this.files = files;
+        }
+
+        @Override
+        public void run() {
+            List<Entry> batch = new ArrayList<>();
+            while (true) {
+                try {
+                    batch.add(queue.take());
+                    queue.drainTo(batch);
+                    for (Entry entry : batch) {
+                        write(format(entry));
+                    }
+                    out.flush();
+                } catch (InterruptedException e) {
+                    return;
+                } catch (IOException e) {
+                    System.err.println("Error writing slow-query log: " + e.getMessage());
+                    closeQuietly();
+                }
+                batch.clear();
+            }
+        }
+
+        private void write(String line) throws IOException {
+            byte[] bytes = (line + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+            if (out == null) {
+                out = new FileOutputStream(file, true);
+                size = file.length();
+            }
+            if (size > 0 && size + bytes.length > maxBytes) {
+                rotate();
+            }
+            out.write(bytes);
+            size += bytes.length;
+        }
+
+        // slow_queries.log -> .1 -> .2 ... the oldest file is deleted
+        private void rotate() throws IOException {
+            closeQuietly();
+            File oldest = new File(file.getPath() + "." + files);
+            if (oldest.exists() && !oldest.delete()) {
+                System.err.println("Could not delete " + oldest);
+            }
+            for (int i = files - 1; i >= 1; i--) {
+                File source = new File(file.getPath() + "." + i);
+                if (source.exists() && !source.renameTo(new File(file.getPath() + "." + (i + 1)))) {
+                    System.err.println("Could not rotate " + source);
+                }
+            }
+            if (!file.renameTo(new File(file.getPath() + ".1"))) {
+                System.err.println("Could not rotate " + file);
+            }
+            out = new FileOutputStream(file, false);
+            size = 0;
+        }
+
+        private void closeQuietly() {
+            if (out == null) return;
+            try {
+                out.close();
+            } catch (IOException e) {
+                System.err.println("Error closing slow-query log: " + e.getMessage());
+            }
+            out = null;
+        }
+    }
+}
@@ -72,7 +72,18 @@ public class Splash extends JFrame {
         SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
             @Override
             protected Void doInBackground() throws Exception {
-                Thread.sleep(DISPLAY_TIME);
+                long start = System.currentTimeMillis();
+                
+                // Bring the schema up to date while the splash is showing
+                try {
+                    SchemaMigrator.migrate();
+                    // Finish batch removals left queued by an earlier run
+                    EmployeeArchiver.wake();
+                } catch (Exception e) {
+                    System.err.println("Schema migration failed: " + e.getMessage());
+                }
+                
+                Thread.sleep(Math.max(0, DISPLAY_TIME - (System.currentTimeMillis() - start)));
                 return null;
             }
             
@@ -0,0 +1,335 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-statement latency statistics for every Statement handed out by ConnectionPool.
+ *
+ * Statements are wrapped so each execute call is timed and the rows read from its ResultSet are
+ * counted. Measurements are grouped by normalized SQL (literals replaced by ?, whitespace collapsed,
+ * IN lists folded) and recorded into lock-free histograms, so recording never blocks a query.
+ */
+public class StatementMetrics {
+
+    // Caps on distinct statements tracked and normalized SQL strings remembered
+    private static final int MAX_STATEMENTS = 500;
+    private static final int MAX_NORMALIZED = 4096;
+    private static final String OTHER = "(other statements)";
+
+    private static final Map<String, Recorder> recorders = new ConcurrentHashMap<>();
+    private static final Map<String, String> normalized = new ConcurrentHashMap<>();
+
+    /** Immutable view of one statement's statistics. Times are in milliseconds. */
+    public static final class Snapshot {
+        private final String sql;
+        private final long calls;
+        private final long errors;
+        private final long rows;
+        private final double totalMillis;
+        private final double p50Millis;
+        private final double p95Millis;
+        private final double p99Millis;
+        private final double maxMillis;
+
+        Snapshot(String sql, Recorder recorder) {
+            LatencyHistogram histogram = recorder.latency;
+            this.sql = sql;
+            this.calls = histogram.getCount();
+            this.errors = recorder.errors.sum();
+            this.rows = recorder.rows.sum();
+            this.totalMillis = histogram.getTotalMicros() / 1000.0;
+            long[] percentiles = histogram.getPercentilesMicros(0.50, 0.95, 0.99);
+            this.p50Millis = percentiles[0] / 1000.0;
+            this.p95Millis = percentiles[1] / 1000.0;
+            this.p99Millis = percentiles[2] / 1000.0;
+            this.maxMillis = histogram.getMaxMicros() / 1000.0;
+        }
+
+        public String getSql() { return sql; }
+        public long getCalls() { return calls; }
+        public long getErrors() { return errors; }
+        public long getRows() { return rows; }
+        public double getTotalMillis() { return totalMillis; }
+        public double getMeanMillis() { return calls == 0 ? 0 : totalMillis / calls; }
+        public double getP50Millis() { return p50Millis; }
+        public double getP95Millis() { return p95Millis; }
+        public double getP99Millis() { return p99Millis; }
+        public double getMaxMillis() { return maxMillis; }
+    }
+
+    private static final class Recorder {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder rows = new LongAdder();
+        final LongAdder errors = new LongAdder();
+    }
+
+    /** Statistics of every statement seen so far, most total time first. */
+    public static List<Snapshot> snapshot() {
+        List<Snapshot> snapshots = new ArrayList<>(recorders.size());
+        for (Map.Entry<String, Recorder> entry : recorders.entrySet()) {
+            snapshots.add(new Snapshot(entry.getKey(), entry.getValue()));
+        }
+        snapshots.sort(Comparator.comparingDouble(Snapshot::getTotalMillis).reversed());
+        return snapshots;
+    }
+
+    public static void reset() {
+        recorders.clear();
+    }
+
+    // Wraps a statement from the pool; sql is null for plain Statements (taken from execute's argument)
+    static Statement instrument(Statement statement, String sql) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+            : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return (Statement) Proxy.newProxyInstance(StatementMetrics.class.getClassLoader(),
+            new Class<?>[]{type}, new InstrumentedStatement(statement, sql));
+    }
+
+    static String normalize(String sql) {
+        if (sql == null) return OTHER;
+        String result = normalized.get(sql);
+        if (result == null) {
+            result = normalizeUncached(sql);
+            if (normalized.size() < MAX_NORMALIZED) {
+                normalized.put(sql, result);
+            }
+        }
+        return result;
+    }
+
+    private static String normalizeUncached(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        boolean pendingSpace = false;
+        int i = 0;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = true;
+                i++;
+                continue;
+            }
+            if (pendingSpace && out.length() > 0) out.append(' ');
+            pendingSpace = false;
+
+            if (c == '\'') {
+                // String literal, with '' as an escaped quote
+                i++;
+                while (i < sql.length()) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < sql.length() && sql.charAt(i + 1) == '\'') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                out.append('?');
+                i++;
+            } else if (Character.isDigit(c) && (out.length() == 0 || !isIdentifierPart(out.charAt(out.length() - 1)))) {
+                while (i < sql.length() && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) i++;
+                out.append('?');
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        return out.toString().replaceAll("(?i)\\bIN \\(\\?(, ?\\?)*\\)", "IN (?...)");
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '.';
+    }
+
+    private static Recorder recorder(String sql) {
+        Recorder recorder = recorders.get(sql);
+        if (recorder == null) {
+            String key = recorders.size() < MAX_STATEMENTS ? sql : OTHER;
+            recorder = recorders.computeIfAbsent(key, k -> new Recorder());
+        }
+        return recorder;
+    }
+
+    private static final class InstrumentedStatement implements InvocationHandler {
+        final Statement statement;
+        final String sql;
+        // Latest result set; closing the statement closes it implicitly
+        CountingResultSet open;
+        // Bind values and batch size, kept only while the slow-query log is on
+        Object[] params;
+        int paramCount;
+        int batchSize;
+
+        InstrumentedStatement(Statement statement, String sql) {
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "InstrumentedStatement[" + statement + "]";
+                case "close":
+                    if (open != null) open.flush();
+                    break;
+                case "clearParameters":
+                    params = null;
+                    paramCount = 0;
+                    break;
+                case "addBatch":
+                    batchSize++;
+                    break;
+                case "clearBatch":
+                    batchSize = 0;
+                    break;
+                default:
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                        bind((Integer) args[0], "setNull".equals(name) ? null : args[1]);
+                    }
+                    break;
+            }
+
+            if (!name.startsWith("execute")) {
+                Object result = call(method, args);
+                return result instanceof ResultSet && "getResultSet".equals(name)
+                    ? countRows((ResultSet) result, recorder(normalize(sql)), null) : result;
+            }
+
+            String text = sql != null ? sql : args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+            Recorder recorder = recorder(normalize(text));
+            int batch = "executeBatch".equals(name) || "executeLargeBatch".equals(name) ? batchSize : 0;
+            long start = System.nanoTime();
+            Object result = null;
+            SlowQueryLog.Entry slow = null;
+            try {
+                result = call(method, args);
+            } catch (Throwable t) {
+                recorder.errors.increment();
+                throw t;
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                recorder.latency.record(TimeUnit.NANOSECONDS.toMicros(elapsed));
+                if (batch > 0) batchSize = 0;
+                if (SlowQueryLog.isSlow(elapsed)) {
+                    slow = SlowQueryLog.entry(text != null ? text : "(unknown)",
+                        params == null ? null : Arrays.copyOf(params, paramCount), batch, elapsed);
+                    if (!(result instanceof ResultSet)) slow.publish(updateCount(result));
+                }
+            }
+
+            if (result instanceof ResultSet) {
+                return countRows((ResultSet) result, recorder, slow);
+            }
+            recorder.rows.add(updateCount(result));
+            return result;
+        }
+
+        private void bind(int index, Object value) {
+            if (index < 1 || !SlowQueryLog.isEnabled()) return;
+            if (params == null || params.length < index) {
+                Object[] grown = new Object[Math.max(index, params == null ? 8 : params.length * 2)];
+                if (params != null) System.arraycopy(params, 0, grown, 0, params.length);
+                params = grown;
+            }
+            params[index - 1] = value;
+            paramCount = Math.max(paramCount, index);
+        }
+
+        private ResultSet countRows(ResultSet resultSet, Recorder recorder, SlowQueryLog.Entry slow) {
+            if (open != null) open.flush();
+            open = new CountingResultSet(resultSet, recorder, slow);
+            return (ResultSet) Proxy.newProxyInstance(StatementMetrics.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, open);
+        }
+
+        private Object call(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    // Rows changed according to an execute result; 0 for anything else
+    private static long updateCount(Object result) {
+        if (result instanceof Integer) return Math.max(0, (Integer) result);
+        if (result instanceof Long) return Math.max(0, (Long) result);
+        long total = 0;
+        if (result instanceof int[]) {
+            for (int count : (int[]) result) {
+                if (count > 0) total += count;
+            }
+        }
+        return total;
+    }
+
+    // Counts rows as they are read; the count is added when the ResultSet is closed
+    private static final class CountingResultSet implements InvocationHandler {
+        final ResultSet resultSet;
+        final Recorder recorder;
+        // Set when the execution was slow; logged with the row count
+        final SlowQueryLog.Entry slow;
+        long rows;
+        boolean closed;
+
+        CountingResultSet(ResultSet resultSet, Recorder recorder, SlowQueryLog.Entry slow) {
+            this.resultSet = resultSet;
+            this.recorder = recorder;
+            this.slow = slow;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "close":
+                    flush();
+                    break;
+                default:
+                    break;
+            }
+
+            Object result;
+            try {
+                result = method.invoke(resultSet, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+                rows++;
+            }
+            return result;
+        }
+
+        void flush() {
+            if (!closed) {
+                closed = true;
+                recorder.rows.add(rows);
+                if (slow != null) slow.publish(rows);
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/**
+ * Database engines conn can run against, selected with the dbBackend setting.
+ *
+ * MYSQL is the production server. H2 runs in-process in MySQL compatibility mode with the same
+ * schema, so hot paths can be benchmarked and exercised without an outside service; its driver
+ * (h2-2.x.jar) only needs to be on the classpath when it is selected.
+ */
+public enum StorageBackend {
+
+    MYSQL("com.mysql.cj.jdbc.Driver", false),
+    H2("org.h2.Driver", true);
+
+    final String driverClass;
+    final boolean embedded;
+
+    StorageBackend(String driverClass, boolean embedded) {
+        this.driverClass = driverClass;
+        this.embedded = embedded;
+    }
+
+    public boolean isEmbedded() {
+        return embedded;
+    }
+
+    static StorageBackend fromSetting(String value) {
+        if (value == null) return MYSQL;
+        for (StorageBackend backend : values()) {
+            if (backend.name().equalsIgnoreCase(value.trim())) return backend;
+        }
+        System.err.println("Unknown dbBackend '" + value + "', using MySQL");
+        return MYSQL;
+    }
+}
@@ -0,0 +1,69 @@
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Immutable row of the tasks table, optionally joined with the assignee's name.
+ */
+public final class TaskRecord {
+
+    private final int id;
+    private final String title;
+    private final String description;
+    private final String priority;
+    private final String status;
+    private final Integer assignedTo;       // null when unassigned
+    private final String assigneeName;      // null when unassigned or not joined
+    private final int estimatedHours;
+    private final LocalDate dueDate;
+    private final LocalDateTime createdDate;
+
+    public TaskRecord(int id, String title, String description, String priority, String status,
+                      Integer assignedTo, String assigneeName, int estimatedHours,
+                      LocalDate dueDate, LocalDateTime createdDate) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.priority = priority;
+        this.status = status;
+        this.assignedTo = assignedTo;
+        this.assigneeName = assigneeName;
+        this.estimatedHours = estimatedHours;
+        this.dueDate = dueDate;
+        this.createdDate = createdDate;
+    }
+
+    public int getId() { return id; }
+    public String getTitle() { return title; }
+    public String getDescription() { return description; }
+    public String getPriority() { return priority; }
+    public String getStatus() { return status; }
+    public Integer getAssignedTo() { return assignedTo; }
+    public String getAssigneeName() { return assigneeName; }
+    public int getEstimatedHours() { return estimatedHours; }
+    public LocalDate getDueDate() { return dueDate; }
+    public LocalDateTime getCreatedDate() { return createdDate; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TaskRecord)) return false;
+        TaskRecord other = (TaskRecord) o;
+        return id == other.id && estimatedHours == other.estimatedHours && Objects.equals(title, other.title)
+            && Objects.equals(description, other.description) && Objects.equals(priority, other.priority)
+            && Objects.equals(status, other.status) && Objects.equals(assignedTo, other.assignedTo)
+            && Objects.equals(assigneeName, other.assigneeName) && Objects.equals(dueDate, other.dueDate)
+            && Objects.equals(createdDate, other.createdDate);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, title, description, priority, status, assignedTo, assigneeName,
+            estimatedHours, dueDate, createdDate);
+    }
+
+    @Override
+    public String toString() {
+        return id + " - " + title;
+    }
+}
@@ -0,0 +1,200 @@
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * All SQL against the tasks table. Lists are newest first; paging is keyset-based on
+ * (created_date, id) so it stays on the created_date index instead of using OFFSET.
+ * Each committed write is published as a DomainEvents delta carrying the re-read row.
+ */
+public class TaskRepository {
+
+    private static final String SELECT_WITH_ASSIGNEE =
+        "SELECT t.id, t.title, t.description, t.priority, t.status, t.assigned_to, t.estimated_hours, " +
+        "t.due_date, t.created_date, e.name AS employee_name FROM tasks t LEFT JOIN employee e ON t.assigned_to = e.id";
+
+    private static final String OPEN_STATUSES = "('Pending', 'In Progress')";
+
+    private final JdbcProfile profile;
+
+    public TaskRepository() {
+        this(JdbcProfile.INTERACTIVE);
+    }
+
+    public TaskRepository(JdbcProfile profile) {
+        this.profile = profile;
+    }
+
+    public List<TaskRecord> findAllWithAssignee() throws SQLException {
+        return executor().query(SELECT_WITH_ASSIGNEE + " ORDER BY t.created_date DESC, t.id DESC", TaskRepository::mapRecord);
+    }
+
+    public TaskRecord findById(int taskId) throws SQLException {
+        return executor().queryFirst(SELECT_WITH_ASSIGNEE + " WHERE t.id = ?", TaskRepository::mapRecord, taskId);
+    }
+
+    /**
+     * Next page of tasks older than the given one (null for the first page), newest first.
+     */
+    public List<TaskRecord> findPage(TaskRecord after, int limit) throws SQLException {
+        if (after == null || after.getCreatedDate() == null) {
+            return executor().query(SELECT_WITH_ASSIGNEE + " ORDER BY t.created_date DESC, t.id DESC LIMIT ?",
+                TaskRepository::mapRecord, limit);
+        }
+        Timestamp created = Timestamp.valueOf(after.getCreatedDate());
+        return executor().query(SELECT_WITH_ASSIGNEE +
+            " WHERE t.created_date < ? OR (t.created_date = ? AND t.id < ?) ORDER BY t.created_date DESC, t.id DESC LIMIT ?",
+            TaskRepository::mapRecord, created, created, after.getId(), limit);
+    }
+
+    /** Tasks whose assignee is in the department, or all tasks when department is null or "All". */
+    public List<TaskRecord> findByDepartment(String department) throws SQLException {
+        if (department == null || "All".equals(department)) {
+            return executor().query(SELECT_WITH_ASSIGNEE + " ORDER BY t.id", TaskRepository::mapRecord);
+        }
+        return executor().query(SELECT_WITH_ASSIGNEE + " WHERE e.department = ? ORDER BY t.id",
+            TaskRepository::mapRecord, department);
+    }
+
+    // Estimated hours of open tasks for one employee
+    public int findOpenHours(int employeeId) throws SQLException {
+        Integer hours = executor().queryFirst(
+            "SELECT SUM(estimated_hours) FROM tasks WHERE assigned_to = ? AND status IN " + OPEN_STATUSES,
+            rs -> rs.getInt(1), employeeId);
+        return hours == null ? 0 : hours;
+    }
+
+    /** Estimated hours of open tasks for every assignee in one grouped query. */
+    public Map<Integer, Integer> findOpenHoursByAssignee() throws SQLException {
+        return executor().queryResult(
+            "SELECT assigned_to, SUM(estimated_hours) FROM tasks WHERE assigned_to IS NOT NULL AND status IN " +
+            OPEN_STATUSES + " GROUP BY assigned_to", rs -> {
+                Map<Integer, Integer> hours = new HashMap<>();
+                while (rs.next()) {
+                    hours.put(rs.getInt(1), rs.getInt(2));
+                }
+                return hours;
+            });
+    }
+
+    public int countOpen() throws SQLException {
+        Integer count = executor().queryFirst("SELECT COUNT(*) FROM tasks WHERE status IN " + OPEN_STATUSES, rs -> rs.getInt(1));
+        return count == null ? 0 : count;
+    }
+
+    // Percentage of tasks completed; 0 when there are no tasks
+    public double completionRate() throws SQLException {
+        Double rate = executor().queryFirst(
+            "SELECT SUM(CASE WHEN status = 'Completed' THEN 1 ELSE 0 END) * 100.0 / COUNT(*) FROM tasks", rs -> rs.getDouble(1));
+        return rate == null ? 0.0 : rate;
+    }
+
+    /** Inserts an unassigned task and returns its id, or 0 when nothing was inserted. */
+    public int insert(String title, String description, String priority, LocalDate dueDate, int estimatedHours) throws SQLException {
+        int taskId = (int) executor().insert(
+            "INSERT INTO tasks (title, description, priority, due_date, estimated_hours) VALUES (?, ?, ?, ?, ?)",
+            title, description, priority, java.sql.Date.valueOf(dueDate), estimatedHours);
+        if (taskId <= 0) return 0;
+        publishChange(taskId, DomainEvents.TaskCreated::new);
+        return taskId;
+    }
+
+    public int[] insertAll(Collection<TaskRecord> tasks) throws SQLException {
+        List<Object[]> rows = new ArrayList<>(tasks.size());
+        for (TaskRecord task : tasks) {
+            rows.add(new Object[]{task.getTitle(), task.getDescription(), task.getPriority(),
+                task.getDueDate() == null ? null : java.sql.Date.valueOf(task.getDueDate()),
+                task.getEstimatedHours(), task.getAssignedTo(), task.getStatus()});
+        }
+        try {
+            return executor().batch(
+                "INSERT INTO tasks (title, description, priority, due_date, estimated_hours, assigned_to, status) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+        } finally {
+            DomainEvents.publish(new DomainEvents.TasksChanged());
+        }
+    }
+
+    public int update(int taskId, String title, String description, String priority, LocalDate dueDate,
+                      int estimatedHours) throws SQLException {
+        int count = executor().update(
+            "UPDATE tasks SET title = ?, description = ?, priority = ?, due_date = ?, estimated_hours = ? WHERE id = ?",
+            title, description, priority, java.sql.Date.valueOf(dueDate), estimatedHours, taskId);
+        if (count > 0) publishChange(taskId, DomainEvents.TaskUpdated::new);
+        return count;
+    }
+
+    public int assign(int taskId, int employeeId) throws SQLException {
+        int count = executor().update("UPDATE tasks SET assigned_to = ?, status = 'In Progress' WHERE id = ?", employeeId, taskId);
+        if (count > 0) publishChange(taskId, DomainEvents.TaskAssigned::new);
+        return count;
+    }
+
+    public int[] assignAll(Map<Integer, Integer> employeeByTask) throws SQLException {
+        List<Object[]> rows = new ArrayList<>(employeeByTask.size());
+        for (Map.Entry<Integer, Integer> entry : employeeByTask.entrySet()) {
+            rows.add(new Object[]{entry.getValue(), entry.getKey()});
+        }
+        try {
+            return executor().batch("UPDATE tasks SET assigned_to = ?, status = 'In Progress' WHERE id = ?", rows);
+        } finally {
+            DomainEvents.publish(new DomainEvents.TasksChanged());
+        }
+    }
+
+    public int delete(int taskId) throws SQLException {
+        int count = executor().update("DELETE FROM tasks WHERE id = ?", taskId);
+        if (count > 0) DomainEvents.publish(new DomainEvents.TaskDeleted(taskId));
+        return count;
+    }
+
+    public int[] deleteAll(Collection<Integer> taskIds) throws SQLException {
+        List<Object[]> rows = new ArrayList<>(taskIds.size());
+        for (Integer taskId : taskIds) {
+            rows.add(new Object[]{taskId});
+        }
+        try {
+            return executor().batch("DELETE FROM tasks WHERE id = ?", rows);
+        } finally {
+            DomainEvents.publish(new DomainEvents.TasksChanged());
+        }
+    }
+
+    // Re-reads the row so listeners get the assignee name and database defaults; the write has
+    // already succeeded, so if the read fails listeners are told to reload instead
+    private void publishChange(int taskId, Function<TaskRecord, DomainEvents.Event> event) {
+        try {
+            TaskRecord task = findById(taskId);
+            if (task != null) {
+                DomainEvents.publish(event.apply(task));
+                return;
+            }
+        } catch (SQLException e) {
+            System.err.println("Could not re-read task " + taskId + ": " + e.getMessage());
+        }
+        DomainEvents.publish(new DomainEvents.TasksChanged());
+    }
+
+    private QueryExecutor executor() throws SQLException {
+        return conn.executor(profile);
+    }
+
+    private static TaskRecord mapRecord(ResultSet rs) throws SQLException {
+        int assignedTo = rs.getInt("assigned_to");
+        Integer assignee = rs.wasNull() ? null : assignedTo;
+        java.sql.Date due = rs.getDate("due_date");
+        Timestamp created = rs.getTimestamp("created_date");
+        LocalDateTime createdDate = created == null ? null : created.toLocalDateTime();
+        return new TaskRecord(rs.getInt("id"), rs.getString("title"), rs.getString("description"),
+            rs.getString("priority"), rs.getString("status"), assignee, rs.getString("employee_name"),
+            rs.getInt("estimated_hours"), due == null ? null : due.toLocalDate(), createdDate);
+    }
+}
@@ -2,8 +2,11 @@ import java.awt.*;
 import java.awt.event.*;
 import java.sql.*;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import javax.swing.*;
 import javax.swing.border.*;
 import javax.swing.table.*;
@@ -22,7 +25,7 @@ public class Task_ass extends JFrame implements ActionListener {
     
     // UI Components
     private JTable tasksTable, employeesTable;
-    private DefaultTableModel tasksModel, employeesModel;
+    private IdTableModel tasksModel, employeesModel;
     private JTextField taskTitleField, taskDescField, dueDateField, searchField;
     private JComboBox<String> priorityCombo, statusCombo, departmentFilterCombo;
     private JTextArea aiRecommendationArea;
@@ -32,14 +35,17 @@ public class Task_ass extends JFrame implements ActionListener {
     private JSpinner hoursSpinner;
     
     // Data
-    private conn dbConnection;
     private Map<Integer, Employee> employeeMap = new HashMap<>();
     private Map<Integer, Task> taskMap = new HashMap<>();
     private AITaskAnalyzer aiAnalyzer = new AITaskAnalyzer();
+    private final TaskRepository taskRepository = new TaskRepository();
+    private final QueryScope queryScope = new QueryScope();
+    private SearchPipeline searchPipeline;
+    private final DomainEvents.Subscription events = new DomainEvents.Subscription();
     
     // Data Models
     private static class Employee {
-        int id;
+        int id, openHours;
         String name, department, position, email;
         double workload, skillScore;
         
@@ -61,6 +67,60 @@ public class Task_ass extends JFrame implements ActionListener {
         }
     }
     
+    // Read-only rows keyed by the id in their first column; finds an id's row without scanning
+    private static class IdTableModel extends DefaultTableModel {
+        // An id's row is its slot minus top, so putting a row first only lowers top
+        private final Map<Object, Integer> slots = new HashMap<>();
+        private int top;
+        
+        IdTableModel(String[] columns) {
+            super(columns, 0);
+        }
+        
+        public boolean isCellEditable(int row, int column) { return false; }
+        
+        // Row holding id, or -1
+        int rowOf(int id) {
+            Integer slot = slots.get(id);
+            return slot == null ? -1 : slot - top;
+        }
+        
+        @Override
+        public void insertRow(int row, Vector<?> rowData) {
+            if (row == 0) {
+                top--;
+            } else {
+                for (int i = row; i < getRowCount(); i++) slots.put(getValueAt(i, 0), top + i + 1);
+            }
+            slots.put(rowData.get(0), top + row);
+            super.insertRow(row, rowData);
+        }
+        
+        @Override
+        public void removeRow(int row) {
+            slots.remove(getValueAt(row, 0));
+            super.removeRow(row);
+            // Renumber whichever side of the gap is shorter
+            if (row < getRowCount() / 2) {
+                for (int i = 0; i < row; i++) slots.put(getValueAt(i, 0), top + i + 1);
+                top++;
+            } else {
+                for (int i = row; i < getRowCount(); i++) slots.put(getValueAt(i, 0), top + i);
+            }
+        }
+        
+        @Override
+        public void setRowCount(int rowCount) {
+            if (rowCount == 0) {
+                slots.clear();
+                top = 0;
+            } else {
+                for (int i = rowCount; i < getRowCount(); i++) slots.remove(getValueAt(i, 0));
+            }
+            super.setRowCount(rowCount);
+        }
+    }
+    
     // AI Task Analyzer
     private static class AITaskAnalyzer {
         public String analyzeTaskAssignment(Task task, Map<Integer, Employee> employees) {
@@ -112,11 +172,11 @@ public class Task_ass extends JFrame implements ActionListener {
         initializeUI();
         loadData();
         setupEventListeners();
+        subscribeToChanges();
     }
     
     private void initializeDatabase() {
         try {
-            dbConnection = new conn();
             if (!checkEmployeeTableExists()) {
                 JOptionPane.showMessageDialog(this, "Employee table not found. Please setup employee system first.", 
                     "Database Error", JOptionPane.ERROR_MESSAGE);
@@ -131,7 +191,7 @@ public class Task_ass extends JFrame implements ActionListener {
     
     private boolean checkEmployeeTableExists() {
         try {
-            dbConnection.statement.executeQuery("SELECT COUNT(*) FROM employee LIMIT 1").close();
+            conn.executor().queryFirst("SELECT 1 FROM employee LIMIT 1", rs -> Boolean.TRUE);
             return true;
         } catch (SQLException e) {
             return false;
@@ -140,48 +200,11 @@ public class Task_ass extends JFrame implements ActionListener {
     
     private void createTaskTables() {
         try {
-            // Check employee ID type
-            String employeeIdType = "INT";
-            try {
-                ResultSet rs = dbConnection.statement.executeQuery("DESCRIBE employee");
-                while (rs.next()) {
-                    if ("id".equals(rs.getString("Field"))) {
-                        employeeIdType = rs.getString("Type").toLowerCase().contains("bigint") ? "BIGINT" : "INT";
-                        break;
-                    }
-                }
-                rs.close();
-            } catch (SQLException e) { /* Use default INT */ }
-            
-            // Create tables
-            dbConnection.statement.executeUpdate("DROP TABLE IF EXISTS task_history, tasks");
-            
-            String createTasksTable = "CREATE TABLE tasks (" +
-                "id " + employeeIdType + " PRIMARY KEY AUTO_INCREMENT, " +
-                "title VARCHAR(255) NOT NULL, description TEXT, " +
-                "priority ENUM('Low', 'Medium', 'High') DEFAULT 'Medium', " +
-                "status ENUM('Pending', 'In Progress', 'Completed', 'Cancelled') DEFAULT 'Pending', " +
-                "assigned_to " + employeeIdType + " NULL, estimated_hours INT DEFAULT 8, " +
-                "due_date DATE, created_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP)";
-            
-            dbConnection.statement.executeUpdate(createTasksTable);
-            
-            try {
-                dbConnection.statement.executeUpdate("ALTER TABLE tasks ADD CONSTRAINT fk_tasks_employee " +
-                    "FOREIGN KEY (assigned_to) REFERENCES employee(id) ON DELETE SET NULL");
-            } catch (SQLException e) { /* FK constraint optional */ }
-            
+            // Versioned and non-destructive; a no-op once the schema is current
+            SchemaMigrator.migrate();
         } catch (SQLException e) {
-            // Fallback basic table
-            try {
-                dbConnection.statement.executeUpdate("CREATE TABLE IF NOT EXISTS tasks (" +
-                    "id INT PRIMARY KEY AUTO_INCREMENT, title VARCHAR(255) NOT NULL, description TEXT, " +
-                    "priority VARCHAR(10) DEFAULT 'Medium', status VARCHAR(20) DEFAULT 'Pending', " +
-                    "assigned_to INT NULL, estimated_hours INT DEFAULT 8, " +
-                    "due_date DATE, created_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
-            } catch (SQLException fallbackError) {
-                JOptionPane.showMessageDialog(null, "Failed to create database tables.", "Database Error", JOptionPane.ERROR_MESSAGE);
-            }
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(null, "Failed to create database tables.", "Database Error", JOptionPane.ERROR_MESSAGE);
         }
     }
     
@@ -286,9 +309,7 @@ public class Task_ass extends JFrame implements ActionListener {
         gbc.insets = new Insets(5, 5, 5, 5); gbc.fill = GridBagConstraints.HORIZONTAL;
         
         searchField = createStyledTextField();
-        searchField.addKeyListener(new KeyAdapter() {
-            public void keyReleased(KeyEvent e) { filterTasks(); }
-        });
+        searchPipeline = new SearchPipeline(searchField, queryScope, this::prepareTaskSearch);
         
         departmentFilterCombo = createStyledComboBox(new String[]{"All", "IT", "HR", "Finance", "Marketing", "Operations", "Sales"});
         statusCombo = createStyledComboBox(new String[]{"All", "Pending", "In Progress", "Completed", "Cancelled"});
@@ -314,9 +335,7 @@ public class Task_ass extends JFrame implements ActionListener {
         panel.setPreferredSize(new Dimension(500, 0));
         
         String[] taskColumns = {"ID", "Title", "Priority", "Status", "Assigned To", "Due Date"};
-        tasksModel = new DefaultTableModel(taskColumns, 0) {
-            public boolean isCellEditable(int row, int column) { return false; }
-        };
+        tasksModel = new IdTableModel(taskColumns);
         
         tasksTable = new JTable(tasksModel);
         styleTable(tasksTable);
@@ -363,9 +382,7 @@ public class Task_ass extends JFrame implements ActionListener {
         JPanel empPanel = createStyledPanel("Team Members", SECONDARY_COLOR);
         
         String[] empColumns = {"ID", "Name", "Department", "Workload %", "Skill"};
-        employeesModel = new DefaultTableModel(empColumns, 0) {
-            public boolean isCellEditable(int row, int column) { return false; }
-        };
+        employeesModel = new IdTableModel(empColumns);
         
         employeesTable = new JTable(employeesModel);
         styleTable(employeesTable);
@@ -517,87 +534,186 @@ public class Task_ass extends JFrame implements ActionListener {
     }
     
     private void loadData() {
-        SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
-            protected Void doInBackground() throws Exception {
-                loadEmployees();
-                loadTasks();
-                return null;
+        // Employees, open hours and tasks load side by side; the models are only touched on the EDT
+        CompletableFuture<List<EmployeeRecord.Summary>> summaries = queryScope.submit(() -> EmployeeDirectory.summaries(null));
+        CompletableFuture<Map<Integer, Integer>> openHours = queryScope.submit(taskRepository::findOpenHoursByAssignee);
+        CompletableFuture<List<TaskRecord>> tasks = queryScope.submit(taskRepository::findAllWithAssignee);
+        
+        CompletableFuture.allOf(summaries, openHours, tasks).whenComplete(queryScope.onEdt((ignored, error) -> {
+            try {
+                loadEmployees(summaries.join(), openHours.join());
+            } catch (CompletionException e) {
+                System.err.println("Error loading employees: " + DbExecutor.describe(e));
             }
-            protected void done() { updateStatistics(); }
-        };
-        worker.execute();
+            try {
+                loadTasks(tasks.join());
+            } catch (CompletionException e) {
+                System.err.println("Error loading tasks: " + DbExecutor.describe(e));
+            }
+            updateStatistics();
+        }));
     }
     
-    private void loadEmployees() {
-        try {
-            employeesModel.setRowCount(0);
-            employeeMap.clear();
+    private void loadEmployees(List<EmployeeRecord.Summary> summaries, Map<Integer, Integer> openHours) {
+        employeesModel.setRowCount(0);
+        employeeMap.clear();
+        
+        // One grouped query for everyone's open hours instead of one query per employee
+        for (EmployeeRecord.Summary summary : summaries) {
+            Employee emp = new Employee(Integer.parseInt(summary.getId()), summary.getName(), summary.getDepartment(), 
+                summary.getPosition(), summary.getEmail());
+            emp.openHours = openHours.getOrDefault(emp.id, 0);
+            emp.workload = calculateEmployeeWorkload(emp.openHours);
+            employeeMap.put(emp.id, emp);
             
-            ResultSet rs = dbConnection.statement.executeQuery("SELECT id, name, department, position, email FROM employee");
-            while (rs.next()) {
-                Employee emp = new Employee(rs.getInt("id"), rs.getString("name"), rs.getString("department"), 
-                    rs.getString("position"), rs.getString("email"));
-                emp.workload = calculateEmployeeWorkload(emp.id);
-                employeeMap.put(emp.id, emp);
-                
-                employeesModel.addRow(new Object[]{emp.id, emp.name, emp.department, 
-                    String.format("%.1f%%", emp.workload), String.format("%.1f", emp.skillScore)});
-            }
-            rs.close();
-        } catch (SQLException e) {
-            System.err.println("Error loading employees: " + e.getMessage());
+            employeesModel.addRow(employeeRow(emp));
         }
     }
     
-    private void loadTasks() {
-        try {
-            tasksModel.setRowCount(0);
-            taskMap.clear();
+    private void loadTasks(List<TaskRecord> records) {
+        tasksModel.setRowCount(0);
+        taskMap.clear();
+        
+        for (TaskRecord record : records) {
+            Task task = toTask(record);
+            taskMap.put(task.id, task);
             
-            ResultSet rs = dbConnection.statement.executeQuery(
-                "SELECT t.*, e.name as employee_name FROM tasks t LEFT JOIN employee e ON t.assigned_to = e.id ORDER BY t.created_date DESC");
+            String assignedName = record.getAssigneeName();
+            if (assignedName == null) assignedName = "Unassigned";
             
-            while (rs.next()) {
-                java.sql.Date sqlDueDate = rs.getDate("due_date");
-                Task task = new Task(rs.getInt("id"), rs.getString("title"), rs.getString("description"), 
-                    rs.getString("priority"), new java.util.Date(sqlDueDate.getTime()), rs.getInt("estimated_hours"));
-                
-                task.status = rs.getString("status");
-                task.assignedTo = rs.getInt("assigned_to");
-                
-                Timestamp timestamp = rs.getTimestamp("created_date");
-                if (timestamp != null) task.createdDate = new java.util.Date(timestamp.getTime());
-                
-                taskMap.put(task.id, task);
-                
-                String assignedName = rs.getString("employee_name");
-                if (assignedName == null) assignedName = "Unassigned";
-                
-                tasksModel.addRow(new Object[]{task.id, task.title, task.priority, task.status, 
-                    assignedName, new SimpleDateFormat("dd/MM/yyyy").format(task.dueDate)});
+            tasksModel.addRow(new Object[]{task.id, task.title, task.priority, task.status, 
+                assignedName, new SimpleDateFormat("dd/MM/yyyy").format(task.dueDate)});
+        }
+    }
+    
+    private Task toTask(TaskRecord record) {
+        Task task = new Task(record.getId(), record.getTitle(), record.getDescription(), 
+            record.getPriority(), java.sql.Date.valueOf(record.getDueDate()), record.getEstimatedHours());
+        
+        task.status = record.getStatus();
+        task.assignedTo = record.getAssignedTo() != null ? record.getAssignedTo() : 0;
+        
+        if (record.getCreatedDate() != null) task.createdDate = Timestamp.valueOf(record.getCreatedDate());
+        return task;
+    }
+    
+    private Object[] employeeRow(Employee emp) {
+        return new Object[]{emp.id, emp.name, emp.department, 
+            String.format("%.1f%%", emp.workload), String.format("%.1f", emp.skillScore)};
+    }
+    
+    private Object[] taskRow(Task task) {
+        String assignedName = "Unassigned";
+        if (task.assignedTo > 0 && employeeMap.containsKey(task.assignedTo)) {
+            assignedName = employeeMap.get(task.assignedTo).name;
+        }
+        return new Object[]{task.id, task.title, task.priority, task.status, 
+            assignedName, new SimpleDateFormat("dd/MM/yyyy").format(task.dueDate)};
+    }
+    
+    // Committed changes from any window patch single rows; bulk changes reload
+    private void subscribeToChanges() {
+        events.on(DomainEvents.TaskCreated.class, e -> applyTask(e.getTask()))
+              .on(DomainEvents.TaskAssigned.class, e -> applyTask(e.getTask()))
+              .on(DomainEvents.TaskUpdated.class, e -> applyTask(e.getTask()))
+              .on(DomainEvents.TaskDeleted.class, e -> removeTask(e.getId()))
+              .on(DomainEvents.TasksChanged.class, e -> loadData())
+              .on(DomainEvents.EmployeeAdded.class, e -> applyEmployee(e.getEmployee()))
+              .on(DomainEvents.EmployeeUpdated.class, e -> applyEmployee(e.getEmployee()))
+              .on(DomainEvents.EmployeeRemoved.class, e -> removeEmployee(Integer.parseInt(e.getId())))
+              .on(DomainEvents.EmployeesChanged.class, e -> loadData());
+    }
+    
+    private void applyTask(TaskRecord record) {
+        Task task = toTask(record);
+        Task previous = taskMap.put(task.id, task);
+        if (previous != null) addOpenHours(previous, -1);
+        addOpenHours(task, 1);
+        
+        int row = tasksModel.rowOf(task.id);
+        if (!matchesFilter(task)) {
+            if (row >= 0) tasksModel.removeRow(row);
+        } else if (row >= 0) {
+            Object[] values = taskRow(task);
+            for (int column = 1; column < values.length; column++) {
+                if (!Objects.equals(values[column], tasksModel.getValueAt(row, column))) {
+                    tasksModel.setValueAt(values[column], row, column);
+                }
             }
-            rs.close();
-        } catch (SQLException e) {
-            System.err.println("Error loading tasks: " + e.getMessage());
+        } else {
+            // Newest first, as loaded
+            tasksModel.insertRow(0, taskRow(task));
         }
+        updateStatistics();
     }
     
-    private double calculateEmployeeWorkload(int employeeId) {
-        try {
-            PreparedStatement pstmt = dbConnection.statement.getConnection().prepareStatement(
-                "SELECT SUM(estimated_hours) as total_hours FROM tasks WHERE assigned_to = ? AND status IN ('Pending', 'In Progress')");
-            pstmt.setInt(1, employeeId);
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                int totalHours = rs.getInt("total_hours");
-                return Math.min(100.0, (totalHours / 40.0) * 100);
+    private void removeTask(int taskId) {
+        Task previous = taskMap.remove(taskId);
+        if (previous != null) addOpenHours(previous, -1);
+        int row = tasksModel.rowOf(taskId);
+        if (row >= 0) tasksModel.removeRow(row);
+        updateStatistics();
+    }
+    
+    // Adds (sign 1) or takes away (sign -1) an open task's hours from its assignee's workload
+    private void addOpenHours(Task task, int sign) {
+        if (task.assignedTo <= 0 || !("Pending".equals(task.status) || "In Progress".equals(task.status))) return;
+        Employee emp = employeeMap.get(task.assignedTo);
+        if (emp == null) return;
+        emp.openHours += sign * task.estimatedHours;
+        emp.workload = calculateEmployeeWorkload(emp.openHours);
+        int row = employeesModel.rowOf(emp.id);
+        if (row >= 0) employeesModel.setValueAt(String.format("%.1f%%", emp.workload), row, 3);
+    }
+    
+    private void applyEmployee(EmployeeRecord record) {
+        int id = Integer.parseInt(record.getId());
+        Employee emp = employeeMap.get(id);
+        if (emp == null) {
+            emp = new Employee(id, record.getName(), record.getDepartment(), record.getPosition(), record.getEmail());
+            employeeMap.put(id, emp);
+            employeesModel.addRow(employeeRow(emp));
+            return;
+        }
+        
+        boolean renamed = !Objects.equals(emp.name, record.getName());
+        emp.name = record.getName();
+        emp.department = record.getDepartment();
+        emp.position = record.getPosition();
+        emp.email = record.getEmail();
+        int row = employeesModel.rowOf(id);
+        if (row >= 0) {
+            employeesModel.setValueAt(emp.name, row, 1);
+            employeesModel.setValueAt(emp.department, row, 2);
+        }
+        if (renamed) {
+            for (Task task : taskMap.values()) {
+                if (task.assignedTo == id) {
+                    int taskRow = tasksModel.rowOf(task.id);
+                    if (taskRow >= 0) tasksModel.setValueAt(emp.name, taskRow, 4);
+                }
+            }
+        }
+    }
+    
+    // Deleting an employee leaves their tasks unassigned (ON DELETE SET NULL)
+    private void removeEmployee(int employeeId) {
+        if (employeeMap.remove(employeeId) == null) return;
+        int row = employeesModel.rowOf(employeeId);
+        if (row >= 0) employeesModel.removeRow(row);
+        
+        for (Task task : taskMap.values()) {
+            if (task.assignedTo == employeeId) {
+                task.assignedTo = 0;
+                int taskRow = tasksModel.rowOf(task.id);
+                if (taskRow >= 0) tasksModel.setValueAt("Unassigned", taskRow, 4);
             }
-            rs.close(); pstmt.close();
-        } catch (SQLException e) {
-            System.err.println("Error calculating workload: " + e.getMessage());
         }
-        return 0.0;
+    }
+    
+    // 40 open hours counts as a full week
+    private double calculateEmployeeWorkload(int openHours) {
+        return Math.min(100.0, (openHours / 40.0) * 100);
     }
     
     private void loadTaskDetails(int selectedRow) {
@@ -639,33 +755,67 @@ public class Task_ass extends JFrame implements ActionListener {
     }
     
     private void filterTasks() {
-        String searchText = searchField.getText().toLowerCase();
+        if (searchPipeline != null) searchPipeline.runNow();
+    }
+    
+    // Copies the task fields on the EDT and matches them in the background; the rows are built back on the EDT
+    private DbExecutor.DbCall<Runnable> prepareTaskSearch(String text, SearchPipeline.Run run) {
+        String searchText = text.toLowerCase();
         String departmentFilter = (String) departmentFilterCombo.getSelectedItem();
         String statusFilter = (String) statusCombo.getSelectedItem();
         
-        tasksModel.setRowCount(0);
-        
+        int size = taskMap.size();
+        int[] ids = new int[size];
+        String[][] fields = new String[size][];
+        int i = 0;
         for (Task task : taskMap.values()) {
-            boolean matchesSearch = searchText.isEmpty() || 
-                                  task.title.toLowerCase().contains(searchText) ||
-                                  task.description.toLowerCase().contains(searchText);
-            
-            boolean matchesDepartment = "All".equals(departmentFilter) || 
-                                      (task.assignedTo > 0 && employeeMap.containsKey(task.assignedTo) &&
-                                       employeeMap.get(task.assignedTo).department.equals(departmentFilter));
-            
-            boolean matchesStatus = "All".equals(statusFilter) || task.status.equals(statusFilter);
-            
-            if (matchesSearch && matchesDepartment && matchesStatus) {
-                String assignedName = "Unassigned";
-                if (task.assignedTo > 0 && employeeMap.containsKey(task.assignedTo)) {
-                    assignedName = employeeMap.get(task.assignedTo).name;
+            Employee assignee = task.assignedTo > 0 ? employeeMap.get(task.assignedTo) : null;
+            ids[i] = task.id;
+            fields[i++] = new String[]{task.title, task.description, task.status, assignee == null ? null : assignee.department};
+        }
+        
+        return () -> {
+            List<Integer> matches = new ArrayList<>();
+            for (int row = 0; row < size; row++) {
+                if ((row & 1023) == 0 && run.isCancelled()) return null;
+                String[] task = fields[row];
+                if (matchesFilter(task[0], task[1], task[2], task[3], searchText, departmentFilter, statusFilter)) {
+                    matches.add(ids[row]);
                 }
-                
-                tasksModel.addRow(new Object[]{task.id, task.title, task.priority, task.status, 
-                    assignedName, new SimpleDateFormat("dd/MM/yyyy").format(task.dueDate)});
             }
-        }
+            return () -> {
+                tasksModel.setRowCount(0);
+                for (int id : matches) {
+                    Task task = taskMap.get(id);
+                    if (task != null) tasksModel.addRow(taskRow(task));
+                }
+            };
+        };
+    }
+    
+    private boolean matchesFilter(Task task) {
+        return matchesFilter(task, searchField.getText().toLowerCase(), (String) departmentFilterCombo.getSelectedItem(),
+            (String) statusCombo.getSelectedItem());
+    }
+    
+    private boolean matchesFilter(Task task, String searchText, String departmentFilter, String statusFilter) {
+        Employee assignee = task.assignedTo > 0 ? employeeMap.get(task.assignedTo) : null;
+        return matchesFilter(task.title, task.description, task.status, assignee == null ? null : assignee.department,
+            searchText, departmentFilter, statusFilter);
+    }
+    
+    private static boolean matchesFilter(String title, String description, String status, String department,
+                                         String searchText, String departmentFilter, String statusFilter) {
+        boolean matchesSearch = searchText.isEmpty() || 
+                              title.toLowerCase().contains(searchText) ||
+                              description.toLowerCase().contains(searchText);
+        
+        boolean matchesDepartment = departmentFilter == null || "All".equals(departmentFilter) || 
+                                  departmentFilter.equals(department);
+        
+        boolean matchesStatus = statusFilter == null || "All".equals(statusFilter) || status.equals(statusFilter);
+        
+        return matchesSearch && matchesDepartment && matchesStatus;
     }
     
     @Override
@@ -691,42 +841,16 @@ public class Task_ass extends JFrame implements ActionListener {
     private void createTask() {
         if (!validateTaskForm()) return;
         
-        SwingWorker<Boolean, Void> worker = new SwingWorker<Boolean, Void>() {
-            protected Boolean doInBackground() throws Exception {
-                try {
-                    PreparedStatement pstmt = dbConnection.statement.getConnection().prepareStatement(
-                        "INSERT INTO tasks (title, description, priority, due_date, estimated_hours) VALUES (?, ?, ?, ?, ?)");
-                    
-                    pstmt.setString(1, taskTitleField.getText().trim());
-                    pstmt.setString(2, taskDescField.getText().trim());
-                    pstmt.setString(3, (String) priorityCombo.getSelectedItem());
-                    pstmt.setDate(4, java.sql.Date.valueOf(dueDateField.getText()));
-                    pstmt.setInt(5, (Integer) hoursSpinner.getValue());
-                    
-                    int result = pstmt.executeUpdate();
-                    pstmt.close();
-                    return result > 0;
-                } catch (SQLException ex) {
-                    ex.printStackTrace();
-                    return false;
-                }
-            }
-            
-            protected void done() {
-                try {
-                    if (get()) {
-                        JOptionPane.showMessageDialog(Task_ass.this, "Task created successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
-                        clearTaskForm();
-                        loadData();
-                    } else {
-                        JOptionPane.showMessageDialog(Task_ass.this, "Failed to create task.", "Error", JOptionPane.ERROR_MESSAGE);
-                    }
-                } catch (Exception ex) {
-                    JOptionPane.showMessageDialog(Task_ass.this, "Error: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-                }
-            }
-        };
-        worker.execute();
+        String title = taskTitleField.getText().trim();
+        String description = taskDescField.getText().trim();
+        String priority = (String) priorityCombo.getSelectedItem();
+        LocalDate dueDate = java.sql.Date.valueOf(dueDateField.getText()).toLocalDate();
+        int hours = (Integer) hoursSpinner.getValue();
+        
+        runTaskUpdate(() -> taskRepository.insert(title, description, priority, dueDate, hours), () -> {
+            JOptionPane.showMessageDialog(Task_ass.this, "Task created successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+            clearTaskForm();
+        }, "Failed to create task.", "Error");
     }
     
     private void assignTask() {
@@ -746,40 +870,13 @@ public class Task_ass extends JFrame implements ActionListener {
         int taskId = (Integer) tasksModel.getValueAt(selectedTaskRow, 0);
         int employeeId = (Integer) employeesModel.getValueAt(selectedEmpRow, 0);
         
-        SwingWorker<Boolean, Void> worker = new SwingWorker<Boolean, Void>() {
-            protected Boolean doInBackground() throws Exception {
-                try {
-                    PreparedStatement pstmt = dbConnection.statement.getConnection().prepareStatement(
-                        "UPDATE tasks SET assigned_to = ?, status = 'In Progress' WHERE id = ?");
-                    pstmt.setInt(1, employeeId);
-                    pstmt.setInt(2, taskId);
-                    
-                    int result = pstmt.executeUpdate();
-                    pstmt.close();
-                    return result > 0;
-                } catch (SQLException ex) {
-                    ex.printStackTrace();
-                    return false;
-                }
-            }
-            
-            protected void done() {
-                try {
-                    if (get()) {
-                        String employeeName = (String) employeesModel.getValueAt(selectedEmpRow, 1);
-                        String taskTitle = (String) tasksModel.getValueAt(selectedTaskRow, 1);
-                        JOptionPane.showMessageDialog(Task_ass.this, String.format("Task '%s' assigned to %s!", taskTitle, employeeName),
-                            "Assignment Successful", JOptionPane.INFORMATION_MESSAGE);
-                        loadData();
-                    } else {
-                        JOptionPane.showMessageDialog(Task_ass.this, "Failed to assign task.", "Assignment Failed", JOptionPane.ERROR_MESSAGE);
-                    }
-                } catch (Exception ex) {
-                    JOptionPane.showMessageDialog(Task_ass.this, "Error: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-                }
-            }
-        };
-        worker.execute();
+        String employeeName = (String) employeesModel.getValueAt(selectedEmpRow, 1);
+        String taskTitle = (String) tasksModel.getValueAt(selectedTaskRow, 1);
+        
+        runTaskUpdate(() -> taskRepository.assign(taskId, employeeId), () ->
+            JOptionPane.showMessageDialog(Task_ass.this, String.format("Task '%s' assigned to %s!", taskTitle, employeeName),
+                "Assignment Successful", JOptionPane.INFORMATION_MESSAGE),
+            "Failed to assign task.", "Assignment Failed");
     }
     
     private void updateTask() {
@@ -793,42 +890,15 @@ public class Task_ass extends JFrame implements ActionListener {
         
         int taskId = (Integer) tasksModel.getValueAt(selectedRow, 0);
         
-        SwingWorker<Boolean, Void> worker = new SwingWorker<Boolean, Void>() {
-            protected Boolean doInBackground() throws Exception {
-                try {
-                    PreparedStatement pstmt = dbConnection.statement.getConnection().prepareStatement(
-                        "UPDATE tasks SET title = ?, description = ?, priority = ?, due_date = ?, estimated_hours = ? WHERE id = ?");
-                    
-                    pstmt.setString(1, taskTitleField.getText().trim());
-                    pstmt.setString(2, taskDescField.getText().trim());
-                    pstmt.setString(3, (String) priorityCombo.getSelectedItem());
-                    pstmt.setDate(4, java.sql.Date.valueOf(dueDateField.getText()));
-                    pstmt.setInt(5, (Integer) hoursSpinner.getValue());
-                    pstmt.setInt(6, taskId);
-                    
-                    int result = pstmt.executeUpdate();
-                    pstmt.close();
-                    return result > 0;
-                } catch (SQLException ex) {
-                    ex.printStackTrace();
-                    return false;
-                }
-            }
-            
-            protected void done() {
-                try {
-                    if (get()) {
-                        JOptionPane.showMessageDialog(Task_ass.this, "Task updated successfully!", "Update Successful", JOptionPane.INFORMATION_MESSAGE);
-                        loadData();
-                    } else {
-                        JOptionPane.showMessageDialog(Task_ass.this, "Failed to update task.", "Update Failed", JOptionPane.ERROR_MESSAGE);
-                    }
-                } catch (Exception ex) {
-                    JOptionPane.showMessageDialog(Task_ass.this, "Error: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-                }
-            }
-        };
-        worker.execute();
+        String title = taskTitleField.getText().trim();
+        String description = taskDescField.getText().trim();
+        String priority = (String) priorityCombo.getSelectedItem();
+        LocalDate dueDate = java.sql.Date.valueOf(dueDateField.getText()).toLocalDate();
+        int hours = (Integer) hoursSpinner.getValue();
+        
+        runTaskUpdate(() -> taskRepository.update(taskId, title, description, priority, dueDate, hours), () ->
+            JOptionPane.showMessageDialog(Task_ass.this, "Task updated successfully!", "Update Successful", JOptionPane.INFORMATION_MESSAGE),
+            "Failed to update task.", "Update Failed");
     }
     
     private void deleteTask() {
@@ -846,35 +916,25 @@ public class Task_ass extends JFrame implements ActionListener {
         
         int taskId = (Integer) tasksModel.getValueAt(selectedRow, 0);
         
-        SwingWorker<Boolean, Void> worker = new SwingWorker<Boolean, Void>() {
-            protected Boolean doInBackground() throws Exception {
-                try {
-                    PreparedStatement pstmt = dbConnection.statement.getConnection().prepareStatement("DELETE FROM tasks WHERE id = ?");
-                    pstmt.setInt(1, taskId);
-                    int result = pstmt.executeUpdate();
-                    pstmt.close();
-                    return result > 0;
-                } catch (SQLException ex) {
-                    ex.printStackTrace();
-                    return false;
-                }
-            }
-            
-            protected void done() {
-                try {
-                    if (get()) {
-                        JOptionPane.showMessageDialog(Task_ass.this, "Task deleted successfully!", "Delete Successful", JOptionPane.INFORMATION_MESSAGE);
-                        clearTaskForm();
-                        loadData();
-                    } else {
-                        JOptionPane.showMessageDialog(Task_ass.this, "Failed to delete task.", "Delete Failed", JOptionPane.ERROR_MESSAGE);
-                    }
-                } catch (Exception ex) {
-                    JOptionPane.showMessageDialog(Task_ass.this, "Error: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-                }
+        runTaskUpdate(() -> taskRepository.delete(taskId), () -> {
+            JOptionPane.showMessageDialog(Task_ass.this, "Task deleted successfully!", "Delete Successful", JOptionPane.INFORMATION_MESSAGE);
+            clearTaskForm();
+        }, "Failed to delete task.", "Delete Failed");
+    }
+    
+    // Runs a task write in the background and reports the outcome on the EDT; the tables are
+    // patched by the change event the repository publishes
+    private void runTaskUpdate(DbExecutor.DbCall<Integer> update, Runnable onSuccess, String failureMessage, String failureTitle) {
+        DbExecutor.submit(update).whenComplete(queryScope.onEdt((result, error) -> {
+            if (error != null) {
+                error.printStackTrace();
+                JOptionPane.showMessageDialog(Task_ass.this, "Error: " + DbExecutor.describe(error), "Error", JOptionPane.ERROR_MESSAGE);
+            } else if (result > 0) {
+                onSuccess.run();
+            } else {
+                JOptionPane.showMessageDialog(Task_ass.this, failureMessage, failureTitle, JOptionPane.ERROR_MESSAGE);
             }
-        };
-        worker.execute();
+        }));
     }
     
     private void performAIAnalysis() {
@@ -979,14 +1039,10 @@ public class Task_ass extends JFrame implements ActionListener {
     
     @Override
     public void dispose() {
-        if (dbConnection != null) {
-            try {
-                if (dbConnection.statement != null) dbConnection.statement.close();
-                if (dbConnection.connection != null) dbConnection.connection.close();
-            } catch (SQLException e) {
-                System.err.println("Error closing database connection: " + e.getMessage());
-            }
-        }
+        // Cancel this window's outstanding queries
+        if (searchPipeline != null) searchPipeline.cancel();
+        queryScope.close();
+        events.close();
         super.dispose();
     }
     
@@ -3,11 +3,11 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.FocusEvent;
 import java.awt.event.FocusListener;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.Objects;
 import java.util.regex.Pattern;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -38,48 +38,19 @@ public class UpdateEmployee extends JFrame implements ActionListener {
     
     // Data
     private String employeeId;
-    private conn dbConnection;
-    private Employee originalEmployee;
-    
-    // Inner class to store original employee data
-    private static class Employee {
-        String id, name, salary, phone, address, email, position, education, department, gender, joiningDate;
-        int age;
-        
-        Employee(String id, String name, int age, String gender, String salary, String phone, 
-                String address, String email, String position, String education, String department, String joiningDate) {
-            this.id = id;
-            this.name = name;
-            this.age = age;
-            this.gender = gender;
-            this.salary = salary;
-            this.phone = phone;
-            this.address = address;
-            this.email = email;
-            this.position = position;
-            this.education = education;
-            this.department = department;
-            this.joiningDate = joiningDate;
-        }
-    }
+    private final EmployeeRepository employeeRepository = new EmployeeRepository();
+    private final QueryScope queryScope = new QueryScope();
+    // The row as last read or saved, with its version; updates only write what the form changed from it
+    private EmployeeRecord originalEmployee;
     
     public UpdateEmployee(String employeeId) {
         this.employeeId = employeeId;
-        initializeDatabase();
+        conn.checkReachable(this, queryScope);
         initializeUI();
         loadEmployeeData();
         setupValidation();
     }
     
-    private void initializeDatabase() {
-        try {
-            dbConnection = new conn();
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Database connection failed: " + e.getMessage(),
-                                        "Connection Error", JOptionPane.ERROR_MESSAGE);
-        }
-    }
-    
     private void initializeUI() {
         // Configure main window
         setTitle("Update Employee - EMS");
@@ -475,74 +446,53 @@ public class UpdateEmployee extends JFrame implements ActionListener {
             return;
         }
         
-        try {
-            if (dbConnection == null || dbConnection.statement == null) {
-                throw new Exception("Database connection not available");
-            }
-            
-            String query = "SELECT * FROM employee WHERE id = ?";
-            try (PreparedStatement pstmt = dbConnection.statement.getConnection().prepareStatement(query)) {
-                pstmt.setString(1, employeeId);
-                ResultSet rs = pstmt.executeQuery();
+        updateButton.setEnabled(false);
+        // A cached copy another client has changed since only makes the save report a conflict and merge
+        queryScope.submit(() -> EmployeeDirectory.get(employeeId)).whenComplete(queryScope.onEdt((employee, error) -> {
+            if (error != null) {
+                error.printStackTrace();
+                JOptionPane.showMessageDialog(this, "Error loading employee data: " + DbExecutor.describe(error),
+                                            "Database Error", JOptionPane.ERROR_MESSAGE);
+                dispose();
+            } else if (employee != null) {
+                // Store original data
+                originalEmployee = employee;
                 
-                if (rs.next()) {
-                    // Store original data
-                    originalEmployee = new Employee(
-                        rs.getString("id"),
-                        rs.getString("name"),
-                        rs.getInt("age"),
-                        rs.getString("gender"),
-                        rs.getString("salary"),
-                        rs.getString("phone"),
-                        rs.getString("address"),
-                        rs.getString("email"),
-                        rs.getString("position"),
-                        rs.getString("education"),
-                        rs.getString("department"),
-                        rs.getString("joining_date")
-                    );
-                    
-                    // Populate form fields
-                    populateFields();
-                } else {
-                    JOptionPane.showMessageDialog(this, "Employee not found with ID: " + employeeId,
-                                                "Employee Not Found", JOptionPane.WARNING_MESSAGE);
-                    dispose();
-                }
+                // Populate form fields
+                populateFields(originalEmployee);
+                updateButton.setEnabled(true);
+            } else {
+                JOptionPane.showMessageDialog(this, "Employee not found with ID: " + employeeId,
+                                            "Employee Not Found", JOptionPane.WARNING_MESSAGE);
+                dispose();
             }
-            
-        } catch (Exception e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error loading employee data: " + e.getMessage(),
-                                        "Database Error", JOptionPane.ERROR_MESSAGE);
-            dispose();
-        }
+        }));
     }
     
-    private void populateFields() {
-        if (originalEmployee == null) return;
+    private void populateFields(EmployeeRecord employee) {
+        if (employee == null) return;
         
         // Set read-only fields
-        nameLabel.setText(originalEmployee.name);
-        idLabel.setText(originalEmployee.id);
+        nameLabel.setText(employee.getName());
+        idLabel.setText(employee.getId());
         
         // Set editable fields
-        ageSpinner.setValue(originalEmployee.age);
-        salaryField.setText(originalEmployee.salary);
-        phoneField.setText(originalEmployee.phone);
-        addressArea.setText(originalEmployee.address);
-        emailField.setText(originalEmployee.email);
-        positionField.setText(originalEmployee.position);
+        ageSpinner.setValue(employee.getAge());
+        salaryField.setText(employee.getSalary());
+        phoneField.setText(employee.getPhone());
+        addressArea.setText(employee.getAddress());
+        emailField.setText(employee.getEmail());
+        positionField.setText(employee.getPosition());
         
         // Set combo boxes
-        setComboBoxValue(genderCombo, originalEmployee.gender);
-        setComboBoxValue(educationCombo, originalEmployee.education);
-        setComboBoxValue(departmentCombo, originalEmployee.department);
+        setComboBoxValue(genderCombo, employee.getGender());
+        setComboBoxValue(educationCombo, employee.getEducation());
+        setComboBoxValue(departmentCombo, employee.getDepartment());
         
         // Set joining date
         try {
             SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy");
-            Date date = sdf.parse(originalEmployee.joiningDate);
+            Date date = sdf.parse(employee.getJoiningDate());
             joiningDateField.setValue(date);
         } catch (Exception e) {
             joiningDateField.setValue(new Date());
@@ -658,7 +608,7 @@ public class UpdateEmployee extends JFrame implements ActionListener {
     
     private void resetToOriginal() {
         if (originalEmployee != null) {
-            populateFields();
+            populateFields(originalEmployee);
             clearValidationMessage();
         }
     }
@@ -684,14 +634,14 @@ public class UpdateEmployee extends JFrame implements ActionListener {
         // Show changes
         if (originalEmployee != null) {
             preview.append("\n--- CHANGES ---\n");
-            if (!originalEmployee.salary.equals(salaryField.getText().trim())) {
-                preview.append("Salary: ").append(originalEmployee.salary).append(" → ").append(salaryField.getText().trim()).append("\n");
+            if (!originalEmployee.getSalary().equals(salaryField.getText().trim())) {
+                preview.append("Salary: ").append(originalEmployee.getSalary()).append(" → ").append(salaryField.getText().trim()).append("\n");
             }
-            if (!originalEmployee.phone.equals(phoneField.getText().trim())) {
-                preview.append("Phone: ").append(originalEmployee.phone).append(" → ").append(phoneField.getText().trim()).append("\n");
+            if (!originalEmployee.getPhone().equals(phoneField.getText().trim())) {
+                preview.append("Phone: ").append(originalEmployee.getPhone()).append(" → ").append(phoneField.getText().trim()).append("\n");
             }
-            if (!originalEmployee.email.equals(emailField.getText().trim())) {
-                preview.append("Email: ").append(originalEmployee.email).append(" → ").append(emailField.getText().trim()).append("\n");
+            if (!originalEmployee.getEmail().equals(emailField.getText().trim())) {
+                preview.append("Email: ").append(originalEmployee.getEmail()).append(" → ").append(emailField.getText().trim()).append("\n");
             }
         }
         
@@ -725,80 +675,141 @@ public class UpdateEmployee extends JFrame implements ActionListener {
         progressBar.setVisible(true);
         updateButton.setEnabled(false);
         
-        SwingWorker<Boolean, Void> worker = new SwingWorker<Boolean, Void>() {
-            @Override
-            protected Boolean doInBackground() throws Exception {
-                try {
-                    if (dbConnection == null || dbConnection.statement == null) {
-                        throw new Exception("Database connection not available");
-                    }
-                    
-                    // Use PreparedStatement for security
-                    String query = "UPDATE employee SET age=?, gender=?, phone=?, email=?, position=?, department=?, salary=?, education=?, address=?, joining_date=? WHERE id=?";
-                    
-                    try (PreparedStatement pstmt = dbConnection.statement.getConnection().prepareStatement(query)) {
-                        pstmt.setInt(1, (Integer) ageSpinner.getValue());
-                        pstmt.setString(2, (String) genderCombo.getSelectedItem());
-                        pstmt.setString(3, phoneField.getText().trim());
-                        pstmt.setString(4, emailField.getText().trim());
-                        pstmt.setString(5, positionField.getText().trim());
-                        pstmt.setString(6, (String) departmentCombo.getSelectedItem());
-                        pstmt.setString(7, salaryField.getText().trim());
-                        pstmt.setString(8, (String) educationCombo.getSelectedItem());
-                        pstmt.setString(9, addressArea.getText().trim());
-                        pstmt.setString(10, joiningDateField.getText());
-                        pstmt.setString(11, employeeId);
-                        
-                        int rowsAffected = pstmt.executeUpdate();
-                        return rowsAffected > 0;
-                    }
-                } catch (Exception ex) {
-                    ex.printStackTrace();
-                    return false;
-                }
-            }
-            
-            @Override
-            protected void done() {
+        // Read the form on the EDT; only the update itself runs in the background
+        save(originalEmployee, formEmployee());
+    }
+    
+    private EmployeeRecord formEmployee() {
+        return new EmployeeRecord(
+            employeeId,
+            originalEmployee.getName(),
+            (Integer) ageSpinner.getValue(),
+            (String) genderCombo.getSelectedItem(),
+            phoneField.getText().trim(),
+            emailField.getText().trim(),
+            positionField.getText().trim(),
+            (String) departmentCombo.getSelectedItem(),
+            salaryField.getText().trim(),
+            (String) educationCombo.getSelectedItem(),
+            addressArea.getText().trim(),
+            joiningDateField.getText(),
+            originalEmployee.getVersion()
+        );
+    }
+    
+    // Writes the fields that differ from original; if someone saved the row first, reads it once to merge
+    private void save(EmployeeRecord original, EmployeeRecord updated) {
+        DbExecutor.submit(() -> {
+            EmployeeRecord saved = employeeRepository.update(original, updated);
+            return saved != null ? new SaveResult(saved, null) : new SaveResult(null, employeeRepository.findById(employeeId));
+        }).whenComplete(queryScope.onEdt((result, error) -> {
+            if (error != null) {
                 progressBar.setVisible(false);
                 updateButton.setEnabled(true);
-                
-                try {
-                    boolean success = get();
-                    if (success) {
-                        JOptionPane.showMessageDialog(UpdateEmployee.this,
-                            "Employee details updated successfully!\nEmployee ID: " + employeeId,
-                            "Success", JOptionPane.INFORMATION_MESSAGE);
-                        dispose();
-                        new View_Employee();
-                    } else {
-                        JOptionPane.showMessageDialog(UpdateEmployee.this,
-                            "Failed to update employee details. Please try again.",
-                            "Error", JOptionPane.ERROR_MESSAGE);
-                    }
-                } catch (Exception ex) {
-                    JOptionPane.showMessageDialog(UpdateEmployee.this,
-                        "Error: " + ex.getMessage(),
-                        "Error", JOptionPane.ERROR_MESSAGE);
-                }
+                error.printStackTrace();
+                JOptionPane.showMessageDialog(UpdateEmployee.this,
+                    "Error: " + DbExecutor.describe(error),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            } else if (result.saved != null) {
+                progressBar.setVisible(false);
+                updateButton.setEnabled(true);
+                originalEmployee = result.saved;
+                JOptionPane.showMessageDialog(UpdateEmployee.this,
+                    "Employee details updated successfully!\nEmployee ID: " + employeeId,
+                    "Success", JOptionPane.INFORMATION_MESSAGE);
+                dispose();
+                new View_Employee();
+            } else {
+                resolveConflict(updated, result.current);
             }
-        };
+        }));
+    }
+    
+    /**
+     * Someone else saved the employee after it was loaded. Their changes are kept and this form's
+     * edits are applied on top; only when both changed the same field is the user asked which wins.
+     */
+    private void resolveConflict(EmployeeRecord mine, EmployeeRecord current) {
+        if (current == null) {
+            progressBar.setVisible(false);
+            JOptionPane.showMessageDialog(this,
+                "This employee has been removed by another user, so the changes can't be saved.",
+                "Employee Removed", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
         
-        worker.execute();
+        EmployeeRecord base = originalEmployee;
+        List<String> conflicts = new ArrayList<>();
+        EmployeeRecord merged = merge(base, mine, current, conflicts, true);
+        originalEmployee = current;
+        
+        if (!conflicts.isEmpty()) {
+            progressBar.setVisible(false);
+            int option = JOptionPane.showConfirmDialog(this,
+                "Another user changed this employee while you were editing:\n\n" + String.join("\n", conflicts) +
+                "\n\nSave your values for these fields? Choose No to review their values first.",
+                "Employee Changed", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+            if (option != JOptionPane.YES_OPTION) {
+                // Their values for the contested fields, this form's edits everywhere else
+                populateFields(merge(base, mine, current, null, false));
+                updateButton.setEnabled(true);
+                return;
+            }
+            progressBar.setVisible(true);
+        }
+        populateFields(merged);
+        save(current, merged);
+    }
+    
+    // Field by field: this form's value where it was edited from base, otherwise the current one
+    private static EmployeeRecord merge(EmployeeRecord base, EmployeeRecord mine, EmployeeRecord current,
+                                        List<String> conflicts, boolean mineWins) {
+        return new EmployeeRecord(current.getId(), current.getName(),
+            pick("Age", base.getAge(), mine.getAge(), current.getAge(), conflicts, mineWins),
+            pick("Gender", base.getGender(), mine.getGender(), current.getGender(), conflicts, mineWins),
+            pick("Phone", base.getPhone(), mine.getPhone(), current.getPhone(), conflicts, mineWins),
+            pick("Email", base.getEmail(), mine.getEmail(), current.getEmail(), conflicts, mineWins),
+            pick("Position", base.getPosition(), mine.getPosition(), current.getPosition(), conflicts, mineWins),
+            pick("Department", base.getDepartment(), mine.getDepartment(), current.getDepartment(), conflicts, mineWins),
+            pick("Salary", base.getSalary(), mine.getSalary(), current.getSalary(), conflicts, mineWins),
+            pick("Education", base.getEducation(), mine.getEducation(), current.getEducation(), conflicts, mineWins),
+            pick("Address", base.getAddress(), mine.getAddress(), current.getAddress(), conflicts, mineWins),
+            pick("Joining Date", base.getJoiningDate(), mine.getJoiningDate(), current.getJoiningDate(), conflicts, mineWins),
+            current.getVersion());
+    }
+    
+    private static <T> T pick(String field, T base, T mine, T current, List<String> conflicts, boolean mineWins) {
+        if (Objects.equals(base, mine)) return current;
+        if (Objects.equals(base, current) || Objects.equals(mine, current)) return mine;
+        if (conflicts != null) {
+            conflicts.add(field + ": yours \"" + mine + "\", theirs \"" + current + "\"");
+        }
+        return mineWins ? mine : current;
+    }
+    
+    // Outcome of save(): the stored row, or the row someone else stored first (null if deleted)
+    private static final class SaveResult {
+        final EmployeeRecord saved;
+        final EmployeeRecord current;
+        
+        SaveResult(EmployeeRecord saved, EmployeeRecord current) {
+            this.saved = saved;
+            this.current = current;
+        }
     }
     
     private boolean hasChanges() {
         if (originalEmployee == null) return true;
         
-        return !originalEmployee.salary.equals(salaryField.getText().trim()) ||
-               !originalEmployee.phone.equals(phoneField.getText().trim()) ||
-               !originalEmployee.email.equals(emailField.getText().trim()) ||
-               !originalEmployee.position.equals(positionField.getText().trim()) ||
-               !originalEmployee.address.equals(addressArea.getText().trim()) ||
-               !originalEmployee.education.equals((String) educationCombo.getSelectedItem()) ||
-               !originalEmployee.department.equals((String) departmentCombo.getSelectedItem()) ||
-               !originalEmployee.gender.equals((String) genderCombo.getSelectedItem()) ||
-               originalEmployee.age != (Integer) ageSpinner.getValue();
+        return !originalEmployee.getSalary().equals(salaryField.getText().trim()) ||
+               !originalEmployee.getPhone().equals(phoneField.getText().trim()) ||
+               !originalEmployee.getEmail().equals(emailField.getText().trim()) ||
+               !originalEmployee.getPosition().equals(positionField.getText().trim()) ||
+               !originalEmployee.getAddress().equals(addressArea.getText().trim()) ||
+               !originalEmployee.getEducation().equals((String) educationCombo.getSelectedItem()) ||
+               !originalEmployee.getDepartment().equals((String) departmentCombo.getSelectedItem()) ||
+               !originalEmployee.getGender().equals((String) genderCombo.getSelectedItem()) ||
+               originalEmployee.getAge() != (Integer) ageSpinner.getValue();
     }
     
     @Override
@@ -813,16 +824,8 @@ public class UpdateEmployee extends JFrame implements ActionListener {
             }
         }
         
-        // Clean up database connection
-        if (dbConnection != null) {
-            try {
-                if (dbConnection.statement != null) {
-                    dbConnection.statement.close();
-                }
-            } catch (Exception e) {
-                System.err.println("Error closing database connection: " + e.getMessage());
-            }
-        }
+        // Cancel this window's outstanding queries
+        queryScope.close();
         super.dispose();
     }
     
@@ -1,19 +1,16 @@
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.awt.event.KeyEvent;
-import java.awt.event.KeyListener;
 import java.awt.print.PrinterException;
-import java.sql.ResultSet;
-import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.JTableHeader;
-import javax.swing.table.TableRowSorter;
-import net.proteanit.sql.DbUtils;
 
 public class View_Employee extends JFrame implements ActionListener {
     // Constants for modern design
@@ -32,50 +29,27 @@ public class View_Employee extends JFrame implements ActionListener {
     private static final Color TABLE_ALTERNATE_COLOR = new Color(248, 249, 250);
     
     // UI Components
-    private JButton searchButton, printButton, updateButton, backButton, refreshButton, exportButton, deleteButton;
+    private JButton searchButton, printButton, updateButton, backButton, refreshButton, exportButton, deleteButton, bulkButton;
     private JTable employeeTable;
-    private JComboBox<EmployeeItem> employeeComboBox;
+    private EmployeePicker employeeComboBox;
     private JTextField searchField;
     private JLabel totalEmployeesLabel, statusLabel;
     private JPanel filterPanel;
     private JComboBox<String> departmentFilter, positionFilter;
-    private TableRowSorter<DefaultTableModel> tableSorter;
-    private DefaultTableModel tableModel;
-    private conn dbConnection;
-    
-    // Inner class for ComboBox items
-    private static class EmployeeItem {
-        private final String id;
-        private final String name;
-        
-        public EmployeeItem(String id, String name) {
-            this.id = id;
-            this.name = name;
-        }
-        
-        public String getId() { return id; }
-        public String getName() { return name; }
-        
-        @Override
-        public String toString() {
-            return id + " - " + name;
-        }
-    }
+    private final EmployeeRepository employeeRepository = new EmployeeRepository();
+    private final QueryScope queryScope = new QueryScope();
+    private final DomainEvents.Subscription events = new DomainEvents.Subscription();
+    // Rows are paged in from the database as the table scrolls; filtering and sorting happen in SQL
+    private final EmployeeTableModel tableModel = new EmployeeTableModel(new EmployeeRepository(), queryScope);
+    // Employee picked with Search, or null for everyone
+    private String searchedId;
+    private SearchPipeline searchPipeline;
     
     public View_Employee() {
-        initializeDatabase();
+        conn.checkReachable(this, queryScope);
         initializeUI();
         loadEmployeeData();
-        setupTableSorting();
-    }
-    
-    private void initializeDatabase() {
-        try {
-            dbConnection = new conn();
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Database connection failed: " + e.getMessage(),
-                                        "Connection Error", JOptionPane.ERROR_MESSAGE);
-        }
+        subscribeToChanges();
     }
     
     private void initializeUI() {
@@ -207,7 +181,8 @@ public class View_Employee extends JFrame implements ActionListener {
         searchByIdLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
         searchByIdLabel.setForeground(SECONDARY_COLOR);
         
-        employeeComboBox = new JComboBox<>();
+        // Type-ahead over names and ids instead of one item per employee
+        employeeComboBox = new EmployeePicker(queryScope, new EmployeeRecord.Ref("ALL", "All Employees"));
         employeeComboBox.setFont(new Font("Segoe UI", Font.PLAIN, 14));
         employeeComboBox.setPreferredSize(new Dimension(300, 35));
         employeeComboBox.setBackground(INPUT_COLOR);
@@ -223,18 +198,7 @@ public class View_Employee extends JFrame implements ActionListener {
             BorderFactory.createLineBorder(BORDER_COLOR, 1),
             BorderFactory.createEmptyBorder(8, 12, 8, 12)));
         searchField.setBackground(INPUT_COLOR);
-        searchField.addKeyListener(new KeyListener() {
-            @Override
-            public void keyTyped(KeyEvent e) {}
-            
-            @Override
-            public void keyPressed(KeyEvent e) {}
-            
-            @Override
-            public void keyReleased(KeyEvent e) {
-                filterTable();
-            }
-        });
+        searchPipeline = new SearchPipeline(searchField, queryScope, this::prepareSearch);
         
         idSearchPanel.add(searchByIdLabel);
         idSearchPanel.add(employeeComboBox);
@@ -311,7 +275,9 @@ public class View_Employee extends JFrame implements ActionListener {
         tablePanel.setBorder(new EmptyBorder(0, 40, 20, 40));
         
         // Create table
-        employeeTable = new JTable();
+        employeeTable = new JTable(tableModel);
+        employeeTable.setRowSorter(tableModel.createSorter());
+        tableModel.addTableModelListener(e -> updateCountLabel());
         styleTable();
         
         JScrollPane scrollPane = new JScrollPane(employeeTable);
@@ -370,18 +336,21 @@ public class View_Employee extends JFrame implements ActionListener {
         printButton = createModernButton("Print Table", new Color(108, 117, 125), new Dimension(120, 40));
         exportButton = createModernButton("Export CSV", WARNING_COLOR, new Dimension(120, 40));
         deleteButton = createModernButton("Delete", DANGER_COLOR, new Dimension(120, 40));
+        bulkButton = createModernButton("Bulk Update", new Color(142, 68, 173), new Dimension(120, 40));
         updateButton = createModernButton("Update", PRIMARY_COLOR, new Dimension(120, 40));
         backButton = createModernButton("Back", SECONDARY_COLOR, new Dimension(120, 40));
         
         printButton.addActionListener(this);
         exportButton.addActionListener(this);
         deleteButton.addActionListener(this);
+        bulkButton.addActionListener(this);
         updateButton.addActionListener(this);
         backButton.addActionListener(this);
         
         actionPanel.add(printButton);
         actionPanel.add(exportButton);
         actionPanel.add(deleteButton);
+        actionPanel.add(bulkButton);
         actionPanel.add(updateButton);
         actionPanel.add(backButton);
         
@@ -427,122 +396,93 @@ public class View_Employee extends JFrame implements ActionListener {
     }
     
     private void loadEmployeeData() {
-        try {
-            if (dbConnection == null || dbConnection.statement == null) {
-                statusLabel.setText("Database connection not available");
+        // The table counts and pages in its own rows; the pickers load alongside
+        tableModel.refresh();
+        CompletableFuture<List<String>> positions = queryScope.submit(EmployeeDirectory::positions);
+        CompletableFuture<Integer> employees = employeeComboBox.reload();
+        
+        CompletableFuture.allOf(positions, employees).whenComplete(queryScope.onEdt((ignored, error) -> {
+            if (error != null) {
+                error.printStackTrace();
+                statusLabel.setText("Error loading data");
                 statusLabel.setForeground(DANGER_COLOR);
+                JOptionPane.showMessageDialog(this, "Error loading employee data: " + DbExecutor.describe(error),
+                                            "Database Error", JOptionPane.ERROR_MESSAGE);
                 return;
             }
             
-            // Load employee combo box
-            employeeComboBox.removeAllItems();
-            employeeComboBox.addItem(new EmployeeItem("ALL", "All Employees"));
-            
             // Load position filter
             positionFilter.removeAllItems();
             positionFilter.addItem("All Positions");
             
-            ResultSet rs = dbConnection.statement.executeQuery("SELECT DISTINCT position FROM employee ORDER BY position");
-            while (rs.next()) {
-                positionFilter.addItem(rs.getString("position"));
-            }
-            
-            // Load employee data
-            rs = dbConnection.statement.executeQuery("SELECT id, name FROM employee ORDER BY name");
-            while (rs.next()) {
-                employeeComboBox.addItem(new EmployeeItem(rs.getString("id"), rs.getString("name")));
+            for (String position : positions.join()) {
+                positionFilter.addItem(position);
             }
             
-            // Load table data
-            loadTableData("SELECT * FROM employee ORDER BY id");
-            
             statusLabel.setText("Data loaded successfully");
             statusLabel.setForeground(SUCCESS_COLOR);
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
-            statusLabel.setText("Error loading data");
-            statusLabel.setForeground(DANGER_COLOR);
-            JOptionPane.showMessageDialog(this, "Error loading employee data: " + e.getMessage(),
-                                        "Database Error", JOptionPane.ERROR_MESSAGE);
-        }
+        }));
     }
     
-    private void loadTableData(String query) {
-        try {
-            ResultSet rs = dbConnection.statement.executeQuery(query);
-            employeeTable.setModel(DbUtils.resultSetToTableModel(rs));
-            
-            // Update total count
-            int rowCount = employeeTable.getRowCount();
-            totalEmployeesLabel.setText("Total Employees: " + rowCount);
-            
-            // Setup table sorting after loading data
-            setupTableSorting();
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
+    // Committed changes from any window patch single rows instead of reloading the table
+    private void subscribeToChanges() {
+        events.on(DomainEvents.EmployeeAdded.class, e -> applyEmployee(e.getEmployee(), true))
+              .on(DomainEvents.EmployeeUpdated.class, e -> applyEmployee(e.getEmployee(), false))
+              .on(DomainEvents.EmployeeRemoved.class, e -> removeEmployee(e.getId()))
+              .on(DomainEvents.EmployeesChanged.class, e -> refreshData());
+    }
+    
+    private void applyEmployee(EmployeeRecord employee, boolean added) {
+        if (added) {
+            tableModel.employeeAdded(employee);
+        } else {
+            tableModel.employeeUpdated(employee);
+        }
+        // Also lists a renamed employee under the new name
+        employeeComboBox.employeeAdded(new EmployeeRecord.Ref(employee.getId(), employee.getName()));
+        
+        String position = employee.getPosition();
+        if (position != null && ((DefaultComboBoxModel<String>) positionFilter.getModel()).getIndexOf(position) < 0) {
+            positionFilter.addItem(position);
         }
     }
     
-    private void setupTableSorting() {
-        if (employeeTable.getModel() instanceof DefaultTableModel) {
-            tableModel = (DefaultTableModel) employeeTable.getModel();
-            tableSorter = new TableRowSorter<>(tableModel);
-            employeeTable.setRowSorter(tableSorter);
+    private void removeEmployee(String employeeId) {
+        tableModel.employeeRemoved(employeeId);
+        employeeComboBox.employeeRemoved(employeeId);
+    }
+    
+    private void updateCountLabel() {
+        if (!tableModel.isCounted()) {
+            totalEmployeesLabel.setText("Counting employees...");
+        } else if (tableModel.getFilter().isEmpty()) {
+            totalEmployeesLabel.setText("Total Employees: " + tableModel.getRowCount());
+        } else {
+            totalEmployeesLabel.setText("Showing: " + tableModel.getRowCount() + " employees");
         }
     }
     
+    // Filters are applied by the database; typing goes through the same pipeline, debounced
     private void filterTable() {
-        if (tableSorter == null) return;
-        
-        String searchText = searchField.getText().trim();
+        searchPipeline.runNow();
+    }
+    
+    // Counts the matching rows in the background, then shows them; rows are paged in as they are painted
+    private DbExecutor.DbCall<Runnable> prepareSearch(String text, SearchPipeline.Run run) {
         String selectedDept = (String) departmentFilter.getSelectedItem();
         String selectedPos = (String) positionFilter.getSelectedItem();
-        
-        if (searchText.isEmpty() && "All Departments".equals(selectedDept) && "All Positions".equals(selectedPos)) {
-            tableSorter.setRowFilter(null);
-        } else {
-            RowFilter<DefaultTableModel, Object> rf = new RowFilter<DefaultTableModel, Object>() {
-                @Override
-                public boolean include(Entry<? extends DefaultTableModel, ? extends Object> entry) {
-                    boolean matchesSearch = true;
-                    boolean matchesDept = true;
-                    boolean matchesPos = true;
-                    
-                    if (!searchText.isEmpty()) {
-                        matchesSearch = false;
-                        for (int i = 0; i < entry.getValueCount(); i++) {
-                            if (entry.getStringValue(i).toLowerCase().contains(searchText.toLowerCase())) {
-                                matchesSearch = true;
-                                break;
-                            }
-                        }
-                    }
-                    
-                    if (!"All Departments".equals(selectedDept)) {
-                        // Assuming department is in column 7 (adjust based on your table structure)
-                        if (entry.getValueCount() > 7) {
-                            matchesDept = selectedDept.equals(entry.getStringValue(7));
-                        }
-                    }
-                    
-                    if (!"All Positions".equals(selectedPos)) {
-                        // Assuming position is in column 6 (adjust based on your table structure)
-                        if (entry.getValueCount() > 6) {
-                            matchesPos = selectedPos.equals(entry.getStringValue(6));
-                        }
-                    }
-                    
-                    return matchesSearch && matchesDept && matchesPos;
-                }
-            };
-            tableSorter.setRowFilter(rf);
-        }
-        
-        // Update displayed count
-        int visibleRows = employeeTable.getRowCount();
-        totalEmployeesLabel.setText("Showing: " + visibleRows + " employees");
+        EmployeeRepository.Filter filter = new EmployeeRepository.Filter(
+            searchedId,
+            text,
+            selectedDept == null || "All Departments".equals(selectedDept) ? null : selectedDept,
+            selectedPos == null || "All Positions".equals(selectedPos) ? null : selectedPos);
+        // Already showing it, e.g. a combo being refilled or the text typed back to what it was
+        if (filter.equals(tableModel.getFilter())) return null;
+        
+        return () -> {
+            int count = employeeRepository.count(filter);
+            return () -> tableModel.setFilter(filter, count);
+        };
     }
     
     @Override
@@ -555,6 +495,8 @@ public class View_Employee extends JFrame implements ActionListener {
             updateEmployee();
         } else if (e.getSource() == deleteButton) {
             deleteEmployee();
+        } else if (e.getSource() == bulkButton) {
+            bulkUpdate();
         } else if (e.getSource() == refreshButton) {
             refreshData();
         } else if (e.getSource() == exportButton) {
@@ -565,107 +507,186 @@ public class View_Employee extends JFrame implements ActionListener {
         }
     }
     
+    // Opens the bulk update window on the employees the department and position filters show
+    private void bulkUpdate() {
+        String selectedDept = (String) departmentFilter.getSelectedItem();
+        String selectedPos = (String) positionFilter.getSelectedItem();
+        new BulkUpdateEmployees(
+            selectedDept == null || "All Departments".equals(selectedDept) ? null : selectedDept,
+            selectedPos == null || "All Positions".equals(selectedPos) ? null : selectedPos);
+    }
+    
     private void searchEmployee() {
-        EmployeeItem selectedItem = (EmployeeItem) employeeComboBox.getSelectedItem();
-        if (selectedItem == null) return;
-        
-        try {
-            String query;
-            if ("ALL".equals(selectedItem.getId())) {
-                query = "SELECT * FROM employee ORDER BY id";
-                statusLabel.setText("Showing all employees");
-            } else {
-                query = "SELECT * FROM employee WHERE id='" + selectedItem.getId() + "'";
-                statusLabel.setText("Showing employee: " + selectedItem.getName());
-            }
-            
-            loadTableData(query);
-            statusLabel.setForeground(SUCCESS_COLOR);
-            
-        } catch (Exception ex) {
-            ex.printStackTrace();
-            statusLabel.setText("Search failed");
-            statusLabel.setForeground(DANGER_COLOR);
-        }
+        EmployeeRecord.Ref selectedItem = employeeComboBox.getSelectedEmployee();
+        boolean all = selectedItem == null;
+        searchedId = all ? null : selectedItem.getId();
+        filterTable();
+        statusLabel.setText(all ? "Showing all employees" : "Showing employee: " + selectedItem.getName());
+        statusLabel.setForeground(SUCCESS_COLOR);
     }
     
+    // The table only holds the pages on screen, so printing reads every matching row first
     private void printTable() {
-        try {
-            boolean printed = employeeTable.print(JTable.PrintMode.FIT_WIDTH,
-                    null, null, true, null, true);
-            if (printed) {
-                statusLabel.setText("Table printed successfully");
-                statusLabel.setForeground(SUCCESS_COLOR);
+        withMatchingRows("Print", model -> {
+            try {
+                boolean printed = new JTable(model).print(JTable.PrintMode.FIT_WIDTH,
+                        null, null, true, null, true);
+                if (printed) {
+                    statusLabel.setText("Table printed successfully");
+                    statusLabel.setForeground(SUCCESS_COLOR);
+                }
+            } catch (PrinterException ex) {
+                ex.printStackTrace();
+                statusLabel.setText("Print failed");
+                statusLabel.setForeground(DANGER_COLOR);
+                JOptionPane.showMessageDialog(this, "Error printing table: " + ex.getMessage(),
+                                            "Print Error", JOptionPane.ERROR_MESSAGE);
             }
-        } catch (PrinterException ex) {
-            ex.printStackTrace();
-            statusLabel.setText("Print failed");
-            statusLabel.setForeground(DANGER_COLOR);
-            JOptionPane.showMessageDialog(this, "Error printing table: " + ex.getMessage(),
-                                        "Print Error", JOptionPane.ERROR_MESSAGE);
-        }
+        });
     }
     
-    private void updateEmployee() {
+    // Reads every row matching the current filter, in the current order, into a compact column store
+    // and hands it over on the EDT
+    private void withMatchingRows(String action, Consumer<ColumnarTableModel> consumer) {
+        EmployeeRepository.Filter filter = tableModel.getFilter();
+        String sortColumn = tableModel.getSortColumn();
+        boolean ascending = tableModel.isAscending();
+        statusLabel.setText(action + ": reading employees...");
+        statusLabel.setForeground(WARNING_COLOR);
+        queryScope.submit(JdbcProfile.REPORTING, () -> employeeRepository.findMatchingColumns(filter, sortColumn, ascending))
+            .whenComplete(queryScope.onEdt((model, error) -> {
+                if (error != null) {
+                    error.printStackTrace();
+                    statusLabel.setText(action + " failed");
+                    statusLabel.setForeground(DANGER_COLOR);
+                    JOptionPane.showMessageDialog(this, "Error reading employees: " + DbExecutor.describe(error),
+                                                "Database Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                consumer.accept(model);
+            }));
+    }
+    
+    // Employee on the selected row, or null (with a warning) when nothing usable is selected
+    private EmployeeRecord selectedEmployee(String action) {
         int selectedRow = employeeTable.getSelectedRow();
-        if (selectedRow == -1) {
-            JOptionPane.showMessageDialog(this, "Please select an employee to update.",
+        EmployeeRecord employee = selectedRow == -1 ? null
+            : tableModel.getEmployeeAt(employeeTable.convertRowIndexToModel(selectedRow));
+        if (employee == null) {
+            JOptionPane.showMessageDialog(this, "Please select an employee to " + action + ".",
                                         "No Selection", JOptionPane.WARNING_MESSAGE);
-            return;
         }
-        
-        // Get the actual row in case of sorting/filtering
-        int modelRow = employeeTable.convertRowIndexToModel(selectedRow);
-        String employeeId = employeeTable.getModel().getValueAt(modelRow, 0).toString();
+        return employee;
+    }
+    
+    private void updateEmployee() {
+        EmployeeRecord employee = selectedEmployee("update");
+        if (employee == null) return;
         
         dispose();
-        new UpdateEmployee(employeeId);
+        new UpdateEmployee(employee.getId());
     }
     
     private void deleteEmployee() {
-        int selectedRow = employeeTable.getSelectedRow();
-        if (selectedRow == -1) {
-            JOptionPane.showMessageDialog(this, "Please select an employee to delete.",
-                                        "No Selection", JOptionPane.WARNING_MESSAGE);
+        int[] rows = employeeTable.getSelectedRows();
+        if (rows.length > 1) {
+            deleteEmployees(rows);
             return;
         }
         
-        int modelRow = employeeTable.convertRowIndexToModel(selectedRow);
-        String employeeId = employeeTable.getModel().getValueAt(modelRow, 0).toString();
-        String employeeName = employeeTable.getModel().getValueAt(modelRow, 1).toString();
+        EmployeeRecord employee = selectedEmployee("delete");
+        if (employee == null) return;
+        
+        String employeeId = employee.getId();
+        String employeeName = employee.getName();
         
         int option = JOptionPane.showConfirmDialog(this,
                 "Are you sure you want to delete employee:\n" + employeeName + " (ID: " + employeeId + ")?",
                 "Confirm Delete", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
         
         if (option == JOptionPane.YES_OPTION) {
-            try {
-                String query = "DELETE FROM employee WHERE id='" + employeeId + "'";
-                int result = dbConnection.statement.executeUpdate(query);
-                
-                if (result > 0) {
+            DbExecutor.submit(() -> employeeRepository.delete(employeeId)).whenComplete(queryScope.onEdt((result, error) -> {
+                if (error != null) {
+                    error.printStackTrace();
+                    JOptionPane.showMessageDialog(this, DbExecutor.describe(error),
+                                                "Error", JOptionPane.ERROR_MESSAGE);
+                } else if (result > 0) {
+                    // The table is refreshed by the EmployeeRemoved event
                     JOptionPane.showMessageDialog(this, "Employee deleted successfully!",
                                                 "Success", JOptionPane.INFORMATION_MESSAGE);
-                    refreshData();
                 } else {
                     JOptionPane.showMessageDialog(this, "Failed to delete employee.",
                                                 "Error", JOptionPane.ERROR_MESSAGE);
                 }
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                JOptionPane.showMessageDialog(this, "Database error: " + ex.getMessage(),
-                                            "Error", JOptionPane.ERROR_MESSAGE);
+            }));
+        }
+    }
+    
+    // Batch removal of the selected rows; selecting every row (Ctrl+A) removes everything matching the filter,
+    // including rows not loaded yet
+    private void deleteEmployees(int[] rows) {
+        EmployeeRepository.Filter filter = tableModel.getFilter();
+        boolean allRows = rows.length == tableModel.getRowCount();
+        // The ids shown are what gets removed; only a selection of every row, too large to have been
+        // loaded, goes by the filter, and then only if it still matches exactly that many employees
+        List<String> ids = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            int modelRow = employeeTable.convertRowIndexToModel(row);
+            EmployeeRecord employee = allRows ? tableModel.getLoadedEmployeeAt(modelRow) : tableModel.getEmployeeAt(modelRow);
+            if (employee == null) {
+                ids = null;
+                break;
+            }
+            ids.add(employee.getId());
+        }
+        if (ids == null && !allRows) {
+            JOptionPane.showMessageDialog(this, "Some of the selected rows are still loading. Please try again.",
+                                        "Please Wait", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        boolean byFilter = ids == null;
+        List<String> selectedIds = ids;
+        
+        String what = !allRows ? rows.length + " selected employees"
+            : filter.isEmpty() ? "ALL " + rows.length + " employees"
+            : "all " + rows.length + " employees matching the current filter";
+        String confirmText = JOptionPane.showInputDialog(this,
+            "To remove " + what + ", please type: DELETE\n\n" +
+            "Removed employees are moved to the archive in the background.",
+            "Confirm Batch Removal", JOptionPane.WARNING_MESSAGE);
+        if (!"DELETE".equals(confirmText)) {
+            if (confirmText != null) {
+                JOptionPane.showMessageDialog(this, "Removal cancelled. Text did not match 'DELETE'.",
+                                            "Cancelled", JOptionPane.INFORMATION_MESSAGE);
             }
+            return;
         }
+        
+        DbExecutor.submit(JdbcProfile.BULK, () -> byFilter
+                ? employeeRepository.requestRemoval(filter, rows.length) : employeeRepository.requestRemoval(selectedIds))
+            .whenComplete(queryScope.onEdt((count, error) -> {
+                if (error != null) {
+                    error.printStackTrace();
+                    JOptionPane.showMessageDialog(this, DbExecutor.describe(error),
+                                                "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                // Queued employees are already left out; the EmployeesChanged event refreshes the table
+                employeeTable.clearSelection();
+                statusLabel.setText("Removed " + count + " employees; archiving them in the background...");
+                statusLabel.setForeground(WARNING_COLOR);
+            }));
     }
     
     private void refreshData() {
         statusLabel.setText("Refreshing data...");
         statusLabel.setForeground(WARNING_COLOR);
-        loadEmployeeData();
+        searchedId = null;
         searchField.setText("");
         departmentFilter.setSelectedIndex(0);
-        positionFilter.setSelectedIndex(0);
+        if (positionFilter.getItemCount() > 0) positionFilter.setSelectedIndex(0);
+        filterTable();
+        loadEmployeeData();
     }
     
     private void exportToCSV() {
@@ -675,61 +696,59 @@ public class View_Employee extends JFrame implements ActionListener {
         
         int userSelection = fileChooser.showSaveDialog(this);
         if (userSelection == JFileChooser.APPROVE_OPTION) {
-            try {
-                java.io.File fileToSave = fileChooser.getSelectedFile();
-                java.io.FileWriter csvWriter = new java.io.FileWriter(fileToSave);
-                
-                // Write headers
-                for (int i = 0; i < employeeTable.getColumnCount(); i++) {
-                    csvWriter.append(employeeTable.getColumnName(i));
-                    if (i < employeeTable.getColumnCount() - 1) {
+            withMatchingRows("Export", model -> writeCSV(fileChooser.getSelectedFile(), model));
+        }
+    }
+    
+    private void writeCSV(java.io.File fileToSave, ColumnarTableModel model) {
+        try {
+            java.io.FileWriter csvWriter = new java.io.FileWriter(fileToSave);
+            
+            // Write headers
+            for (int i = 0; i < model.getColumnCount(); i++) {
+                csvWriter.append(model.getColumnName(i));
+                if (i < model.getColumnCount() - 1) {
+                    csvWriter.append(",");
+                }
+            }
+            csvWriter.append("\n");
+            
+            // Write data
+            for (int i = 0; i < model.getRowCount(); i++) {
+                for (int j = 0; j < model.getColumnCount(); j++) {
+                    Object value = model.getValueAt(i, j);
+                    csvWriter.append(value != null ? value.toString() : "");
+                    if (j < model.getColumnCount() - 1) {
                         csvWriter.append(",");
                     }
                 }
                 csvWriter.append("\n");
-                
-                // Write data
-                for (int i = 0; i < employeeTable.getRowCount(); i++) {
-                    for (int j = 0; j < employeeTable.getColumnCount(); j++) {
-                        Object value = employeeTable.getValueAt(i, j);
-                        csvWriter.append(value != null ? value.toString() : "");
-                        if (j < employeeTable.getColumnCount() - 1) {
-                            csvWriter.append(",");
-                        }
-                    }
-                    csvWriter.append("\n");
-                }
-                
-                csvWriter.flush();
-                csvWriter.close();
-                
-                statusLabel.setText("Data exported successfully");
-                statusLabel.setForeground(SUCCESS_COLOR);
-                JOptionPane.showMessageDialog(this, "Employee data exported successfully!",
-                                            "Export Complete", JOptionPane.INFORMATION_MESSAGE);
-                
-            } catch (java.io.IOException ex) {
-                ex.printStackTrace();
-                statusLabel.setText("Export failed");
-                statusLabel.setForeground(DANGER_COLOR);
-                JOptionPane.showMessageDialog(this, "Error exporting data: " + ex.getMessage(),
-                                            "Export Error", JOptionPane.ERROR_MESSAGE);
             }
+            
+            csvWriter.flush();
+            csvWriter.close();
+            
+            statusLabel.setText("Data exported successfully");
+            statusLabel.setForeground(SUCCESS_COLOR);
+            JOptionPane.showMessageDialog(this, "Employee data exported successfully!",
+                                        "Export Complete", JOptionPane.INFORMATION_MESSAGE);
+            
+        } catch (java.io.IOException ex) {
+            ex.printStackTrace();
+            statusLabel.setText("Export failed");
+            statusLabel.setForeground(DANGER_COLOR);
+            JOptionPane.showMessageDialog(this, "Error exporting data: " + ex.getMessage(),
+                                        "Export Error", JOptionPane.ERROR_MESSAGE);
         }
     }
     
     @Override
     public void dispose() {
-        // Clean up database connection
-        if (dbConnection != null) {
-            try {
-                if (dbConnection.statement != null) {
-                    dbConnection.statement.close();
-                }
-            } catch (Exception e) {
-                System.err.println("Error closing database connection: " + e.getMessage());
-            }
-        }
+        // Cancel this window's outstanding queries
+        searchPipeline.cancel();
+        employeeComboBox.cancel();
+        queryScope.close();
+        events.close();
         super.dispose();
     }
     
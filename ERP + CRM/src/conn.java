@@ -1,19 +1,137 @@
+import java.awt.Component;
 import java.sql.*;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import javax.swing.JOptionPane;
 
 public class conn {
-	
-	Connection connection;
-	Statement statement;
-	
-	public conn() {
-		try{
-			Class.forName("com.mysql.cj.jdbc.Driver");
-			connection = DriverManager.getConnection("jdbc:mysql://localhost:3306/erpcrm","root","1234");
-			statement= connection.createStatement();
-			
-		}catch(Exception e) {
-			e.printStackTrace();
+
+	private static final Map<JdbcProfile, ConnectionPool> pools = new EnumMap<>(JdbcProfile.class);
+	private static final Map<JdbcProfile, QueryExecutor> executors = new EnumMap<>(JdbcProfile.class);
+	private static final List<Runnable> shutdownTasks = new CopyOnWriteArrayList<>();
+	private static DbConfig config;
+
+	// Shutdown hooks run in no particular order, so one hook runs the tasks and then closes the pools
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(conn::shutdown, "db-shutdown"));
+	}
+
+	private static final int PING_TIMEOUT_SECONDS = 5;
+
+	private conn() {
+	}
+
+	// Borrows a connection only to check the database can be reached, and gives it straight back
+	public static void ping() throws SQLException {
+		try (Connection connection = pool(JdbcProfile.INTERACTIVE).getConnection()) {
+			if (!connection.isValid(PING_TIMEOUT_SECONDS)) {
+				throw new SQLException("Database connection is not valid");
+			}
+		}
+	}
+
+	/**
+	 * Pings the database in the background and tells the user if it can't be reached. Screens call
+	 * this when they open instead of holding a connection: their queries borrow a pooled connection
+	 * only while they run. With a scope, the check is cancelled and its result dropped once the
+	 * screen has closed.
+	 */
+	public static void checkReachable(Component parent, QueryScope scope) {
+		DbExecutor.DbCall<Void> check = () -> {
+			ping();
+			return null;
+		};
+		BiConsumer<Void, Throwable> report = (result, error) -> {
+			if (error != null) {
+				JOptionPane.showMessageDialog(parent, "Database connection failed: " + DbExecutor.describe(error),
+					"Connection Error", JOptionPane.ERROR_MESSAGE);
+			}
+		};
+		if (scope != null) {
+			scope.submit(check).whenComplete(scope.onEdt(report));
+		} else {
+			DbExecutor.submit(check).whenComplete(DbExecutor.onEdt(report));
+		}
+	}
+
+	// One pool per profile, created on first use from app_settings.properties
+	static synchronized ConnectionPool pool(JdbcProfile profile) throws SQLException {
+		ConnectionPool pool = pools.get(profile);
+		if (pool == null) {
+			DbConfig dbConfig = config();
+			try {
+				Class.forName(dbConfig.getBackend().driverClass);
+			} catch (ClassNotFoundException e) {
+				throw new SQLException(dbConfig.getBackend() + " JDBC driver not found", e);
+			}
+
+			pool = new ConnectionPool(dbConfig.getUrl(), dbConfig.connectionProperties(profile), dbConfig.poolOptions(profile));
+			pools.put(profile, pool);
+		}
+		return pool;
+	}
+
+	// Runs task at exit while the pools are still open, e.g. to write out queued rows
+	public static void beforeShutdown(Runnable task) {
+		shutdownTasks.add(task);
+	}
+
+	private static void shutdown() {
+		for (Runnable task : shutdownTasks) {
+			try {
+				task.run();
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+			}
+		}
+		synchronized (conn.class) {
+			// The embedded database is opened with DB_CLOSE_ON_EXIT=FALSE so it outlives the tasks above
+			if (!pools.isEmpty() && config().getBackend().isEmbedded()) {
+				try (Connection connection = pools.values().iterator().next().getConnection();
+						Statement statement = connection.createStatement()) {
+					statement.execute("SHUTDOWN");
+				} catch (SQLException e) {
+					System.err.println("Error closing embedded database: " + e.getMessage());
+				}
+			}
+			for (ConnectionPool pool : pools.values()) {
+				pool.shutdown();
+			}
+		}
+	}
+
+	static synchronized DbConfig config() {
+		if (config == null) {
+			config = DbConfig.load();
+		}
+		return config;
+	}
+
+	// Thread-safe query API; every query borrows a pooled connection for its own duration
+	public static QueryExecutor executor() throws SQLException {
+		return executor(JdbcProfile.INTERACTIVE);
+	}
+
+	public static synchronized QueryExecutor executor(JdbcProfile profile) throws SQLException {
+		QueryExecutor executor = executors.get(profile);
+		if (executor == null) {
+			executor = new QueryExecutor(pool(profile));
+			executors.put(profile, executor);
 		}
+		return executor;
+	}
+
+	public static ConnectionPool.Stats poolStats() {
+		return poolStats(JdbcProfile.INTERACTIVE);
+	}
+
+	// Null until the profile's pool has been used
+	public static synchronized ConnectionPool.Stats poolStats(JdbcProfile profile) {
+		ConnectionPool pool = pools.get(profile);
+		return pool == null ? null : pool.getStats();
 	}
 
 }